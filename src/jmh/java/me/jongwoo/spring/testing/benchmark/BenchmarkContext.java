@@ -0,0 +1,80 @@
+package me.jongwoo.spring.testing.benchmark;
+
+import me.jongwoo.spring.testing.SpringTestJunitMockitoApplication;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 벤치마크용으로 dev 프로필(H2 in-memory)의 JPA 계층만 띄운다.
+ * trial 마다 새 DB 를 쓰도록 datasource url 을 바꾸고, SQL 로그는 끈다.
+ */
+final class BenchmarkContext {
+
+    private static final int SEED_CHUNK_SIZE = 1000;
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID()));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+
+        // 프로필 설정보다 우선하도록 command line 인자로 넘긴다
+        return new SpringApplicationBuilder(SpringTestJunitMockitoApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dev")
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * 0 ~ tableSize-1 번 직원을 저장하고 발급된 id 를 순서대로 반환한다.
+     */
+    static long[] seed(EmployeeService employeeService, int tableSize) {
+        long[] ids = new long[tableSize];
+        for (int from = 0; from < tableSize; from += SEED_CHUNK_SIZE) {
+            List<Employee> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+            for (int i = from; i < Math.min(from + SEED_CHUNK_SIZE, tableSize); i++) {
+                chunk.add(employee(i));
+            }
+
+            List<Employee> savedEmployees = employeeService.saveEmployees(chunk);
+            for (int i = 0; i < savedEmployees.size(); i++) {
+                ids[from + i] = savedEmployees.get(i).getId();
+            }
+        }
+        return ids;
+    }
+
+    static Employee employee(long n) {
+        return Employee.builder()
+                .firstName(firstName(n))
+                .lastName(lastName(n))
+                .email(email(n))
+                .build();
+    }
+
+    static String firstName(long n) {
+        return "first" + n;
+    }
+
+    static String lastName(long n) {
+        return "last" + n;
+    }
+
+    static String email(long n) {
+        return n + "@email.com";
+    }
+}
@@ -0,0 +1,107 @@
+package me.jongwoo.spring.testing.benchmark;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.jongwoo.spring.testing.config.AdaptiveConcurrencyLimiter;
+import me.jongwoo.spring.testing.config.ConcurrencyLimitProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 과부하 부하 테스트. 커넥션 풀(permits 개)보다 훨씬 많은 스레드가 요청을 보낼 때, 한도 없이 풀 앞에 줄을 서는 경우와
+ * AdaptiveConcurrencyLimiter 로 넘치는 요청을 바로 거절하는 경우의 지연 시간을 비교한다.
+ * 클라이언트는 응답을 받을 때마다 thinkTime 만큼 쉬므로 (네트워크 왕복 + 재시도 간격) JMH 의 시간에는 모두 1ms 가 더해져 있다.
+ * JMH 의 p99 는 거절(503)까지 포함한 값이고, 처리된 요청만의 p99 와 거절 수는 종료 시 따로 출력한다.
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="ConcurrencyLimitBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(64)
+@Fork(1)
+public class ConcurrencyLimitBenchmark {
+
+    // 풀 크기와 쿼리 한 번의 시간. 초당 permits / serviceTime 건까지 처리 가능
+    private static final int PERMITS = 8;
+    private static final long SERVICE_TIME_NANOS = Duration.ofMillis(2).toNanos();
+    private static final long POOL_TIMEOUT_MILLIS = 1_000;
+    private static final long THINK_TIME_NANOS = Duration.ofMillis(1).toNanos();
+
+    @Param({"false", "true"})
+    private boolean limited;
+
+    private Semaphore pool;
+    private AdaptiveConcurrencyLimiter limiter;
+    private SimpleMeterRegistry registry;
+    private Timer accepted;
+    private LongAdder rejected;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        pool = new Semaphore(PERMITS, true);
+        ConcurrencyLimitProperties.Limit properties = new ConcurrencyLimitProperties.Limit();
+        properties.setInitialLimit(20);
+        properties.setMinLimit(4);
+        properties.setMaxLimit(200);
+        properties.setLatencyThreshold(Duration.ofMillis(5));
+        limiter = new AdaptiveConcurrencyLimiter(properties, 0.9);
+        registry = new SimpleMeterRegistry();
+        accepted = Timer.builder("benchmark.accepted")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        rejected = new LongAdder();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        StringBuilder percentiles = new StringBuilder();
+        for (ValueAtPercentile value : accepted.takeSnapshot().percentileValues()) {
+            percentiles.append(String.format(" p%.0f=%.2fms", value.percentile() * 100, value.value(TimeUnit.MILLISECONDS)));
+        }
+        System.out.printf("%n[limited=%s] accepted=%d rejected=%d%s limit=%d%n",
+                limited, accepted.count(), rejected.sum(), percentiles, limiter.getLimit());
+    }
+
+    @Benchmark
+    public boolean request() throws InterruptedException {
+        LockSupport.parkNanos(THINK_TIME_NANOS);
+        if (!limited) {
+            return handle();
+        }
+        if (!limiter.tryAcquire()) { // 503
+            rejected.increment();
+            return false;
+        }
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            ok = handle();
+        } finally {
+            limiter.release(System.nanoTime() - start, !ok);
+        }
+        return ok;
+    }
+
+    // 커넥션을 얻을 때까지 기다렸다가 쿼리 시간만큼 사용
+    private boolean handle() throws InterruptedException {
+        long start = System.nanoTime();
+        if (!pool.tryAcquire(POOL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        try {
+            LockSupport.parkNanos(SERVICE_TIME_NANOS);
+        } finally {
+            pool.release();
+        }
+        accepted.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return true;
+    }
+}
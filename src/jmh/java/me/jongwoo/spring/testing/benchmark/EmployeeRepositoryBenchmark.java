@@ -0,0 +1,75 @@
+package me.jongwoo.spring.testing.benchmark;
+
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.repository.EmployeeRepository;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmployeeRepository 조회 쿼리 벤치마크. 매 호출마다 임의의 직원 한 명을 찾는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeRepositoryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("spring.cache.type=none");
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        BenchmarkContext.seed(context.getBean(EmployeeService.class), tableSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private int next() {
+        return ThreadLocalRandom.current().nextInt(tableSize);
+    }
+
+    @Benchmark
+    public Optional<Employee> findByEmail() {
+        return employeeRepository.findByEmail(BenchmarkContext.email(next()));
+    }
+
+    @Benchmark
+    public List<Employee> findByJPQL() {
+        int n = next();
+        return employeeRepository.findByJPQL(BenchmarkContext.firstName(n), BenchmarkContext.lastName(n));
+    }
+
+    @Benchmark
+    public List<Employee> findByJPQLNamedParams() {
+        int n = next();
+        return employeeRepository.findByJPQLNamedParams(BenchmarkContext.firstName(n), BenchmarkContext.lastName(n));
+    }
+
+    @Benchmark
+    public List<Employee> findByNativeQuery() {
+        int n = next();
+        return employeeRepository.findByNativeQuery(BenchmarkContext.firstName(n), BenchmarkContext.lastName(n));
+    }
+
+    @Benchmark
+    public List<Employee> findByNativeQueryWithNamedParams() {
+        int n = next();
+        return employeeRepository.findByNativeQueryWithNamedParams(BenchmarkContext.firstName(n), BenchmarkContext.lastName(n));
+    }
+}
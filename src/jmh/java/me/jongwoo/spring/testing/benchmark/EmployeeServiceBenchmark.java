@@ -0,0 +1,66 @@
+package me.jongwoo.spring.testing.benchmark;
+
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EmployeeService 벤치마크.
+ * 기본은 캐시 없이 DB 경로를 측정하고, -p cacheType=caffeine 으로 캐시를 포함해서 측정할 수 있다.
+ * saveEmployee 는 측정 중에 테이블이 계속 커진다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tableSize;
+
+    @Param({"none"})
+    private String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private long[] ids;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("spring.cache.type=" + cacheType);
+        employeeService = context.getBean(EmployeeService.class);
+        ids = BenchmarkContext.seed(employeeService, tableSize);
+        sequence.set(tableSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee saveEmployee() {
+        return employeeService.saveEmployee(BenchmarkContext.employee(sequence.getAndIncrement()));
+    }
+
+    @Benchmark
+    public Optional<EmployeeDto> getEmployeeById() {
+        return employeeService.getEmployeeById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> getAllEmployees() {
+        return employeeService.getAllEmployees();
+    }
+}
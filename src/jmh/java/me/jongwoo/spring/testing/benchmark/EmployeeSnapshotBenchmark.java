@@ -0,0 +1,110 @@
+package me.jongwoo.spring.testing.benchmark;
+
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.service.EmployeeSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmployeeSnapshot 과 엔티티를 id/이메일 Map 에 담아 두는 경우의 조회 시간과 힙 사용량 비교.
+ * 이름은 DB 에서 읽은 것처럼 행마다 새 String 으로 만든다. 힙 사용량은 GC 후 used heap 차이로 재서 setUp 에서 출력한다.
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="EmployeeSnapshotBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class EmployeeSnapshotBenchmark {
+
+    private static final int FIRST_NAMES = 200;
+    private static final int LAST_NAMES = 500;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private EmployeeSnapshot snapshot;
+    private Map<Long, Employee> entitiesById;
+    private Map<String, Employee> entitiesByEmail;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        entitiesById = new ConcurrentHashMap<>();
+        entitiesByEmail = new ConcurrentHashMap<>();
+        for (int i = 0; i < rows; i++) {
+            Employee employee = employee(i);
+            entitiesById.put(employee.getId(), employee);
+            entitiesByEmail.put(employee.getEmail(), employee);
+        }
+        long entityBytes = usedHeap() - before;
+
+        before = usedHeap();
+        snapshot = new EmployeeSnapshot();
+        for (int i = 0; i < rows; i++) {
+            snapshot.put(EmployeeDto.from(employee(i)));
+        }
+        snapshot.trimToSize(); // 서비스도 처음 전체를 읽은 뒤 호출함
+        long snapshotBytes = usedHeap() - before;
+
+        System.out.printf("%n[rows=%d] entities=%d bytes/row snapshot=%d bytes/row (%.1fx)%n",
+                rows, entityBytes / rows, snapshotBytes / rows, (double) entityBytes / snapshotBytes);
+    }
+
+    @Benchmark
+    public Optional<EmployeeDto> snapshotFindById() {
+        return snapshot.findById(randomId());
+    }
+
+    @Benchmark
+    public Optional<EmployeeDto> snapshotFindByEmail() {
+        return snapshot.findByEmail(email(randomId()));
+    }
+
+    @Benchmark
+    public Optional<EmployeeDto> entityMapFindById() {
+        return Optional.ofNullable(entitiesById.get(randomId())).map(EmployeeDto::from);
+    }
+
+    @Benchmark
+    public Optional<EmployeeDto> entityMapFindByEmail() {
+        return Optional.ofNullable(entitiesByEmail.get(email(randomId()))).map(EmployeeDto::from);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextInt(rows) + 1;
+    }
+
+    private static Employee employee(int i) {
+        return Employee.builder()
+                .id(i + 1)
+                .firstName(new String("first-" + (i % FIRST_NAMES)))
+                .lastName(new String("last-" + (i % LAST_NAMES)))
+                .email(email(i + 1))
+                .rowVersion(i + 1)
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    private static String email(long id) {
+        return "employee" + id + "@email.com";
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
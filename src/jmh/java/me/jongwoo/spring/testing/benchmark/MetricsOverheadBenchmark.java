@@ -0,0 +1,59 @@
+package me.jongwoo.spring.testing.benchmark;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청마다 붙는 타이머 비용 측정. application.yml 의 distribution 설정(히스토그램 + p50/p95/p99)과 같은 타이머를
+ * 아무것도 기록하지 않는 baseline 과 비교한다. 경합까지 보려면 -t 4 처럼 스레드 수를 늘려서 실행.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private PrometheusMeterRegistry registry;
+    private Timer plainTimer;
+    private Timer histogramTimer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        plainTimer = Timer.builder("benchmark.plain")
+                .register(registry);
+        histogramTimer = Timer.builder("benchmark.histogram")
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+    }
+
+    @Benchmark
+    public long baseline() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public void plainTimer(Blackhole blackhole) {
+        Timer.Sample sample = Timer.start(registry);
+        blackhole.consume(System.nanoTime());
+        sample.stop(plainTimer);
+    }
+
+    @Benchmark
+    public void histogramTimer(Blackhole blackhole) {
+        Timer.Sample sample = Timer.start(registry);
+        blackhole.consume(System.nanoTime());
+        sample.stop(histogramTimer);
+    }
+}
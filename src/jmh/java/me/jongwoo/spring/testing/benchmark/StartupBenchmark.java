@@ -0,0 +1,45 @@
+package me.jongwoo.spring.testing.benchmark;
+
+import me.jongwoo.spring.testing.SpringTestJunitMockitoApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 웹 서버까지 포함한 기동 시간을 fast-start 프로필 유무로 비교한다.
+ * 클래스 로딩/JIT 가 끝난 JVM 에서 다시 띄우면 실제 기동보다 훨씬 빠르므로 fork 마다 한 번만 기동하고 fork 수로 반복한다.
+ * AppCDS 적용 전후 비교는 mvn -Pappcds package -DskipTests 로 한다 (JMH fork 의 classpath 는 디렉터리라 아카이브를 쓸 수 없음).
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="StartupBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    @Param({"dev", "dev,fast-start"})
+    private String profiles;
+
+    private ConfigurableApplicationContext context;
+
+    @Benchmark
+    public ConfigurableApplicationContext start() {
+        context = SpringTestJunitMockitoApplication.application().run(
+                "--spring.profiles.active=" + profiles,
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID());
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        context.close();
+    }
+}
@@ -2,12 +2,25 @@ package me.jongwoo.spring.testing;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class SpringTestJunitMockitoApplication {
 
+	// 기동 단계 기록 개수. 빈 하나가 여러 단계를 남기므로 넉넉하게 잡음 (넘치면 이후 단계는 버려짐)
+	private static final int STARTUP_STEPS_CAPACITY = 10_000;
+
 	public static void main(String[] args) {
-		SpringApplication.run(SpringTestJunitMockitoApplication.class, args);
+		application().run(args);
+	}
+
+	/**
+	 * 기동 단계별 소요 시간을 기록하는 SpringApplication. GET /actuator/startup 으로 확인할 수 있다.
+	 */
+	public static SpringApplication application() {
+		SpringApplication application = new SpringApplication(SpringTestJunitMockitoApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
+		return application;
 	}
 
 }
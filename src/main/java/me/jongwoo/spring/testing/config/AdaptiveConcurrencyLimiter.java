@@ -0,0 +1,57 @@
+package me.jongwoo.spring.testing.config;
+
+/**
+ * AIMD 방식 동시 처리 한도. 빠르게 끝난 요청마다 한도를 1 늘리고, 느리거나 실패한 요청이 나오면 backoffRatio 를 곱해서 줄인다.
+ * 한도는 처리 중인 요청이 한도의 절반 이상일 때만 늘리므로 한가할 때 무한히 커지지 않는다.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private double limit; // guarded by this
+    private int inFlight; // guarded by this
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties.Limit properties, double backoffRatio) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.latencyThresholdNanos = properties.getLatencyThreshold().toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * 한도 안이면 true. true 를 받은 호출은 반드시 release 해야 한다.
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight--;
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlightBefore * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    // 지연 시간을 알 수 없는 요청 (ex. 비동기로 넘어간 SSE). 한도는 그대로 둠
+    public synchronized void releaseWithoutSample() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
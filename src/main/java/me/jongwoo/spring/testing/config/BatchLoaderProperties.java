@@ -0,0 +1,28 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * id 단건 조회를 모아서 IN 쿼리 한 번으로 읽는 설정 (employee.batch-loader.*).
+ * 켜면 캐시에 없는 getEmployeeById 가 최대 window 만큼 기다리는 대신 동시에 들어온 조회가 쿼리 하나로 합쳐진다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.batch-loader")
+public class BatchLoaderProperties {
+
+    private boolean enabled = false;
+
+    // 첫 조회가 들어온 뒤 이 시간 동안 들어온 id 를 모아서 조회
+    private Duration window = Duration.ofMillis(2);
+
+    // 이만큼 모이면 window 를 기다리지 않고 바로 조회
+    private int maxBatchSize = 500;
+
+    // 모은 id 를 조회하는 스레드 수
+    private int threads = 2;
+}
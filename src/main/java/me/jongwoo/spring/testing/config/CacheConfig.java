@@ -0,0 +1,36 @@
+package me.jongwoo.spring.testing.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * 캐시 크기/TTL 은 application.yml 의 spring.cache.caffeine.spec 으로 설정한다.
+ * 통계 캐시(employeeStats)만 employee.stats.ttl 로 따로 만료시간을 둔다.
+ * hit/miss/eviction 통계는 actuator 의 cache.* 메트릭과 /actuator/caches 로 확인.
+ * 캐시 advice 를 트랜잭션 advice(기본 LOWEST_PRECEDENCE) 바깥에 두어 @CacheEvict 가 커밋 뒤에 실행되게 한다.
+ * 안쪽이면 커밋 전에 지운 사이 다른 요청이 이전 값을 다시 캐시할 수 있음.
+ */
+@Configuration
+@EnableCaching(order = CacheConfig.CACHE_ADVICE_ORDER)
+@EnableConfigurationProperties(StatsProperties.class)
+public class CacheConfig {
+
+    public static final String EMPLOYEE_CACHE = "employee";
+    public static final String EMPLOYEE_STATS_CACHE = "employeeStats";
+    public static final int CACHE_ADVICE_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> statsCacheCustomizer(StatsProperties properties) {
+        return cacheManager -> cacheManager.registerCustomCache(EMPLOYEE_STATS_CACHE, Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build());
+    }
+}
@@ -0,0 +1,30 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * GET /api/employees/changes (SSE) 설정 (employee.changes.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.changes")
+public class ChangeFeedProperties {
+
+    // 최근 이벤트를 보관하는 개수. Last-Event-ID 가 이보다 오래되면 reset 이벤트를 보내고 최신으로 건너뜀
+    private int bufferSize = 10_000;
+
+    // 이벤트가 없을 때 연결 확인용 주석을 보내는 주기
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    private Duration timeout = Duration.ofMinutes(30);
+
+    // 구독자에게 전송하는 스레드 수. 느린 구독자는 전송 중인 동안 스레드 하나를 차지함
+    private int sendThreads = 4;
+
+    // 한 번의 전송이 이보다 오래 걸리는 구독자는 끊음. 막힌 스레드는 쓰기가 끝날 때까지 다른 스레드로 대신함
+    private Duration sendTimeout = Duration.ofSeconds(10);
+}
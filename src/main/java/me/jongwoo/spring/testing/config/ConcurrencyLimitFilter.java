@@ -0,0 +1,119 @@
+package me.jongwoo.spring.testing.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 한도를 넘은 요청은 컨트롤러까지 가지 않고 바로 503 + Retry-After 로 돌려보낸다.
+ * DB 가 느려져도 커넥션 풀 앞에 톰캣 스레드가 쌓이지 않으므로 받아들인 요청의 지연 시간이 유지된다.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final Counter readRejected;
+    private final Counter writeRejected;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.readLimiter = new AdaptiveConcurrencyLimiter(properties.getRead(), properties.getBackoffRatio());
+        this.writeLimiter = new AdaptiveConcurrencyLimiter(properties.getWrite(), properties.getBackoffRatio());
+        this.readRejected = register("read", readLimiter, meterRegistry);
+        this.writeRejected = register("write", writeLimiter, meterRegistry);
+    }
+
+    private static Counter register(String type, AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        Gauge.builder("employee.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("type", type)
+                .register(meterRegistry);
+        Gauge.builder("employee.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("type", type)
+                .register(meterRegistry);
+        return meterRegistry.counter("employee.concurrency.rejected", "type", type);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())
+                || request.getRequestURI().endsWith("/lookup"); // POST 지만 조회
+        AdaptiveConcurrencyLimiter limiter = read ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            (read ? readRejected : writeRejected).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해 주세요.");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            if (request.isAsyncStarted()) { // SSE, export 는 요청 스레드를 놓은 뒤에도 계속되므로 끝날 때까지 자리를 잡고 있음
+                request.getAsyncContext().addListener(new ReleaseOnAsyncEnd(limiter));
+            } else {
+                limiter.release(System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    /**
+     * 비동기 요청이 끝날 때 (완료, 오류, 타임아웃) 한 번만 반납한다. 지연 시간은 스트림 길이라 샘플로 쓰지 않음
+     */
+    private static class ReleaseOnAsyncEnd implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleaseOnAsyncEnd(AdaptiveConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) { // 비동기를 다시 시작하면 새 AsyncContext 에서 이어서 기다림
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) { // 오류 뒤에 onComplete 도 호출되므로
+                limiter.releaseWithoutSample();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * /api/employees 동시 처리 한도 설정 (employee.concurrency-limit.*). 조회(GET)와 쓰기의 한도를 따로 조절한다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private Limit read = new Limit(20, 4, 200, Duration.ofMillis(200));
+
+    private Limit write = new Limit(10, 2, 100, Duration.ofMillis(500));
+
+    // 느린 응답/5xx 가 나오면 한도에 곱하는 값
+    private double backoffRatio = 0.9;
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        private int initialLimit;
+
+        private int minLimit;
+
+        private int maxLimit;
+
+        // 이보다 오래 걸린 요청은 과부하 신호로 보고 한도를 줄임
+        private Duration latencyThreshold;
+
+        public Limit() {
+        }
+
+        Limit(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.latencyThreshold = latencyThreshold;
+        }
+    }
+}
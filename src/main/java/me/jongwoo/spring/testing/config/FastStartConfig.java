@@ -0,0 +1,36 @@
+package me.jongwoo.spring.testing.config;
+
+import me.jongwoo.spring.testing.controller.EmployeeController;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * fast-start 프로필 (application.yml). 빈은 처음 쓸 때 만들지만 요청 경로(컨트롤러, EmployeeService)는 기동 중에 만들어
+ * 첫 요청이 나머지 초기화 비용을 떠안지 않게 한다.
+ */
+@Configuration
+@Profile(FastStartConfig.PROFILE)
+public class FastStartConfig {
+
+    public static final String PROFILE = "fast-start";
+
+    // 지연 초기화 여부는 빈 정의 단계에서 결정되므로 static 으로 등록
+    @Bean
+    public static LazyInitializationExcludeFilter requestPathExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(EmployeeController.class, EmployeeService.class);
+    }
+
+    // AppCDS 학습 실행용 (pom.xml 의 appcds 프로필). 기동이 끝나면 바로 종료해서 기동에 쓰인 클래스만 목록에 남김
+    @Bean
+    @ConditionalOnProperty(prefix = "employee.fast-start", name = "exit-on-ready", havingValue = "true")
+    public ApplicationListener<ApplicationReadyEvent> exitOnReady() {
+        return event -> System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
@@ -0,0 +1,40 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 하이버네이트 2차 캐시 영역 설정 (employee.second-level-cache.*). 프로파일별로 application.yml 에서 덮어쓴다.
+ * ehcache3 의 힙 캐시는 꽉 차면 자체 정책으로 제거하므로 프로파일에서 고를 수 있는 것은 크기와 만료 시간이다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.second-level-cache")
+public class HibernateCacheProperties {
+
+    private Region entity = new Region(10_000, Duration.ofMinutes(10));
+
+    private Region query = new Region(1_000, Duration.ofMinutes(5));
+
+    @Getter
+    @Setter
+    public static class Region {
+
+        private long maxEntries;
+
+        // 저장 후 이 시간이 지나면 만료 (time-to-live). 노드 간 캐시가 공유되지 않으므로 다른 노드에서 변경된 값은 최대 이 시간만큼 늦게 보임
+        // 마지막 조회 기준(time-to-idle)으로 만료하면 계속 읽히는 항목은 만료되지 않아 이 상한이 없어지므로 지원하지 않음
+        private Duration expireAfter;
+
+        public Region() {
+        }
+
+        Region(long maxEntries, Duration expireAfter) {
+            this.maxEntries = maxEntries;
+            this.expireAfter = expireAfter;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package me.jongwoo.spring.testing.config;
+
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.entity.EmployeeChange;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * SessionFactory 가 만들어질 때 IdSequenceInitializer 로 id 시퀀스를 기존 행 뒤로 맞춘다.
+ * 시퀀스를 쓰는 엔티티를 추가하면 여기에도 추가할 것.
+ */
+@Configuration
+public class IdSequenceConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer idSequenceInitializerCustomizer() {
+        IdSequenceInitializer initializer = new IdSequenceInitializer(List.of(
+                new IdSequenceInitializer.IdSequence("employees", "id", Employee.ID_SEQUENCE, Employee.ID_ALLOCATION_SIZE),
+                // employees.row_version 도 이 id 이므로 같이 맞춰짐
+                new IdSequenceInitializer.IdSequence("employee_changes", "id", EmployeeChange.ID_SEQUENCE, EmployeeChange.ID_ALLOCATION_SIZE)));
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.SESSION_FACTORY_OBSERVER, initializer);
+    }
+}
@@ -0,0 +1,95 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * 하이버네이트가 스키마를 만들거나 갱신한 직후 (SessionFactory 생성 시) pooled id 시퀀스를 기존 행 뒤로 올린다.
+ * ddl-auto 는 시퀀스를 1 부터 만들기 때문에 IDENTITY 로 쌓인 행이 있는 DB 에서는 처음 발급한 id 가 기존 id 와 겹친다.
+ * 이미 기존 행 뒤에 있으면 그대로 둔다. H2(시퀀스)와 MySQL(next_val 테이블로 에뮬레이션)만 지원하고 그 외 DB 는 경고만 남김.
+ */
+@Slf4j
+public class IdSequenceInitializer implements SessionFactoryObserver {
+
+    private final List<IdSequence> sequences;
+
+    public IdSequenceInitializer(List<IdSequence> sequences) {
+        this.sequences = sequences;
+    }
+
+    @Override
+    public void sessionFactoryCreated(SessionFactory factory) {
+        Dialect dialect = ((SessionFactoryImplementor) factory).getJdbcServices().getDialect();
+        try (StatelessSession session = factory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.doWork(connection -> align(connection, dialect));
+            transaction.commit();
+        }
+    }
+
+    void align(Connection connection, Dialect dialect) throws SQLException {
+        for (IdSequence sequence : sequences) {
+            long maxId = queryLong(connection, "select coalesce(max(" + sequence.getColumn() + "), 0) from " + sequence.getTable());
+            if (maxId == 0) { // 빈 테이블은 1 부터 발급해도 겹치지 않음
+                continue;
+            }
+            // pooled 최적화는 시퀀스 값 v 를 받으면 (v - allocationSize, v] 를 발급하므로 v 가 maxId + allocationSize 이상이어야 함
+            long next = maxId + sequence.getAllocationSize();
+            if (dialect instanceof H2Dialect) {
+                // 지금 값을 읽으면 한 블록을 건너뛰게 되지만 발급된 id 와 겹치지 않으므로 문제 없음
+                long current = queryLong(connection, "select next value for " + sequence.getSequence());
+                if (current < maxId) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("alter sequence " + sequence.getSequence() + " restart with " + next);
+                    }
+                    log.info("{} 을 기존 {}.{} 뒤인 {} 로 올렸습니다.", sequence.getSequence(), sequence.getTable(), sequence.getColumn(), next);
+                }
+            } else if (dialect instanceof MySQLDialect) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "update " + sequence.getSequence() + " set next_val = ? where next_val < ?")) {
+                    statement.setLong(1, next);
+                    statement.setLong(2, next);
+                    if (statement.executeUpdate() > 0) {
+                        log.info("{} 을 기존 {}.{} 뒤인 {} 로 올렸습니다.", sequence.getSequence(), sequence.getTable(), sequence.getColumn(), next);
+                    }
+                }
+            } else {
+                log.warn("{} 은 지원하지 않는 DB 라 {} 를 확인하지 않았습니다. {}.{} 최댓값({}) 뒤에서 시작하는지 직접 확인해 주세요.",
+                        dialect, sequence.getSequence(), sequence.getTable(), sequence.getColumn(), maxId);
+            }
+        }
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    /**
+     * table.column 에 값을 발급하는 시퀀스
+     */
+    @Value
+    public static class IdSequence {
+        String table;
+        String column;
+        String sequence;
+        int allocationSize;
+    }
+}
@@ -0,0 +1,31 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Idempotency-Key 로 저장한 응답 보관 설정 (employee.idempotency.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.idempotency")
+public class IdempotencyProperties {
+
+    // 메모리에 보관하는 키 개수. 넘치면 오래 안 쓴 키부터 밀려남
+    private long maxEntries = 100_000;
+
+    // 이 시간이 지난 키는 새 요청으로 처리
+    private Duration ttl = Duration.ofHours(24);
+
+    // 같은 키로 처리 중인 요청이 있을 때 기다리는 최대 시간. 넘으면 409
+    private Duration waitTimeout = Duration.ofSeconds(10);
+
+    // true 면 idempotency_keys 테이블에도 저장해서 재시작/다른 노드에서도 같은 응답을 돌려줌
+    private boolean persistent = false;
+
+    // 만료된 행을 지우는 최소 간격 (저장할 때 확인)
+    private Duration purgeInterval = Duration.ofHours(1);
+}
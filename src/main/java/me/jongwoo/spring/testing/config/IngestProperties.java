@@ -0,0 +1,30 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 비동기 등록 모드 설정 (employee.ingest.*). enabled=true 일 때만 POST /api/employees 가 큐에 넣고 202 를 반환한다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.ingest")
+public class IngestProperties {
+
+    private boolean enabled = false;
+
+    // 가득 차면 429. 큐에 있는 요청은 프로세스가 죽으면 유실됨
+    private int queueCapacity = 10_000;
+
+    private int batchSize = 500;
+
+    // 첫 요청이 들어온 뒤 batchSize 가 차지 않아도 이 시간이 지나면 저장
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    private long statusMaxEntries = 100_000;
+
+    private Duration statusTtl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,19 @@
+package me.jongwoo.spring.testing.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 메서드에 붙은 @Timed 를 타이머로 기록한다.
+ * 컨트롤러(http.server.requests), 리포지토리(spring.data.repository.invocations), HikariCP 풀 메트릭은 스프링 부트가 자동으로 등록함.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,158 @@
+package me.jongwoo.spring.testing.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 읽기 전용 트랜잭션이면 replica 를 round-robin 으로 고르고, 그 외에는 primary 로 보낸다.
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 설정되지 않으므로 반드시 LazyConnectionDataSourceProxy 로 감싸서 사용할 것.
+ * 커넥션을 얻지 못한 replica 는 retryInterval 동안 제외되고, 사용 가능한 replica 가 없으면 primary 를 사용한다.
+ * 캐시를 채우는 조회는 readFromPrimary 로 감싸서 primary 에서 읽는다 (replica 지연으로 이전 값이 다시 캐시되지 않도록).
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    static final String CONNECTIONS_METRIC = "employee.datasource.connections";
+    static final String PRIMARY = "primary";
+
+    // readFromPrimary 안에서는 readOnly 트랜잭션이어도 primary 로 보냄
+    private static final ThreadLocal<Boolean> PRIMARY_READ = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long retryIntervalNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryCounter;
+    private final Counter fallbackCounter;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, Duration retryInterval,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.retryIntervalNanos = retryInterval.toNanos();
+        for (int i = 0; i < replicas.size(); i++) {
+            String name = "replica-" + i;
+            this.replicas.add(new Replica(name, replicas.get(i), meterRegistry.counter(CONNECTIONS_METRIC, "target", name)));
+        }
+        this.primaryCounter = meterRegistry.counter(CONNECTIONS_METRIC, "target", PRIMARY);
+        this.fallbackCounter = meterRegistry.counter(CONNECTIONS_METRIC, "target", PRIMARY, "fallback", "true");
+    }
+
+    /**
+     * reader 안의 조회를 primary 로 보낸다. 커넥션은 첫 쿼리 때 얻으므로 이미 커넥션을 잡은 바깥 트랜잭션 안에서는 효과가 없다.
+     * 라우팅을 쓰지 않을 때는 reader 를 그대로 실행한다.
+     */
+    public static <T> T readFromPrimary(Supplier<T> reader) {
+        if (PRIMARY_READ.get() != null) {
+            return reader.get();
+        }
+        PRIMARY_READ.set(Boolean.TRUE);
+        try {
+            return reader.get();
+        } finally {
+            PRIMARY_READ.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    // 계정별 커넥션도 같은 규칙으로 고른 대상에 그대로 넘김. Hikari 는 지원하지 않으므로 (SQLFeatureNotSupportedException) 그대로 던지고 replica 는 제외하지 않음
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionOpener opener) throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PRIMARY_READ.get() == null) {
+            Connection connection = replicaConnection(opener);
+            if (connection != null) {
+                return connection;
+            }
+            if (!replicas.isEmpty()) {
+                fallbackCounter.increment();
+            }
+        }
+        primaryCounter.increment();
+        return opener.open(primary);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable) {
+                ((Closeable) replica.dataSource).close();
+            }
+        }
+    }
+
+    // 다음 순번부터 한 바퀴 돌면서 사용 가능한 replica 의 커넥션을 반환. 모두 실패하면 null
+    private Connection replicaConnection(ConnectionOpener opener) throws SQLException {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.isAvailable()) {
+                continue;
+            }
+            try {
+                Connection connection = opener.open(replica.dataSource);
+                replica.counter.increment();
+                return connection;
+            } catch (SQLFeatureNotSupportedException e) { // 호출 방식의 문제이지 replica 장애가 아님
+                throw e;
+            } catch (SQLException e) {
+                log.warn("{} 커넥션 실패. {}ms 동안 제외합니다: {}", replica.name, retryIntervalNanos / 1_000_000, e.getMessage());
+                replica.markDown(retryIntervalNanos);
+            }
+        }
+        return null;
+    }
+
+    private interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+
+    private static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter counter;
+        private volatile long downUntilNanos;
+        private volatile boolean down;
+
+        Replica(String name, DataSource dataSource, Counter counter) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.counter = counter;
+        }
+
+        boolean isAvailable() {
+            return !down || System.nanoTime() - downUntilNanos >= 0;
+        }
+
+        void markDown(long retryIntervalNanos) {
+            downUntilNanos = System.nanoTime() + retryIntervalNanos;
+            down = true;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 전용 트랜잭션을 replica 로 보내는 설정 (employee.datasource.routing.*). primary 는 spring.datasource.* 를 그대로 사용.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled = false;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    // 커넥션을 얻지 못한 replica 는 이 시간 동안 제외하고 다음 replica 나 primary 로 보냄
+    private Duration retryInterval = Duration.ofSeconds(10);
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+}
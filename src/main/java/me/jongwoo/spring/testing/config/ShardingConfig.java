@@ -0,0 +1,53 @@
+package me.jongwoo.spring.testing.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.jongwoo.spring.testing.repository.EmployeeShard;
+import me.jongwoo.spring.testing.repository.ShardedEmployeeRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * employee.sharding.enabled=true 이면 EmployeeServiceImpl(JPA) 대신 ShardedEmployeeServiceImpl 이 등록된다.
+ * JPA 리포지토리와 spring.datasource 는 그대로 떠 있지만 직원 데이터는 샤드에만 저장됨.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "employee.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    static final String SCHEMA_LOCATION = "db/sharding/schema.sql";
+
+    @Bean(destroyMethod = "close")
+    public ShardedEmployeeRepository shardedEmployeeRepository(ShardingProperties properties, MeterRegistry meterRegistry) {
+        List<ShardingProperties.Shard> shardProperties = properties.getShards();
+        if (shardProperties.isEmpty()) {
+            throw new IllegalStateException("employee.sharding.shards 가 비어 있습니다.");
+        }
+
+        List<EmployeeShard> shards = new ArrayList<>(shardProperties.size());
+        for (int i = 0; i < shardProperties.size(); i++) {
+            ShardingProperties.Shard shard = shardProperties.get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + i);
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            if (properties.isInitializeSchema()) {
+                new ResourceDatabasePopulator(new ClassPathResource(SCHEMA_LOCATION)).execute(dataSource);
+            }
+            shards.add(new EmployeeShard(i, shardProperties.size(), dataSource, properties.getIdBlockSize()));
+        }
+        return new ShardedEmployeeRepository(shards);
+    }
+}
@@ -0,0 +1,43 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * email 해시로 직원을 나눠 저장하는 설정 (employee.sharding.*). 샤드 수를 바꾸면 기존 id/email 의 위치가 달라지므로 재분배 없이 변경하지 말 것.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    // 샤드별 로컬 id 를 한 번에 예약하는 개수
+    private int idBlockSize = 50;
+
+    // 전체 샤드 조회(scatter-gather)에 쓰는 스레드 수
+    private int queryThreads = 16;
+
+    // true 면 기동 시 db/sharding/schema.sql 을 각 샤드에 실행 (H2 용)
+    private boolean initializeSchema = false;
+
+    @Getter
+    @Setter
+    public static class Shard {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+}
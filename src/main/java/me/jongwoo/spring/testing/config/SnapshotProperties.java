@@ -0,0 +1,25 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 조회를 메모리 사본(EmployeeSnapshot)에서 처리하는 설정 (employee.snapshot.*). 샤딩을 켜면 사용할 수 없다.
+ * 기동 후 전체를 읽어 오는 동안에는 DB 에서 조회하고, 이 노드의 변경은 커밋 직후 바로 반영된다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.snapshot")
+public class SnapshotProperties {
+
+    private boolean enabled = false;
+
+    // 다른 노드에서 변경된 내용을 delta sync 로 읽어 오는 주기
+    private Duration refreshInterval = Duration.ofSeconds(5);
+
+    // 전체/변경분을 읽어 올 때 한 번에 읽는 건수
+    private int pageSize = 1000;
+}
@@ -0,0 +1,53 @@
+package me.jongwoo.spring.testing.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * JPA 가 쓰는 dataSource 빈을 datasource-proxy 로 감싸서 쿼리마다 SqlQueryListener 를 거치게 한다.
+ * 라우팅을 켜면 dataSource 는 replica 라우팅 DataSource 이므로 primary/replica 쿼리가 모두 기록된다.
+ * 샤드 DataSource 는 JPA 를 거치지 않으므로 감싸지 않음.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "employee.sql-logging", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SqlLoggingProperties.class)
+public class SqlLoggingConfig {
+
+    static final String DATA_SOURCE_BEAN = "dataSource";
+
+    // BeanPostProcessor 는 다른 빈보다 먼저 만들어지므로 static 으로 등록하고 listener 는 감쌀 때 가져옴
+    @Bean
+    public static BeanPostProcessor sqlLoggingDataSourcePostProcessor(ObjectProvider<SqlQueryListener> listener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || !DATA_SOURCE_BEAN.equals(beanName)) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create((DataSource) bean)
+                        .name(beanName)
+                        .listener(listener.getObject())
+                        .build();
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    public SqlQueryListener sqlQueryListener(SqlLoggingProperties properties, MeterRegistry meterRegistry) {
+        return new SqlQueryListener(properties, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlQueryCountFilter> sqlQueryCountFilter(SqlQueryListener listener) {
+        return new FilterRegistrationBean<>(new SqlQueryCountFilter(listener));
+    }
+}
@@ -0,0 +1,28 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 쿼리 실행 기록 설정 (employee.sql-logging.*).
+ * show-sql 처럼 모든 쿼리를 요청 스레드에서 찍지 않고, 느린 쿼리와 쿼리가 많은 요청만 별도 스레드에서 로그로 남긴다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.sql-logging")
+public class SqlLoggingProperties {
+
+    private boolean enabled = true;
+
+    // 이 시간 이상 걸린 쿼리는 WARN 로그
+    private Duration slowQueryThreshold = Duration.ofMillis(100);
+
+    // HTTP 요청 하나에서 이보다 많이 실행되면 N+1 의심 로그
+    private int maxQueriesPerRequest = 30;
+
+    // 로그 스레드가 밀릴 때 쌓아 둘 로그 수. 넘치면 버림
+    private int logQueueCapacity = 1000;
+}
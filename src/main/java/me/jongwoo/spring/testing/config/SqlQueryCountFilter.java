@@ -0,0 +1,38 @@
+package me.jongwoo.spring.testing.config;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청 스레드에서 실행된 쿼리 수를 SqlQueryListener 로 센다.
+ * SSE, export 처럼 요청 스레드를 놓은 뒤 다른 스레드에서 실행되는 쿼리는 세지 않는다.
+ */
+public class SqlQueryCountFilter extends OncePerRequestFilter {
+
+    static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final SqlQueryListener listener;
+
+    public SqlQueryCountFilter(SqlQueryListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlQueryListener.RequestQueries queries = listener.startRequest(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // 메트릭 태그가 id 마다 늘어나지 않도록 실제 경로 대신 매핑된 패턴을 씀
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            listener.finishRequest(queries, request.getMethod(), pattern == null ? UNKNOWN_URI : pattern.toString());
+        }
+    }
+}
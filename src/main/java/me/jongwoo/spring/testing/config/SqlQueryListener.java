@@ -0,0 +1,159 @@
+package me.jongwoo.spring.testing.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * datasource-proxy 로 감싼 DataSource 의 쿼리 실행을 기록한다 (SqlLoggingConfig).
+ * - 모든 쿼리: employee.sql.query 타이머 (type=select/insert/update/delete/other)
+ * - slow-query-threshold 이상 걸린 쿼리: 로그 스레드에서 WARN. 로그 큐가 가득 차면 버리고 employee.sql.log.dropped 를 올림
+ * - HTTP 요청 스레드에서 실행된 쿼리는 요청별로 세고 (SqlQueryCountFilter), max-queries-per-request 를 넘으면 N+1 의심 로그
+ * 배치 실행은 쿼리 한 번으로 센다.
+ */
+@Slf4j
+public class SqlQueryListener implements QueryExecutionListener {
+
+    private static final String START_NANOS = "startNanos";
+
+    private final long slowQueryThresholdNanos;
+    private final int maxQueriesPerRequest;
+    private final MeterRegistry meterRegistry;
+    private final Map<QueryType, Timer> queryTimers = new EnumMap<>(QueryType.class);
+    private final Counter slowQueries;
+    private final Counter droppedLogs;
+    private final ExecutorService logExecutor;
+    private final ThreadLocal<RequestQueries> currentRequest = new ThreadLocal<>();
+
+    public SqlQueryListener(SqlLoggingProperties properties, MeterRegistry meterRegistry) {
+        this.slowQueryThresholdNanos = properties.getSlowQueryThreshold().toNanos();
+        this.maxQueriesPerRequest = properties.getMaxQueriesPerRequest();
+        this.meterRegistry = meterRegistry;
+        for (QueryType type : QueryType.values()) {
+            queryTimers.put(type, Timer.builder("employee.sql.query")
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        this.slowQueries = meterRegistry.counter("employee.sql.slow-queries");
+        this.droppedLogs = meterRegistry.counter("employee.sql.log.dropped");
+        this.logExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getLogQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sql-log");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> droppedLogs.increment());
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // 기본 elapsedTime 은 ms 단위라 H2 처럼 빠른 쿼리는 0 이 되므로 직접 잼
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        long elapsedNanos = start == null ? TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime()) : System.nanoTime() - start;
+        String query = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        queryTimers.get(QueryUtils.getQueryType(query)).record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        RequestQueries request = currentRequest.get();
+        if (request != null) {
+            request.add(query);
+        }
+
+        if (elapsedNanos >= slowQueryThresholdNanos) {
+            slowQueries.increment();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            int batchSize = execInfo.isBatch() ? execInfo.getBatchSize() : 1;
+            String requestName = request == null ? "-" : request.name;
+            boolean success = execInfo.isSuccess();
+            logExecutor.execute(() -> log.warn("느린 쿼리 {}ms (batch={}, success={}, request={}): {}",
+                    elapsedMillis, batchSize, success, requestName, query));
+        }
+    }
+
+    /**
+     * 현재 스레드에서 실행되는 쿼리를 요청 단위로 세기 시작한다. 끝나면 반드시 finishRequest 를 호출해야 한다.
+     *
+     * @param name 로그용 요청 이름 (ex. GET /api/employees/1)
+     */
+    public RequestQueries startRequest(String name) {
+        RequestQueries request = new RequestQueries(name);
+        currentRequest.set(request);
+        return request;
+    }
+
+    /**
+     * @param method 메트릭 태그 (ex. GET)
+     * @param uri    메트릭 태그. 경로 변수가 값으로 바뀌지 않은 패턴을 넘겨야 함 (ex. /api/employees/{id})
+     */
+    public void finishRequest(RequestQueries request, String method, String uri) {
+        currentRequest.remove();
+        DistributionSummary.builder("employee.sql.queries-per-request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(request.count);
+        if (request.count <= maxQueriesPerRequest) {
+            return;
+        }
+
+        meterRegistry.counter("employee.sql.n-plus-one", "method", method, "uri", uri).increment();
+        Map.Entry<String, Integer> mostRepeated = request.mostRepeated();
+        logExecutor.execute(() -> log.warn("N+1 의심: {} 에서 쿼리 {}건 실행 (한도 {}). 가장 많이 반복된 쿼리 {}회: {}",
+                request.name, request.count, maxQueriesPerRequest, mostRepeated.getValue(), mostRepeated.getKey()));
+    }
+
+    // 남은 로그를 잠깐 기다려서 찍고 종료
+    public void close() throws InterruptedException {
+        logExecutor.shutdown();
+        logExecutor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 요청 하나에서 실행된 쿼리. 요청 스레드에서만 쓰므로 동기화하지 않는다.
+     */
+    public static class RequestQueries {
+
+        private final String name;
+        private final Map<String, Integer> counts = new HashMap<>();
+        private int count;
+
+        private RequestQueries(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        private void add(String query) {
+            count++;
+            counts.merge(query, 1, Integer::sum);
+        }
+
+        private Map.Entry<String, Integer> mostRepeated() {
+            return counts.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * GET /api/employees/stats 설정 (employee.stats.*).
+ * 집계 결과는 ttl 동안 캐시되므로 대시보드가 동시에 새로고침해도 GROUP BY 쿼리는 ttl 마다 한 번만 실행된다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.stats")
+public class StatsProperties {
+
+    // 집계 결과 캐시 시간. 직원 저장/삭제로 비우지 않으므로 이만큼 늦게 반영될 수 있음
+    private Duration ttl = Duration.ofSeconds(30);
+}
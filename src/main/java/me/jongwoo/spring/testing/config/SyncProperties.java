@@ -0,0 +1,19 @@
+package me.jongwoo.spring.testing.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * GET /api/employees/sync 설정 (employee.sync.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "employee.sync")
+public class SyncProperties {
+
+    // 이보다 최근에 version 을 받은 변경은 아직 내려주지 않음. 쓰기 트랜잭션 시간 + 인스턴스 사이 시계 차이보다 커야 함
+    private Duration commitLag = Duration.ofSeconds(5);
+}
@@ -1,58 +1,320 @@
 package me.jongwoo.spring.testing.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.jongwoo.spring.testing.dto.EmployeeBatch;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeStats;
+import me.jongwoo.spring.testing.dto.EmployeeSyncPage;
+import me.jongwoo.spring.testing.dto.IngestStatus;
 import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.exception.AlreadyExistsException;
+import me.jongwoo.spring.testing.exception.EmployeeNotFoundException;
+import me.jongwoo.spring.testing.exception.IdempotencyKeyInProgressException;
+import me.jongwoo.spring.testing.exception.IdempotencyKeyMismatchException;
+import me.jongwoo.spring.testing.exception.IngestQueueFullException;
+import me.jongwoo.spring.testing.service.EmployeeChangeFeed;
+import me.jongwoo.spring.testing.service.EmployeeIngestService;
 import me.jongwoo.spring.testing.service.EmployeeService;
+import me.jongwoo.spring.testing.service.EmployeeSyncService;
+import me.jongwoo.spring.testing.service.IdempotencyStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/employees")
 public class EmployeeController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+    static final int MAX_SEARCH_PAGE = 1000; // 샤드마다 앞 페이지를 모두 읽으므로 깊은 페이지는 막음
+    static final int SYNC_DEFAULT_LIMIT = 500;
+    static final int SYNC_MAX_LIMIT = 1000;
+    static final int MAX_LOOKUP_IDS = 10_000;
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final EmployeeService employeeService;
+    private final ObjectMapper objectMapper;
+    private final EmployeeChangeFeed changeFeed;
+    private final IdempotencyStore idempotencyStore;
+    private final EmployeeIngestService ingestService; // employee.ingest.enabled=false 이면 null
+    private final EmployeeSyncService syncService; // employee.sharding.enabled=true 이면 null
 
-    public EmployeeController(EmployeeService employeeService) {
+    public EmployeeController(EmployeeService employeeService, ObjectMapper objectMapper, EmployeeChangeFeed changeFeed,
+                              IdempotencyStore idempotencyStore,
+                              ObjectProvider<EmployeeIngestService> ingestService,
+                              ObjectProvider<EmployeeSyncService> syncService) {
         this.employeeService = employeeService;
+        this.objectMapper = objectMapper;
+        this.changeFeed = changeFeed;
+        this.idempotencyStore = idempotencyStore;
+        this.ingestService = ingestService.getIfAvailable();
+        this.syncService = syncService.getIfAvailable();
     }
 
+    /**
+     * 비동기 등록 모드에서는 큐에 넣고 202 와 추적 id 를 반환한다. 처리 결과는 Location 의 상태 API 로 확인.
+     * Idempotency-Key 가 있으면 같은 키로 재시도한 요청은 저장하지 않고 처음 응답을 그대로 돌려준다.
+     */
     @PostMapping
+    public ResponseEntity<?> createEmployee(@RequestBody Employee employee,
+                                            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent("POST /api/employees", idempotencyKey, employee, () -> createEmployee(employee));
+    }
+
+    private ResponseEntity<?> createEmployee(Employee employee) {
+        if (ingestService != null) {
+            IngestStatus status = ingestService.submit(employee);
+            return ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                            .path("/ingest/{trackingId}")
+                            .buildAndExpand(status.getTrackingId())
+                            .toUri())
+                    .body(status);
+        }
+        return new ResponseEntity<>(employeeService.saveEmployee(employee), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/ingest/{trackingId}")
+    public ResponseEntity<IngestStatus> getIngestStatus(@PathVariable("trackingId") String trackingId) {
+        if (ingestService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ingestService.getStatus(trackingId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/batch")
     @ResponseStatus(HttpStatus.CREATED)
-    public Employee createEmployee(@RequestBody Employee employee) {
-        return employeeService.saveEmployee(employee);
+    public List<Employee> createEmployees(@RequestBody List<Employee> employees) {
+        return employeeService.saveEmployees(employees);
     }
 
+    /**
+     * id 기준 keyset 페이징. 다음 페이지가 있으면 X-Next-Cursor 헤더에 다음 요청의 after 값을 내려준다.
+     */
     @GetMapping
-    public List<Employee> getAllEmployees() {
-        return employeeService.getAllEmployees();
+    public ResponseEntity<List<EmployeeDto>> getAllEmployees(@RequestParam(value = "after", defaultValue = "0") long after,
+                                                          @RequestParam(value = "limit", defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<EmployeeDto> employees = employeeService.getEmployeesAfter(after, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (employees.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(employees.get(employees.size() - 1).getId()));
+        }
+        return response.body(employees);
+    }
+
+    @GetMapping(params = "email")
+    public ResponseEntity<EmployeeDto> getEmployeeByEmail(@RequestParam("email") String email) {
+        return employeeService.getEmployeeByEmail(email)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getEmployeesByIds(@RequestParam("ids") List<Long> ids) {
+        return lookup(ids);
+    }
+
+    /**
+     * 쿼리스트링에 담기 어려운 긴 id 목록용. 본문은 id 배열 (ex. [1,2,3])
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<?> lookupEmployees(@RequestBody List<Long> ids) {
+        return lookup(ids);
+    }
+
+    // 요청한 순서대로 (중복 제거) 돌려주고, 없는 id 는 missingIds 에 담음
+    private ResponseEntity<?> lookup(List<Long> ids) {
+        if (ids.size() > MAX_LOOKUP_IDS) {
+            return ResponseEntity.badRequest().body("한 번에 조회할 수 있는 id 는 " + MAX_LOOKUP_IDS + "개까지입니다.");
+        }
+        Map<Long, EmployeeDto> found = employeeService.getEmployeesByIds(ids).stream()
+                .collect(Collectors.toMap(EmployeeDto::getId, Function.identity()));
+        List<EmployeeDto> employees = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            EmployeeDto employee = found.get(id);
+            if (employee != null) {
+                employees.add(employee);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return ResponseEntity.ok(new EmployeeBatch(employees, missingIds));
+    }
+
+    @GetMapping("/stats")
+    public EmployeeStats getEmployeeStats() {
+        return employeeService.getEmployeeStats();
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchEmployees(@RequestParam("firstName") String firstName,
+                                             @RequestParam("lastName") String lastName,
+                                             @RequestParam(value = "page", defaultValue = "0") int page,
+                                             @RequestParam(value = "size", defaultValue = "" + DEFAULT_LIMIT) int size) {
+        if (page > MAX_SEARCH_PAGE) {
+            return ResponseEntity.badRequest().body("검색은 " + MAX_SEARCH_PAGE + " 페이지까지 조회할 수 있습니다.");
+        }
+        return ResponseEntity.ok(employeeService.searchByName(firstName, lastName, Math.max(0, page), Math.max(1, Math.min(size, MAX_LIMIT))));
+    }
+
+    /**
+     * 전체 직원을 한 줄에 하나씩 JSON 으로 내려준다. 목록을 메모리에 모으지 않으므로 테이블 크기와 관계없이 힙 사용량이 일정하다.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEmployees() {
+        StreamingResponseBody body = outputStream -> employeeService.exportEmployees(employee -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(employee));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * 생성/수정/삭제 이벤트를 SSE 로 보낸다. 재연결 시 Last-Event-ID 이후부터 이어서 받고, 너무 오래되었거나 재시작 전/다른 노드의 id 면 reset 이벤트를 받는다.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeFeed.subscribe(lastEventId);
+    }
+
+    /**
+     * since 이후의 변경분만 version 순으로 내려준다. 처음에는 since 없이(0) 받고, 이후에는 응답의 token 을 그대로 넘기면 된다.
+     * employee.sync.commit-lag 보다 최근 변경은 다음 요청에서 내려간다.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<EmployeeSyncPage> syncEmployees(@RequestParam(value = "since", defaultValue = "0") long since,
+                                                          @RequestParam(value = "limit", defaultValue = "" + SYNC_DEFAULT_LIMIT) int limit) {
+        if (syncService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(syncService.getChangesSince(Math.max(0, since), Math.max(1, Math.min(limit, SYNC_MAX_LIMIT))));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") long id) {
+    public ResponseEntity<EmployeeDto> getEmployeeById(@PathVariable("id") long id) {
         return employeeService.getEmployeeById(id)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Employee> updateEmployee(@PathVariable("id") long id, @RequestBody Employee employee) {
+    public ResponseEntity<?> updateEmployee(@PathVariable("id") long id, @RequestBody Employee employee,
+                                            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent("PUT /api/employees/" + id, idempotencyKey, employee, () -> updateEmployee(id, employee));
+    }
+
+    private ResponseEntity<?> updateEmployee(long id, Employee employee) {
         return employeeService.getEmployeeById(id)
                 .map(savedEmployee -> {
-                    savedEmployee.setFirstName(employee.getFirstName());
-                    savedEmployee.setLastName(employee.getLastName());
-                    savedEmployee.setEmail(employee.getEmail());
-
-                    Employee updatedEmployee = employeeService.updateEmployee(savedEmployee);
+                    Employee updatedEmployee = employeeService.updateEmployee(Employee.builder()
+                            .id(savedEmployee.getId())
+                            .firstName(employee.getFirstName())
+                            .lastName(employee.getLastName())
+                            .email(employee.getEmail())
+                            .build());
                     return new ResponseEntity<>(updatedEmployee, HttpStatus.OK);
                 })
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    private ResponseEntity<?> idempotent(String scope, String idempotencyKey, Employee employee,
+                                         Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body("Idempotency-Key 는 1~" + MAX_IDEMPOTENCY_KEY_LENGTH + "자여야 합니다.");
+        }
+        return idempotencyStore.execute(scope, idempotencyKey, employee, action);
+    }
+
+    /**
+     * 요청에 포함된 필드만 변경한다. 조회 없이 update 한 번으로 처리하므로 변경된 내용은 응답하지 않는다.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchEmployee(@PathVariable("id") long id, @RequestBody Employee employee) {
+        if (!employeeService.patchEmployee(id, employee)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteEmployee(@PathVariable("id") long id) {
-        employeeService.deleteById(id);
+        if (!employeeService.deleteById(id)) {
+            return ResponseEntity.notFound().build();
+        }
         return new ResponseEntity<>("Employee deleted successfully!", HttpStatus.OK);
     }
+
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<String> deleteEmployees(@RequestParam("ids") List<Long> ids) {
+        if (ids.size() > MAX_LOOKUP_IDS) {
+            return ResponseEntity.badRequest().body("한 번에 삭제할 수 있는 id 는 " + MAX_LOOKUP_IDS + "개까지입니다.");
+        }
+        int deleted = employeeService.deleteByIds(ids);
+        return new ResponseEntity<>(deleted + " employees deleted successfully!", HttpStatus.OK);
+    }
+
+    @ExceptionHandler(AlreadyExistsException.class)
+    public ResponseEntity<String> handleAlreadyExists(AlreadyExistsException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(EmployeeNotFoundException.class)
+    public ResponseEntity<String> handleEmployeeNotFound(EmployeeNotFoundException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<String> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<String> handleIdempotencyKeyInProgress(IdempotencyKeyInProgressException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<String> handleIngestQueueFull(IngestQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
 }
@@ -0,0 +1,15 @@
+package me.jongwoo.spring.testing.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 여러 id 조회 응답. employees 는 요청한 id 순서(중복 제외)이고, 없는 id 는 missingIds 로 알려준다.
+ */
+@Value
+public class EmployeeBatch {
+
+    List<EmployeeDto> employees;
+    List<Long> missingIds;
+}
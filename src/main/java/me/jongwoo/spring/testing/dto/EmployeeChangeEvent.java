@@ -0,0 +1,36 @@
+package me.jongwoo.spring.testing.dto;
+
+import lombok.Value;
+
+/**
+ * 커밋된 직원 변경. employee 는 변경 후 상태이며 DELETED 와 PATCH 로 인한 UPDATED 에서는 null 이다 (필요하면 id 로 다시 조회).
+ */
+@Value
+public class EmployeeChangeEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    Type type;
+    long employeeId;
+    EmployeeDto employee;
+
+    public static EmployeeChangeEvent created(EmployeeDto employee) {
+        return new EmployeeChangeEvent(Type.CREATED, employee.getId(), employee);
+    }
+
+    public static EmployeeChangeEvent updated(EmployeeDto employee) {
+        return new EmployeeChangeEvent(Type.UPDATED, employee.getId(), employee);
+    }
+
+    public static EmployeeChangeEvent updated(long employeeId) {
+        return new EmployeeChangeEvent(Type.UPDATED, employeeId, null);
+    }
+
+    public static EmployeeChangeEvent deleted(long employeeId) {
+        return new EmployeeChangeEvent(Type.DELETED, employeeId, null);
+    }
+}
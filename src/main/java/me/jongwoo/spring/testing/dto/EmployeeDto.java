@@ -0,0 +1,21 @@
+package me.jongwoo.spring.testing.dto;
+
+import lombok.Value;
+import me.jongwoo.spring.testing.entity.Employee;
+
+/**
+ * 조회 전용 응답. 엔티티가 아니므로 영속성 컨텍스트의 스냅샷/dirty checking 대상이 되지 않는다.
+ * 생성자 파라미터 이름이 Spring Data 프로젝션(select new ...)에 그대로 쓰이므로 필드 이름을 엔티티와 맞춰둘 것.
+ */
+@Value
+public class EmployeeDto {
+
+    long id;
+    String firstName;
+    String lastName;
+    String email;
+
+    public static EmployeeDto from(Employee employee) {
+        return new EmployeeDto(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getEmail());
+    }
+}
@@ -0,0 +1,38 @@
+package me.jongwoo.spring.testing.dto;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /api/employees/stats 응답. 그룹별 건수는 많은 순으로 담기며, computedAt 은 DB 에서 집계한 시각 (캐시된 값일 수 있음).
+ */
+@Value
+public class EmployeeStats {
+
+    long total;
+    Map<String, Long> byEmailDomain;
+    Map<String, Long> byLastNameInitial;
+    Instant computedAt;
+
+    // 샤드처럼 같은 키가 여러 번 나오면 합산
+    public static EmployeeStats of(long total, List<GroupCount> byEmailDomain, List<GroupCount> byLastNameInitial) {
+        return new EmployeeStats(total, sum(byEmailDomain), sum(byLastNameInitial), Instant.now());
+    }
+
+    private static Map<String, Long> sum(List<GroupCount> counts) {
+        Map<String, Long> sums = new HashMap<>();
+        for (GroupCount count : counts) {
+            sums.merge(count.getKey(), count.getCount(), Long::sum);
+        }
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        sums.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+}
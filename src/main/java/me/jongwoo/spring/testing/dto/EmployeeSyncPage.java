@@ -0,0 +1,18 @@
+package me.jongwoo.spring.testing.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * delta sync 응답. token 이후에 생성/수정된 직원과 삭제된 id(tombstone), 다음 요청에 쓸 token 을 담는다.
+ * hasMore 가 true 면 바로 이어서 요청하고, false 면 다음 주기에 같은 token 으로 요청하면 된다.
+ */
+@Value
+public class EmployeeSyncPage {
+
+    List<EmployeeDto> employees;
+    List<Long> deletedIds;
+    String token;
+    boolean hasMore;
+}
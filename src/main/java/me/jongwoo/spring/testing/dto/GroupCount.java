@@ -0,0 +1,13 @@
+package me.jongwoo.spring.testing.dto;
+
+import lombok.Value;
+
+/**
+ * GROUP BY 결과 한 줄 (그룹 키와 건수). 통계 쿼리의 select new ... 프로젝션으로 사용한다.
+ */
+@Value
+public class GroupCount {
+
+    String key;
+    long count;
+}
@@ -0,0 +1,38 @@
+package me.jongwoo.spring.testing.dto;
+
+import lombok.Value;
+
+/**
+ * 비동기 등록 요청의 처리 상태. employeeId 는 CREATED 일 때만, message 는 REJECTED/FAILED 일 때만 채워진다.
+ */
+@Value
+public class IngestStatus {
+
+    public enum State {
+        QUEUED,
+        CREATED,
+        REJECTED, // 이메일 중복
+        FAILED
+    }
+
+    String trackingId;
+    State state;
+    Long employeeId;
+    String message;
+
+    public static IngestStatus queued(String trackingId) {
+        return new IngestStatus(trackingId, State.QUEUED, null, null);
+    }
+
+    public static IngestStatus created(String trackingId, long employeeId) {
+        return new IngestStatus(trackingId, State.CREATED, employeeId, null);
+    }
+
+    public static IngestStatus rejected(String trackingId, String message) {
+        return new IngestStatus(trackingId, State.REJECTED, null, message);
+    }
+
+    public static IngestStatus failed(String trackingId, String message) {
+        return new IngestStatus(trackingId, State.FAILED, null, message);
+    }
+}
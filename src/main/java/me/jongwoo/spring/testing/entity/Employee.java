@@ -1,8 +1,12 @@
 package me.jongwoo.spring.testing.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
+import java.time.Instant;
 
 
 @Getter
@@ -12,11 +16,28 @@ import javax.persistence.*;
 @Builder
 
 @Entity
-@Table(name = "employees")
+@DynamicUpdate // 변경된 컬럼만 update
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Employee.CACHE_REGION) // 2차 캐시. 영역 설정은 HibernateCacheConfig
+@Table(name = "employees",
+        uniqueConstraints = @UniqueConstraint(name = Employee.EMAIL_UNIQUE_CONSTRAINT, columnNames = "email"),
+        indexes = {
+                @Index(name = Employee.NAME_INDEX, columnList = "last_name, first_name"),
+                @Index(name = Employee.ROW_VERSION_INDEX, columnList = "row_version")
+        })
 public class Employee {
 
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_employees_email";
+    public static final String NAME_INDEX = "idx_employees_last_first";
+    public static final String ROW_VERSION_INDEX = "idx_employees_row_version";
+    public static final String CACHE_REGION = "employees";
+    public static final String ID_SEQUENCE = "employees_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // IDENTITY 는 insert 배치가 꺼지므로 pooled 시퀀스 사용 (MySQL 은 테이블로 에뮬레이션됨)
+    // 기존 행이 있는 DB 에서는 기동 시 IdSequenceInitializer 가 시퀀스를 max(id) 뒤로 올림
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_seq_generator")
+    @SequenceGenerator(name = "employees_seq_generator", sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private long id;
 
     @Column(name = "first_name", nullable = false)
@@ -27,4 +48,11 @@ public class Employee {
 
     @Column(nullable = false)
     private String email;
+
+    // 마지막 변경의 EmployeeChange id. 모든 row 에 걸쳐 증가하므로 delta sync 의 기준이 됨 (값은 서비스에서 설정)
+    @Column(name = "row_version", nullable = false)
+    private long rowVersion;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
 }
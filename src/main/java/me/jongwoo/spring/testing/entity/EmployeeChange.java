@@ -0,0 +1,59 @@
+package me.jongwoo.spring.testing.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Employee 변경 기록. id 가 Employee.rowVersion 으로 쓰이고, DELETED 는 delta sync 의 tombstone 이 된다.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+@Table(name = "employee_changes",
+        indexes = @Index(name = EmployeeChange.TYPE_INDEX, columnList = "type, id"))
+public class EmployeeChange {
+
+    public static final String TYPE_INDEX = "idx_employee_changes_type_id";
+    public static final String ID_SEQUENCE = "employee_change_versions_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // delta sync 는 version 이 발급 시각 순서대로 커져야 하므로 pooled 대신 트랜잭션마다 블록을 새로 받는 generator 사용 (EmployeeSyncService 참고)
+    // allocationSize 가 1 이던 employee_changes_seq 와 증가 폭이 달라 이름을 바꿨고, 기존 행 뒤로는 IdSequenceInitializer 가 맞춤
+    @Id
+    @GeneratedValue(generator = "employee_change_versions_seq_generator")
+    @GenericGenerator(name = "employee_change_versions_seq_generator",
+            strategy = "me.jongwoo.spring.testing.repository.TransactionBlockSequenceGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = ID_SEQUENCE),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_ALLOCATION_SIZE)
+            })
+    private long id;
+
+    @Column(name = "employee_id", nullable = false)
+    private long employeeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public EmployeeChange(long employeeId, Type type, Instant changedAt) {
+        this.employeeId = employeeId;
+        this.type = type;
+        this.changedAt = changedAt;
+    }
+}
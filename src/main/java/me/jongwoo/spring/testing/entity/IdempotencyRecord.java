@@ -0,0 +1,46 @@
+package me.jongwoo.spring.testing.entity;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Idempotency-Key 로 처리한 요청의 응답. employee.idempotency.persistent=true 일 때만 사용한다.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+
+@Entity
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = IdempotencyRecord.CREATED_AT_INDEX, columnList = "created_at"))
+public class IdempotencyRecord {
+
+    public static final String CREATED_AT_INDEX = "idx_idempotency_keys_created_at";
+    public static final int IN_PROGRESS = 0; // 키를 차지하고 응답을 아직 채우지 않은 상태 (커밋 전에 채워짐)
+
+    // "메서드 경로 키" 형태
+    @Id
+    @Column(name = "idempotency_key", length = 320)
+    private String key;
+
+    // 요청 본문의 SHA-256. 같은 키로 다른 요청이 오면 거절하기 위함
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private int status;
+
+    @Column(length = 2048)
+    private String location;
+
+    @Lob
+    private String body;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,8 @@
+package me.jongwoo.spring.testing.exception;
+
+public class EmployeeNotFoundException extends RuntimeException{
+
+    public EmployeeNotFoundException(String message) {
+        super(message);
+    }
+}
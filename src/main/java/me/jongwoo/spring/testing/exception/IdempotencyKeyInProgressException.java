@@ -0,0 +1,8 @@
+package me.jongwoo.spring.testing.exception;
+
+public class IdempotencyKeyInProgressException extends RuntimeException{
+
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
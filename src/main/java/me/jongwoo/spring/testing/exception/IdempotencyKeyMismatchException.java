@@ -0,0 +1,8 @@
+package me.jongwoo.spring.testing.exception;
+
+public class IdempotencyKeyMismatchException extends RuntimeException{
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
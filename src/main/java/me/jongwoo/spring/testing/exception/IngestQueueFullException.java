@@ -0,0 +1,8 @@
+package me.jongwoo.spring.testing.exception;
+
+public class IngestQueueFullException extends RuntimeException{
+
+    public IngestQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+package me.jongwoo.spring.testing.repository;
+
+import me.jongwoo.spring.testing.entity.EmployeeChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+public interface EmployeeChangeRepository extends JpaRepository<EmployeeChange, Long>, EmployeeChangeRepositoryCustom {
+    // (type, id) 인덱스를 사용. delta sync 에서 DELETED 를 tombstone 으로 읽을 때 사용
+    List<EmployeeChange> findByTypeAndIdGreaterThanOrderByIdAsc(EmployeeChange.Type type, long id, Pageable pageable);
+
+    // nextVersion 으로 미리 받은 version 으로 기록. 엔티티로 persist 하면 id 를 새로 발급하므로 직접 insert
+    // 쿼리 공간을 주지 않으면 하이버네이트가 모든 2차 캐시 영역을 비움
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "employee_changes"))
+    @Query(value = "insert into employee_changes (id, employee_id, type, changed_at) " +
+            "values (:id, :employeeId, :#{#type.name()}, :changedAt)", nativeQuery = true)
+    int insertChange(@Param("id") long id,
+                     @Param("employeeId") long employeeId,
+                     @Param("type") EmployeeChange.Type type,
+                     @Param("changedAt") Instant changedAt);
+}
@@ -0,0 +1,6 @@
+package me.jongwoo.spring.testing.repository;
+
+public interface EmployeeChangeRepositoryCustom {
+    // 변경 기록을 저장하지 않고 version(id) 만 발급. 실제로 바뀐 행이 있을 때만 insertChange 로 기록하기 위해 사용
+    long nextVersion();
+}
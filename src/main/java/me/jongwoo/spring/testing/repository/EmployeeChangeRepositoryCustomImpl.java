@@ -0,0 +1,25 @@
+package me.jongwoo.spring.testing.repository;
+
+import me.jongwoo.spring.testing.entity.EmployeeChange;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import javax.persistence.EntityManager;
+
+public class EmployeeChangeRepositoryCustomImpl implements EmployeeChangeRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    public EmployeeChangeRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // persist 때와 같은 generator 를 쓰므로 같은 트랜잭션의 블록에서 발급되고 대부분 DB 호출 없이 끝남
+    @Override
+    public long nextVersion() {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        return (Long) session.getFactory().getMetamodel()
+                .entityPersister(EmployeeChange.class)
+                .getIdentifierGenerator()
+                .generate(session, null);
+    }
+}
@@ -1,24 +1,85 @@
 package me.jongwoo.spring.testing.repository;
 
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.GroupCount;
 import me.jongwoo.spring.testing.entity.Employee;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeRepositoryCustom {
+    // 쿼리 캐시에는 id 만 저장되고 엔티티는 2차 캐시에서 읽음. employees 테이블이 변경되면 결과가 무효화됨
+    // 서비스가 트랜잭션 없이 호출하므로 여기서 readOnly 트랜잭션을 검 (캐시를 채우므로 서비스에서 primary 로 보냄)
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Employee> findByEmail(String email);
 
+    @Query("select e.email from Employee e where e.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // 조회 API 용 DTO 프로젝션. 필요한 컬럼만 읽고 엔티티를 만들지 않는다
+    List<EmployeeDto> findAllProjectedBy();
+
+    // 여러 id 조회용 DTO 프로젝션. IN 목록 크기는 호출하는 쪽에서 나눠서 넘김
+    @Transactional(readOnly = true)
+    List<EmployeeDto> findByIdIn(Collection<Long> ids);
+
+    // keyset 페이징: id 인덱스를 타므로 몇 번째 페이지든 비용이 일정함
+    List<EmployeeDto> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    @Query("select e.id from Employee e where e.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // delta sync 용. row_version 인덱스를 타고 version 순으로 읽음
+    // replica 에서 읽을 수 있으므로 읽은 엔티티를 2차 캐시에 넣지 않음 (GET: 읽기만)
+    @QueryHints(@QueryHint(name = HINT_CACHE_MODE, value = "GET"))
+    List<Employee> findByRowVersionGreaterThanOrderByRowVersionAsc(long rowVersion, Pageable pageable);
+
+    // updatePartially / deleteEmployeeById / deleteEmployeesByIds 는 EmployeeRepositoryCustomImpl (2차 캐시에서 해당 id 만 지움)
+
+    // 전체 export 용. 트랜잭션 안에서만 사용하고 반드시 close 해야 함 (MySQL 은 useCursorFetch=true 일 때 fetch size 만큼씩 가져옴)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new me.jongwoo.spring.testing.dto.EmployeeDto(e.id, e.firstName, e.lastName, e.email) " +
+            "from Employee e order by e.id")
+    Stream<EmployeeDto> streamAll();
+
+    // 통계용 GROUP BY. 엔티티를 읽지 않고 DB 에서 집계한 건수만 가져옴 (많은 순)
+    // substring/locate 는 JPQL 표준 인자 수로 써야 HHH000174 경고가 나지 않음
+    @Query("select new me.jongwoo.spring.testing.dto.GroupCount(lower(substring(e.email, locate('@', e.email, 1) + 1, length(e.email))), count(e)) " +
+            "from Employee e group by lower(substring(e.email, locate('@', e.email, 1) + 1, length(e.email))) order by count(e) desc")
+    List<GroupCount> countByEmailDomain();
+
+    @Query("select new me.jongwoo.spring.testing.dto.GroupCount(upper(substring(e.lastName, 1, 1)), count(e)) " +
+            "from Employee e group by upper(substring(e.lastName, 1, 1)) order by count(e) desc")
+    List<GroupCount> countByLastNameInitial();
+
+    // 이름은 중복될 수 있으므로 목록으로 반환. (last_name, first_name) 인덱스를 사용
     @Query("select e from Employee e where e.firstName = ?1 and e.lastName = ?2")
-    Employee findByJPQL(String firstName, String lastName);
+    List<Employee> findByJPQL(String firstName, String lastName);
 
     @Query("select e from Employee e where e.firstName = :firstName and e.lastName = :lastName")
-    Employee findByJPQLNamedParams(@Param("firstName") String firstName, @Param("lastName") String lastName);
+    List<Employee> findByJPQLNamedParams(@Param("firstName") String firstName, @Param("lastName") String lastName);
 
     @Query(value = "select * from employees e where e.first_name = ?1 and e.last_name = ?2", nativeQuery = true)
-    Employee findByNativeQuery(String firstName, String lastName);
+    List<Employee> findByNativeQuery(String firstName, String lastName);
 
     @Query(value = "select * from employees e where e.first_name = :firstName and e.last_name = :lastName", nativeQuery = true)
-    Employee findByNativeQueryWithNamedParams(@Param("firstName") String firstName, @Param("lastName") String lastName);
+    List<Employee> findByNativeQueryWithNamedParams(@Param("firstName") String firstName, @Param("lastName") String lastName);
+
+    // count 쿼리 없이 size + 1 건만 읽어서 다음 페이지 여부를 판단
+    Slice<EmployeeDto> findByLastNameAndFirstNameOrderByIdAsc(String lastName, String firstName, Pageable pageable);
 }
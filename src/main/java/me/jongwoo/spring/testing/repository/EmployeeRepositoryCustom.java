@@ -0,0 +1,14 @@
+package me.jongwoo.spring.testing.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+public interface EmployeeRepositoryCustom {
+    // null 인 값은 기존 값을 유지. 조회 없이 update 한 번으로 끝나며 반영된 row 수를 반환
+    int updatePartially(long id, String firstName, String lastName, String email, long rowVersion, Instant updatedAt);
+
+    // JpaRepository.deleteById 와 달리 엔티티를 먼저 조회하지 않고, 없는 id 면 0 을 반환
+    int deleteEmployeeById(long id);
+
+    int deleteEmployeesByIds(Collection<Long> ids);
+}
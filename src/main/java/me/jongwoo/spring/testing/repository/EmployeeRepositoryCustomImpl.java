@@ -0,0 +1,102 @@
+package me.jongwoo.spring.testing.repository;
+
+import me.jongwoo.spring.testing.entity.Employee;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.type.StringType;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * JPQL 벌크 update/delete 는 하이버네이트가 employees 2차 캐시 영역 전체를 비우므로, 네이티브 쿼리로 실행하고 바뀐 id 만 지운다.
+ * 쿼리 공간을 엔티티와 겹치지 않게 주어야 하이버네이트가 영역을 비우지 않음 (비워 두면 모든 영역을 비움).
+ */
+@Transactional
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    // 어떤 엔티티의 테이블과도 겹치지 않는 이름
+    static final String BULK_QUERY_SPACE = "employees_bulk";
+
+    private final EntityManager entityManager;
+
+    public EmployeeRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int updatePartially(long id, String firstName, String lastName, String email, long rowVersion, Instant updatedAt) {
+        int updated = execute(session -> session.createNativeQuery("update employees set " +
+                        "first_name = coalesce(:firstName, first_name), " +
+                        "last_name = coalesce(:lastName, last_name), " +
+                        "email = coalesce(:email, email), " +
+                        "row_version = :rowVersion, updated_at = :updatedAt " +
+                        "where id = :id")
+                .addSynchronizedQuerySpace(BULK_QUERY_SPACE)
+                .setParameter("firstName", firstName, StringType.INSTANCE)
+                .setParameter("lastName", lastName, StringType.INSTANCE)
+                .setParameter("email", email, StringType.INSTANCE)
+                .setParameter("rowVersion", rowVersion)
+                .setParameter("updatedAt", updatedAt)
+                .setParameter("id", id)
+                .executeUpdate());
+        evict(List.of(id), updated);
+        return updated;
+    }
+
+    @Override
+    public int deleteEmployeeById(long id) {
+        int deleted = execute(session -> session.createNativeQuery("delete from employees where id = :id")
+                .addSynchronizedQuerySpace(BULK_QUERY_SPACE)
+                .setParameter("id", id)
+                .executeUpdate());
+        evict(List.of(id), deleted);
+        return deleted;
+    }
+
+    @Override
+    public int deleteEmployeesByIds(Collection<Long> ids) {
+        int deleted = execute(session -> session.createNativeQuery("delete from employees where id in (:ids)")
+                .addSynchronizedQuerySpace(BULK_QUERY_SPACE)
+                .setParameterList("ids", ids)
+                .executeUpdate());
+        evict(ids, deleted);
+        return deleted;
+    }
+
+    // @Modifying(flushAutomatically = true, clearAutomatically = true) 와 같게 앞뒤로 flush/clear
+    private int execute(ToIntFunction<Session> update) {
+        entityManager.flush();
+        int count = update.applyAsInt(entityManager.unwrap(Session.class));
+        entityManager.clear();
+        return count;
+    }
+
+    // 바뀐 id 의 엔티티와 쿼리 캐시(email 조회 결과가 바뀐 id 를 가리킬 수 있음)를 지금 한 번, 커밋 후 한 번 더 지움
+    // 커밋 전에 다른 트랜잭션이 이전 값을 다시 캐시했을 수 있으므로
+    private void evict(Collection<Long> ids, int count) {
+        if (count == 0) {
+            return;
+        }
+        Cache cache = entityManager.unwrap(Session.class).getSessionFactory().getCache();
+        Runnable eviction = () -> {
+            ids.forEach(id -> cache.evictEntityData(Employee.class, id));
+            cache.evictDefaultQueryRegion();
+        };
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package me.jongwoo.spring.testing.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.GroupCount;
+import me.jongwoo.spring.testing.entity.Employee;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 샤드 하나의 employees 테이블. JPA 엔티티 대신 JdbcTemplate 으로 접근하며 id 는 이 샤드 번호로 끝나도록 발급한다.
+ */
+public class EmployeeShard {
+
+    private static final String COLUMNS = "id, first_name, last_name, email";
+
+    private static final RowMapper<EmployeeDto> ROW_MAPPER = (rs, rowNum) -> new EmployeeDto(
+            rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name"), rs.getString("email"));
+
+    private final int index;
+    private final int shardCount;
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int idBlockSize;
+
+    // [nextLocalId, localIdLimit) 가 이 노드에 예약된 로컬 id 범위
+    private long nextLocalId;
+    private long localIdLimit;
+
+    public EmployeeShard(int index, int shardCount, HikariDataSource dataSource, int idBlockSize) {
+        this.index = index;
+        this.shardCount = shardCount;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.idBlockSize = idBlockSize;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    // 여러 건을 한 트랜잭션에서 JDBC 배치로 insert. 저장된 id 를 엔티티에 채워준다
+    public void insert(List<Employee> employees) {
+        for (Employee employee : employees) {
+            employee.setId(nextId());
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "insert into employees (" + COLUMNS + ") values (?, ?, ?, ?)",
+                employees,
+                employees.size(),
+                (ps, employee) -> {
+                    ps.setLong(1, employee.getId());
+                    ps.setString(2, employee.getFirstName());
+                    ps.setString(3, employee.getLastName());
+                    ps.setString(4, employee.getEmail());
+                }));
+    }
+
+    // 다른 샤드에서 옮겨 오는 행. id 를 그대로 유지함
+    public void insertMoved(EmployeeDto employee) {
+        jdbcTemplate.update("insert into employees (" + COLUMNS + ") values (?, ?, ?, ?)",
+                employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getEmail());
+    }
+
+    public List<String> findExistingEmails(Collection<String> emails) {
+        return namedParameterJdbcTemplate.queryForList(
+                "select email from employees where email in (:emails)", Map.of("emails", emails), String.class);
+    }
+
+    public Optional<EmployeeDto> findById(long id) {
+        return jdbcTemplate.query("select " + COLUMNS + " from employees where id = ?", ROW_MAPPER, id)
+                .stream().findFirst();
+    }
+
+    // 트랜잭션 안에서 호출해야 커밋까지 행이 잠김
+    public Optional<EmployeeDto> findByIdForUpdate(long id) {
+        return jdbcTemplate.query("select " + COLUMNS + " from employees where id = ? for update", ROW_MAPPER, id)
+                .stream().findFirst();
+    }
+
+    public List<EmployeeDto> findByIds(Collection<Long> ids) {
+        return namedParameterJdbcTemplate.query("select " + COLUMNS + " from employees where id in (:ids)",
+                Map.of("ids", ids), ROW_MAPPER);
+    }
+
+    public Optional<EmployeeDto> findByEmail(String email) {
+        return jdbcTemplate.query("select " + COLUMNS + " from employees where email = ?", ROW_MAPPER, email)
+                .stream().findFirst();
+    }
+
+    public List<EmployeeDto> findAll() {
+        return jdbcTemplate.query("select " + COLUMNS + " from employees order by id", ROW_MAPPER);
+    }
+
+    public List<EmployeeDto> findAfter(long afterId, int limit) {
+        return jdbcTemplate.query("select " + COLUMNS + " from employees where id > ? order by id limit ?",
+                ROW_MAPPER, afterId, limit);
+    }
+
+    public List<EmployeeDto> findByName(String lastName, String firstName, int limit) {
+        return jdbcTemplate.query("select " + COLUMNS + " from employees where last_name = ? and first_name = ? order by id limit ?",
+                ROW_MAPPER, lastName, firstName, limit);
+    }
+
+    public int update(long id, String firstName, String lastName, String email) {
+        return jdbcTemplate.update("update employees set first_name = ?, last_name = ?, email = ? where id = ?",
+                firstName, lastName, email, id);
+    }
+
+    // null 인 값은 기존 값을 유지
+    public int updatePartially(long id, String firstName, String lastName, String email) {
+        return jdbcTemplate.update("update employees set first_name = coalesce(?, first_name), " +
+                        "last_name = coalesce(?, last_name), email = coalesce(?, email) where id = ?",
+                firstName, lastName, email, id);
+    }
+
+    public int deleteById(long id) {
+        return jdbcTemplate.update("delete from employees where id = ?", id);
+    }
+
+    public long count() {
+        return jdbcTemplate.queryForObject("select count(*) from employees", Long.class);
+    }
+
+    public List<GroupCount> countByEmailDomain() {
+        return countBy("lower(substring(email, locate('@', email) + 1))");
+    }
+
+    public List<GroupCount> countByLastNameInitial() {
+        return countBy("upper(substring(last_name, 1, 1))");
+    }
+
+    private List<GroupCount> countBy(String expression) {
+        return jdbcTemplate.query("select " + expression + " as group_key, count(*) as group_count from employees group by " + expression,
+                (rs, rowNum) -> new GroupCount(rs.getString("group_key"), rs.getLong("group_count")));
+    }
+
+    // 실제로 삭제한 id 를 반환 (변경 이벤트용). 확인과 삭제 사이에 다른 요청이 끼어들지 않도록 행을 잠금
+    public List<Long> deleteByIds(Collection<Long> ids) {
+        return transactionTemplate.execute(status -> {
+            List<Long> existingIds = namedParameterJdbcTemplate.queryForList(
+                    "select id from employees where id in (:ids) for update", Map.of("ids", ids), Long.class);
+            if (!existingIds.isEmpty()) {
+                namedParameterJdbcTemplate.update("delete from employees where id in (:ids)", Map.of("ids", existingIds));
+            }
+            return existingIds;
+        });
+    }
+
+    // 이 샤드의 id 중 다른 샤드로 옮겨 간 행의 위치 (id -> 샤드 번호)
+    public Map<Long, Integer> findLocations(Collection<Long> ids) {
+        Map<Long, Integer> locations = new LinkedHashMap<>();
+        namedParameterJdbcTemplate.query("select id, shard from employee_locations where id in (:ids)",
+                Map.of("ids", ids), rs -> {
+                    locations.put(rs.getLong("id"), rs.getInt("shard"));
+                });
+        return locations;
+    }
+
+    public void saveLocation(long id, int shard) {
+        if (jdbcTemplate.update("update employee_locations set shard = ? where id = ?", shard, id) == 0) {
+            jdbcTemplate.update("insert into employee_locations (id, shard) values (?, ?)", id, shard);
+        }
+    }
+
+    public void deleteLocations(Collection<Long> ids) {
+        namedParameterJdbcTemplate.update("delete from employee_locations where id in (:ids)", Map.of("ids", ids));
+    }
+
+    // 이 샤드의 트랜잭션 안에서 실행. 다른 샤드의 트랜잭션 안에서 호출하면 두 트랜잭션이 함께 열려 있음
+    public <T> T inTransaction(Supplier<T> action) {
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    public void close() {
+        dataSource.close();
+    }
+
+    private synchronized long nextId() {
+        if (nextLocalId >= localIdLimit) {
+            allocateIdBlock();
+        }
+        return nextLocalId++ * shardCount + index;
+    }
+
+    // 행 잠금으로 여러 노드가 같은 범위를 받지 않도록 함
+    private void allocateIdBlock() {
+        Long limit = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("update employee_id_blocks set next_val = next_val + ? where id = 1", idBlockSize);
+            return jdbcTemplate.queryForObject("select next_val from employee_id_blocks where id = 1", Long.class);
+        });
+        localIdLimit = limit;
+        nextLocalId = limit - idBlockSize;
+    }
+}
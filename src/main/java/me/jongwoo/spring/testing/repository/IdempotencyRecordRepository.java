@@ -0,0 +1,37 @@
+package me.jongwoo.spring.testing.repository;
+
+import me.jongwoo.spring.testing.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // 처리 중 표시로 키를 먼저 차지함. 이미 있으면 PK 충돌, 다른 트랜잭션이 차지하고 아직 커밋 전이면 끝날 때까지 기다림
+    @Modifying
+    @Query(value = "insert into idempotency_keys (idempotency_key, fingerprint, status, created_at) " +
+            "values (:key, :fingerprint, " + IdempotencyRecord.IN_PROGRESS + ", :createdAt)", nativeQuery = true)
+    int claim(@Param("key") String key, @Param("fingerprint") String fingerprint, @Param("createdAt") Instant createdAt);
+
+    // claim 한 트랜잭션 안에서 응답을 채움
+    @Modifying
+    @Query("update IdempotencyRecord r set r.status = :status, r.location = :location, r.body = :body where r.key = :key")
+    int complete(@Param("key") String key, @Param("status") int status,
+                 @Param("location") String location, @Param("body") String body);
+
+    // 만료된 키를 다시 쓰기 위해 그 키만 지움
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.key = :key and r.createdAt < :expiredBefore")
+    int deleteExpired(@Param("key") String key, @Param("expiredBefore") Instant expiredBefore);
+
+    // created_at 인덱스를 사용해서 만료된 행만 지움
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :expiredBefore")
+    int deleteExpired(@Param("expiredBefore") Instant expiredBefore);
+}
@@ -0,0 +1,101 @@
+package me.jongwoo.spring.testing.repository;
+
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * 샤드 목록과 라우팅 규칙. email 해시로 저장할 샤드를 정하고, id 는 샤드 번호로 끝나므로 id 만으로 샤드를 찾을 수 있다.
+ * 이메일 변경으로 다른 샤드로 옮긴 행은 id 의 샤드에 남긴 위치(employee_locations)로 찾는다.
+ */
+public class ShardedEmployeeRepository {
+
+    // 위치를 한 번에 조회하는 id 개수 (IN 절 크기)
+    private static final int LOCATE_CHUNK_SIZE = 1000;
+
+    private final List<EmployeeShard> shards;
+
+    public ShardedEmployeeRepository(List<EmployeeShard> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    public List<EmployeeShard> getShards() {
+        return shards;
+    }
+
+    // String.hashCode 는 JVM 과 관계없이 값이 정해져 있으므로 노드마다 같은 샤드를 고름
+    public EmployeeShard shardForEmail(String email) {
+        if (email == null) {
+            throw new IllegalArgumentException("email 이 없습니다.");
+        }
+        return shards.get(Math.floorMod(email.hashCode(), shards.size()));
+    }
+
+    // id 를 발급한 샤드. 행이 다른 샤드로 옮겨 갔을 수 있으므로 행을 찾을 때는 locate 를 사용
+    public EmployeeShard shardForId(long id) {
+        return shards.get((int) Math.floorMod(id, (long) shards.size()));
+    }
+
+    // 행이 지금 있는 샤드
+    public EmployeeShard locate(long id) {
+        return locateAll(List.of(id)).keySet().iterator().next();
+    }
+
+    // 행이 지금 있는 샤드별 id. id 의 샤드마다 위치를 한 번씩 조회함
+    public Map<EmployeeShard, List<Long>> locateAll(Collection<Long> ids) {
+        Map<EmployeeShard, List<Long>> byHome = new LinkedHashMap<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            byHome.computeIfAbsent(shardForId(id), shard -> new ArrayList<>()).add(id);
+        }
+        Map<EmployeeShard, List<Long>> byShard = new LinkedHashMap<>();
+        byHome.forEach((home, homeIds) -> {
+            for (int from = 0; from < homeIds.size(); from += LOCATE_CHUNK_SIZE) {
+                List<Long> chunk = homeIds.subList(from, Math.min(from + LOCATE_CHUNK_SIZE, homeIds.size()));
+                Map<Long, Integer> locations = home.findLocations(chunk);
+                for (Long id : chunk) {
+                    Integer moved = locations.get(id);
+                    byShard.computeIfAbsent(moved == null ? home : shards.get(moved), shard -> new ArrayList<>()).add(id);
+                }
+            }
+        });
+        return byShard;
+    }
+
+    /**
+     * from 에 있는 행을 change 를 적용해 to 로 같은 id 로 옮긴다. 행이 없으면 empty.
+     * to 의 insert, id 샤드의 위치, from 의 delete 순으로 커밋하므로 커밋 도중 실패해도 행이 사라지지는 않는다
+     * (from 의 커밋이 실패하면 두 샤드에 남을 수 있음). 같은 샤드끼리는 한 트랜잭션으로 합쳐진다.
+     */
+    public Optional<EmployeeDto> move(long id, EmployeeShard from, EmployeeShard to, UnaryOperator<EmployeeDto> change) {
+        EmployeeShard home = shardForId(id);
+        return from.inTransaction(() -> {
+            Optional<EmployeeDto> current = from.findByIdForUpdate(id); // 옮기는 동안 다른 수정/삭제를 막음
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            EmployeeDto moved = change.apply(current.get());
+            home.inTransaction(() -> to.inTransaction(() -> {
+                to.insertMoved(moved);
+                if (to == home) {
+                    home.deleteLocations(List.of(id));
+                } else {
+                    home.saveLocation(id, to.getIndex());
+                }
+                return null;
+            }));
+            from.deleteById(id);
+            return Optional.of(moved);
+        });
+    }
+
+    public void close() {
+        shards.forEach(EmployeeShard::close);
+    }
+}
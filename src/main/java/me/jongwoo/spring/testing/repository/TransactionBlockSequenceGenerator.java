@@ -0,0 +1,54 @@
+package me.jongwoo.spring.testing.repository;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+
+/**
+ * 시퀀스 값 v 하나로 [v, v + increment) 를 발급하되, 남은 값은 트랜잭션이 끝나면 버린다 (pooled-lo 를 트랜잭션 단위로).
+ * pooled 최적화는 인스턴스마다 미리 받은 블록을 나중 트랜잭션에서도 쓰므로 발급 순서가 시각 순서와 어긋나는데,
+ * 이렇게 하면 모든 인스턴스에 걸쳐 값이 받은 시각 순서대로 커지고 배치 insert 는 여전히 increment 건마다 시퀀스를 한 번만 부른다.
+ * 트랜잭션 밖에서는 값마다 시퀀스를 부름.
+ */
+public class TransactionBlockSequenceGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        DatabaseStructure structure = getDatabaseStructure();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return structure.buildCallback(session).getNextValue().makeValue().longValue();
+        }
+        Block block = (Block) TransactionSynchronizationManager.getResource(this);
+        if (block == null) {
+            block = new Block();
+            TransactionSynchronizationManager.bindResource(this, block);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TransactionBlockSequenceGenerator.this);
+                }
+            });
+        }
+        if (block.next == block.end) {
+            block.next = structure.buildCallback(session).getNextValue().makeValue().longValue();
+            block.end = block.next + structure.getIncrementSize();
+        }
+        return block.next++;
+    }
+
+    // INSERT ... SELECT 에서는 블록을 쓸 수 없음
+    @Override
+    public boolean supportsBulkInsertionIdentifierGeneration() {
+        return false;
+    }
+
+    private static class Block {
+        long next;
+        long end;
+    }
+}
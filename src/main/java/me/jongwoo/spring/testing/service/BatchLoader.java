@@ -0,0 +1,100 @@
+package me.jongwoo.spring.testing.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 짧은 시간 안에 들어온 단건 조회를 모아서 loader 한 번으로 읽는다 (DataLoader 방식).
+ * 첫 키가 들어오면 window 뒤에 모인 키를 한꺼번에 조회하고, maxBatchSize 만큼 모이면 그 자리에서 바로 조회한다.
+ * loader 가 실패하면 같은 배치의 호출 모두 같은 예외를 받는다.
+ */
+public class BatchLoader<K, V> implements AutoCloseable {
+
+    private final Function<List<K>, Map<K, V>> loader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final DistributionSummary batchSizes;
+
+    private Map<K, CompletableFuture<Optional<V>>> pending = new LinkedHashMap<>(); // guarded by this
+
+    /**
+     * @param loader 키 목록을 받아 찾은 값만 담은 Map 을 반환. 없는 키는 Optional.empty 로 전달됨
+     */
+    public BatchLoader(String operation, Function<List<K>, Map<K, V>> loader, Duration window, int maxBatchSize,
+                       int threads, MeterRegistry meterRegistry) {
+        this.loader = loader;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        AtomicInteger sequence = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-loader-" + operation + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSizes = DistributionSummary.builder("employee.batchloader.batch.size")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    public Optional<V> load(K key) {
+        CompletableFuture<Optional<V>> result;
+        Map<K, CompletableFuture<Optional<V>>> full = null;
+        synchronized (this) {
+            result = pending.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (pending.size() == 1) {
+                scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new LinkedHashMap<>();
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return SingleFlight.await(result);
+    }
+
+    private void flush() {
+        Map<K, CompletableFuture<Optional<V>>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) { // maxBatchSize 로 이미 조회됨
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<K, CompletableFuture<Optional<V>>> batch) {
+        batchSizes.record(batch.size());
+        try {
+            Map<K, V> found = loader.apply(new ArrayList<>(batch.keySet()));
+            batch.forEach((key, result) -> result.complete(Optional.ofNullable(found.get(key))));
+        } catch (RuntimeException | Error e) { // 예외는 기다리는 호출 쪽에서 던짐
+            batch.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    // 남아 있는 조회를 마저 처리하고 종료
+    @Override
+    public void close() {
+        flush();
+        scheduler.shutdown();
+    }
+}
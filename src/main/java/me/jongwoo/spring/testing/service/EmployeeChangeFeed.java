@@ -0,0 +1,309 @@
+package me.jongwoo.spring.testing.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import me.jongwoo.spring.testing.config.ChangeFeedProperties;
+import me.jongwoo.spring.testing.dto.EmployeeChangeEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 커밋된 직원 변경을 고정 크기 링 버퍼에 쌓고 SSE 구독자에게 보낸다.
+ * 쓰기 쪽은 버퍼에 넣기만 하므로 구독자가 느려도 막히지 않는다. 버퍼에서 밀려난 구독자는 reset 이벤트를 받고 최신 위치로 건너뛴다.
+ * 한 번의 전송이 sendTimeout 을 넘기면 구독자를 끊고, 쓰기에 막힌 스레드가 풀려날 때까지 전송 스레드를 하나 더 둔다.
+ * 이벤트 id 는 "epoch:순번" 이다. 순번은 노드별 메모리 순번이고 epoch 는 프로세스마다 새로 정하므로,
+ * 재시작했거나 다른 노드로 붙어서 epoch 가 다르면 순번이 겹치더라도 이어 보내지 않고 reset 한다.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class EmployeeChangeFeed {
+
+    static final String RESET_EVENT = "reset";
+
+    // 이 순번 이후는 버퍼에 없으므로 처음 전송에서 reset 을 받음
+    private static final long RESET_CURSOR = -1;
+
+    // 구독자 한 명에게 한 번에 보내는 최대 이벤트 수
+    private static final int MAX_BATCH = 500;
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final EmployeeChangeEvent[] buffer;
+    private final long heartbeatIntervalNanos;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final int sendThreads;
+    private final ThreadPoolExecutor senders;
+    private final Thread dispatcher;
+    private final Counter resetCounter;
+    private final Counter droppedCounter;
+
+    private int stalledSenders; // guarded by senders
+
+    private long lastEventId; // guarded by this
+    private boolean signalled; // guarded by this
+    private volatile boolean running = true;
+
+    public EmployeeChangeFeed(ChangeFeedProperties properties, MeterRegistry meterRegistry) {
+        this.buffer = new EmployeeChangeEvent[properties.getBufferSize()];
+        this.heartbeatIntervalNanos = properties.getHeartbeatInterval().toNanos();
+        this.timeoutMillis = properties.getTimeout().toMillis();
+        this.sendTimeoutNanos = properties.getSendTimeout().toNanos();
+        this.sendThreads = properties.getSendThreads();
+        this.senders = (ThreadPoolExecutor) Executors.newFixedThreadPool(sendThreads);
+        this.dispatcher = new Thread(this::dispatch, "employee-change-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.resetCounter = meterRegistry.counter("employee.changes.resets");
+        this.droppedCounter = meterRegistry.counter("employee.changes.dropped");
+        Gauge.builder("employee.changes.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    // 트랜잭션 안에서 발행되면 커밋 후에, 밖에서 발행되면 바로 실행됨
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(EmployeeChangeEvent event) {
+        synchronized (this) {
+            lastEventId++;
+            buffer[(int) (lastEventId % buffer.length)] = event;
+            signalled = true;
+            notifyAll();
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return lastEventId;
+    }
+
+    public String getLastEventId() {
+        return eventId(getLastSequence());
+    }
+
+    /**
+     * lastEventId 이후의 이벤트부터 보낸다. null 이면 구독 이후 이벤트만 보내고, 다른 epoch 의 id 면 reset 부터 보냄.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(new SseEmitter(timeoutMillis), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, lastEventId != null ? cursorOf(lastEventId) : getLastSequence());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        signal();
+        return emitter;
+    }
+
+    /**
+     * after 이후의 이벤트를 최대 max 건 반환. 이미 버퍼에서 밀려났거나 이 노드가 발행한 적 없는 id 면 null.
+     */
+    synchronized List<Event> readAfter(long after, int max) {
+        long oldest = Math.max(1, lastEventId - buffer.length + 1);
+        if (after > lastEventId || after + 1 < oldest) {
+            return null;
+        }
+        List<Event> events = new ArrayList<>((int) Math.min(max, lastEventId - after));
+        for (long id = after + 1; id <= lastEventId && events.size() < max; id++) {
+            events.add(new Event(id, buffer[(int) (id % buffer.length)]));
+        }
+        return events;
+    }
+
+    private String eventId(long sequence) {
+        return epoch + ":" + sequence;
+    }
+
+    // 재시작 전이나 다른 노드의 id, 형식이 맞지 않는 id 는 이 노드의 순번과 비교할 수 없음
+    private long cursorOf(String lastEventId) {
+        int separator = lastEventId.indexOf(':');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return RESET_CURSOR;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return RESET_CURSOR;
+        }
+    }
+
+    private synchronized void signal() {
+        signalled = true;
+        notifyAll();
+    }
+
+    private void dispatch() {
+        long nextHeartbeat = System.nanoTime() + heartbeatIntervalNanos;
+        while (running) {
+            boolean changed;
+            synchronized (this) {
+                if (!signalled) {
+                    // 막힌 전송을 sendTimeout 안에 찾을 수 있도록 heartbeat 보다 자주 깨어날 수 있음
+                    long waitNanos = Math.min(nextHeartbeat - System.nanoTime(), sendTimeoutNanos);
+                    try {
+                        wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                changed = signalled;
+                signalled = false;
+            }
+            dropStalled();
+            boolean heartbeat = !changed && System.nanoTime() - nextHeartbeat >= 0;
+            if (!changed && !heartbeat) {
+                continue;
+            }
+            nextHeartbeat = System.nanoTime() + heartbeatIntervalNanos;
+            for (Subscriber subscriber : subscribers) {
+                // 전송 중인 구독자는 건너뜀. 끝나면 밀린 이벤트가 있는지 다시 확인함
+                if (subscriber.sending.compareAndSet(false, true)) {
+                    senders.execute(() -> send(subscriber, heartbeat));
+                }
+            }
+        }
+    }
+
+    // sendTimeout 을 넘긴 전송의 구독자를 끊음. 막힌 쓰기는 중단할 수 없으므로 그동안 전송 스레드를 하나 늘림
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            synchronized (subscriber) {
+                if (subscriber.sendStartedNanos == 0 || subscriber.dropped || now - subscriber.sendStartedNanos < sendTimeoutNanos) {
+                    continue;
+                }
+                subscriber.dropped = true;
+            }
+            subscribers.remove(subscriber);
+            droppedCounter.increment();
+            resizeSenders(1);
+            log.warn("SSE 구독자가 {}ms 안에 받지 못해 연결을 끊습니다.", TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+        }
+    }
+
+    private void resizeSenders(int delta) {
+        synchronized (senders) {
+            stalledSenders += delta;
+            int size = sendThreads + stalledSenders;
+            if (delta > 0) { // 최대 크기를 먼저 늘려야 core 를 늘릴 수 있음
+                senders.setMaximumPoolSize(size);
+                senders.setCorePoolSize(size);
+            } else {
+                senders.setCorePoolSize(size);
+                senders.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, boolean heartbeat) {
+        synchronized (subscriber) {
+            if (subscriber.dropped) {
+                return;
+            }
+            subscriber.sendStartedNanos = System.nanoTime();
+        }
+        IOException failure = null;
+        try {
+            boolean sent = false;
+            List<Event> events;
+            while (!subscriber.dropped && ((events = readAfter(subscriber.cursor, MAX_BATCH)) == null || !events.isEmpty())) {
+                if (events == null) { // 버퍼에서 밀려남. 구독자는 전체를 다시 읽어야 함
+                    long skipTo = getLastSequence();
+                    resetCounter.increment(); // 보내기 전에 셈. 전송이 막혀도 reset 이 필요했던 것은 남김
+                    subscriber.emitter.send(SseEmitter.event().id(eventId(skipTo)).name(RESET_EVENT).data(eventId(skipTo)));
+                    subscriber.cursor = skipTo;
+                    continue;
+                }
+                for (Event event : events) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(eventId(event.id))
+                            .name(event.change.getType().name())
+                            .data(event.change, MediaType.APPLICATION_JSON));
+                    subscriber.cursor = event.id;
+                }
+                sent = true;
+            }
+            if (heartbeat && !sent && !subscriber.dropped) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        } catch (IOException e) { // 연결이 끊긴 구독자는 제거
+            failure = e;
+        } catch (IllegalStateException e) {
+            failure = new IOException(e);
+        } finally {
+            boolean dropped;
+            synchronized (subscriber) {
+                subscriber.sendStartedNanos = 0;
+                dropped = subscriber.dropped;
+            }
+            if (dropped) { // 막혀 있던 쓰기가 끝남. 대신 늘렸던 스레드를 돌려놓음
+                resizeSenders(-1);
+                subscriber.emitter.completeWithError(new SocketTimeoutException("SSE send timed out"));
+            } else if (failure != null) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(failure);
+            }
+            subscriber.sending.set(false);
+        }
+        if (subscriber.cursor < getLastSequence()) { // 전송하는 동안 추가된 이벤트
+            signal();
+        }
+    }
+
+    static class Event {
+
+        final long id;
+        final EmployeeChangeEvent change;
+
+        Event(long id, EmployeeChangeEvent change) {
+            this.id = id;
+            this.change = change;
+        }
+    }
+
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long cursor;
+        private long sendStartedNanos; // guarded by this. 전송 중이 아니면 0
+        private volatile boolean dropped; // 쓰기는 this 로 보호
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
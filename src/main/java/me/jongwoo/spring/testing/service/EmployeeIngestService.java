@@ -0,0 +1,13 @@
+package me.jongwoo.spring.testing.service;
+
+import me.jongwoo.spring.testing.dto.IngestStatus;
+import me.jongwoo.spring.testing.entity.Employee;
+
+import java.util.Optional;
+
+public interface EmployeeIngestService {
+
+    IngestStatus submit(Employee employee);
+
+    Optional<IngestStatus> getStatus(String trackingId);
+}
@@ -1,19 +1,44 @@
 package me.jongwoo.spring.testing.service;
 
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeStats;
 import me.jongwoo.spring.testing.entity.Employee;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface EmployeeService {
 
     Employee saveEmployee(Employee employee);
 
-    List<Employee> getAllEmployees();
+    List<Employee> saveEmployees(List<Employee> employees);
 
-    Optional<Employee> getEmployeeById(long id);
+    List<EmployeeDto> getAllEmployees();
+
+    List<EmployeeDto> getEmployeesAfter(long afterId, int limit);
+
+    void exportEmployees(Consumer<EmployeeDto> consumer);
+
+    Optional<EmployeeDto> getEmployeeById(long id);
+
+    Optional<EmployeeDto> getEmployeeByEmail(String email);
+
+    // 찾은 직원만 순서 없이 반환
+    List<EmployeeDto> getEmployeesByIds(Collection<Long> ids);
+
+    // 전체 건수와 이메일 도메인별, 성 첫 글자별 건수. employee.stats.ttl 동안 캐시된 값일 수 있음
+    EmployeeStats getEmployeeStats();
+
+    Slice<EmployeeDto> searchByName(String firstName, String lastName, int page, int size);
 
     Employee updateEmployee(Employee employee);
 
-    void deleteById(long id);
+    boolean patchEmployee(long id, Employee employee);
+
+    boolean deleteById(long id);
+
+    int deleteByIds(List<Long> ids);
 }
@@ -0,0 +1,308 @@
+package me.jongwoo.spring.testing.service;
+
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * employees 테이블의 메모리 사본. 행마다 객체를 만들지 않고 컬럼별 배열에 담는다.
+ * - id: id 순으로 정렬된 long[]. 이진 탐색으로 id 조회와 keyset 페이징을 한다 (별도 인덱스 없음)
+ * - 이름: 중복이 많으므로 문자열 풀에 한 번만 두고 int 번호로 참조 (풀은 줄어들지 않음)
+ * - 이메일: UTF-8 바이트를 하나의 byte[] 에 이어 붙이고 offset/length 로 참조. 이메일 → id 는 open addressing 해시 인덱스
+ * 조회할 때마다 EmployeeDto 를 새로 만들어 반환하며, 읽기/쓰기는 ReadWriteLock 으로 보호한다.
+ */
+public class EmployeeSnapshot {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long EMPTY = 0; // id 는 1 부터 발급되므로 0 은 빈 슬롯
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 행 (id 순)
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] firstNames = new int[INITIAL_CAPACITY];
+    private int[] lastNames = new int[INITIAL_CAPACITY];
+    private int[] emailOffsets = new int[INITIAL_CAPACITY];
+    private int[] emailLengths = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // 이름 풀
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int nameCount;
+
+    // 이메일 바이트. 수정/삭제로 버려진 바이트가 절반을 넘으면 다시 채움
+    private byte[] emailBytes = new byte[INITIAL_CAPACITY * 16];
+    private int emailBytesUsed;
+    private int emailBytesGarbage;
+
+    // 이메일 해시 → id (linear probing, 사용률 75% 이하)
+    private long[] emailIndex = new long[INITIAL_CAPACITY * 2];
+
+    public Optional<EmployeeDto> findById(long id) {
+        lock.readLock().lock();
+        try {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            return row < 0 ? Optional.empty() : Optional.of(toDto(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<EmployeeDto> findByEmail(String email) {
+        byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            int row = rowOfEmail(bytes);
+            return row < 0 ? Optional.empty() : Optional.of(toDto(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // id 가 afterId 보다 큰 직원을 id 순으로 최대 limit 건
+    public List<EmployeeDto> findAfter(long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = Arrays.binarySearch(ids, 0, size, afterId);
+            from = from < 0 ? -from - 1 : from + 1;
+            int to = (int) Math.min((long) from + limit, size);
+            List<EmployeeDto> employees = new ArrayList<>(Math.max(0, to - from));
+            for (int row = from; row < to; row++) {
+                employees.add(toDto(row));
+            }
+            return employees;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 없으면 추가, 있으면 교체
+    public void put(EmployeeDto employee) {
+        byte[] email = employee.getEmail().getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            int row = Arrays.binarySearch(ids, 0, size, employee.getId());
+            if (row >= 0) {
+                if (!emailEquals(row, email)) {
+                    removeFromEmailIndex(row);
+                    emailBytesGarbage += emailLengths[row];
+                    storeEmail(row, email);
+                    addToEmailIndex(employee.getId(), email);
+                }
+            } else {
+                row = -row - 1;
+                if ((size + 1) * 4L > emailIndex.length * 3L) {
+                    rebuildEmailIndex(emailIndex.length * 2);
+                }
+                insertRow(row);
+                ids[row] = employee.getId();
+                storeEmail(row, email);
+                addToEmailIndex(employee.getId(), email);
+            }
+            firstNames[row] = nameId(employee.getFirstName());
+            lastNames[row] = nameId(employee.getLastName());
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row < 0) {
+                return;
+            }
+            removeFromEmailIndex(row);
+            emailBytesGarbage += emailLengths[row];
+            int moved = size - row - 1;
+            System.arraycopy(ids, row + 1, ids, row, moved);
+            System.arraycopy(firstNames, row + 1, firstNames, row, moved);
+            System.arraycopy(lastNames, row + 1, lastNames, row, moved);
+            System.arraycopy(emailOffsets, row + 1, emailOffsets, row, moved);
+            System.arraycopy(emailLengths, row + 1, emailLengths, row, moved);
+            size--;
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 처음 전체를 읽은 뒤처럼 크게 늘어난 직후에 호출해서 배열의 남는 공간을 줄임
+    public void trimToSize() {
+        lock.writeLock().lock();
+        try {
+            int capacity = Math.max(size + (size >> 4), INITIAL_CAPACITY); // 이후 추가를 위해 약간 남김
+            ids = Arrays.copyOf(ids, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+            emailOffsets = Arrays.copyOf(emailOffsets, capacity);
+            emailLengths = Arrays.copyOf(emailLengths, capacity);
+            names = Arrays.copyOf(names, Math.max(nameCount, INITIAL_CAPACITY));
+            compactEmails(emailBytesUsed - emailBytesGarbage + (emailBytesUsed >> 4));
+            rebuildEmailIndex(Math.max((int) (size * 4L / 3) + 1, INITIAL_CAPACITY * 2)); // 사용률 75%
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private EmployeeDto toDto(int row) {
+        return new EmployeeDto(ids[row], names[firstNames[row]], names[lastNames[row]],
+                new String(emailBytes, emailOffsets[row], emailLengths[row], StandardCharsets.UTF_8));
+    }
+
+    // 정렬 순서를 지키도록 row 자리를 비움. id 는 대부분 증가하므로 보통 끝에 추가됨
+    private void insertRow(int row) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+            emailOffsets = Arrays.copyOf(emailOffsets, capacity);
+            emailLengths = Arrays.copyOf(emailLengths, capacity);
+        }
+        int moved = size - row;
+        System.arraycopy(ids, row, ids, row + 1, moved);
+        System.arraycopy(firstNames, row, firstNames, row + 1, moved);
+        System.arraycopy(lastNames, row, lastNames, row + 1, moved);
+        System.arraycopy(emailOffsets, row, emailOffsets, row + 1, moved);
+        System.arraycopy(emailLengths, row, emailLengths, row + 1, moved);
+        size++;
+    }
+
+    private int nameId(String name) {
+        Integer id = nameIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (nameCount == names.length) {
+            names = Arrays.copyOf(names, nameCount + (nameCount >> 1));
+        }
+        names[nameCount] = name;
+        nameIds.put(name, nameCount);
+        return nameCount++;
+    }
+
+    private void storeEmail(int row, byte[] email) {
+        if (emailBytesUsed + email.length > emailBytes.length) {
+            emailBytes = Arrays.copyOf(emailBytes, Math.max(emailBytesUsed + email.length, emailBytes.length + (emailBytes.length >> 1)));
+        }
+        System.arraycopy(email, 0, emailBytes, emailBytesUsed, email.length);
+        emailOffsets[row] = emailBytesUsed;
+        emailLengths[row] = email.length;
+        emailBytesUsed += email.length;
+    }
+
+    // 버려진 바이트가 절반을 넘으면 살아 있는 이메일만 새 배열로 옮김
+    private void compactIfNeeded() {
+        if (emailBytesGarbage < INITIAL_CAPACITY || emailBytesGarbage * 2 < emailBytesUsed) {
+            return;
+        }
+        int live = emailBytesUsed - emailBytesGarbage;
+        compactEmails(live + (live >> 1));
+    }
+
+    private void compactEmails(int capacity) {
+        byte[] compacted = new byte[Math.max(capacity, INITIAL_CAPACITY)];
+        int used = 0;
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(emailBytes, emailOffsets[row], compacted, used, emailLengths[row]);
+            emailOffsets[row] = used;
+            used += emailLengths[row];
+        }
+        emailBytes = compacted;
+        emailBytesUsed = used;
+        emailBytesGarbage = 0;
+    }
+
+    private boolean emailEquals(int row, byte[] email) {
+        return Arrays.equals(emailBytes, emailOffsets[row], emailOffsets[row] + emailLengths[row], email, 0, email.length);
+    }
+
+    private int rowOfEmail(byte[] email) {
+        for (int slot = home(hash(email, 0, email.length)); emailIndex[slot] != EMPTY; slot = nextSlot(slot)) {
+            int row = Arrays.binarySearch(ids, 0, size, emailIndex[slot]);
+            if (emailEquals(row, email)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private void addToEmailIndex(long id, byte[] email) {
+        int slot = home(hash(email, 0, email.length));
+        while (emailIndex[slot] != EMPTY) {
+            slot = nextSlot(slot);
+        }
+        emailIndex[slot] = id;
+    }
+
+    // 빈 슬롯을 만들지 않도록 뒤따르는 항목을 당겨 채움 (backward shift deletion)
+    private void removeFromEmailIndex(int row) {
+        int slot = home(emailHash(row));
+        while (emailIndex[slot] != ids[row]) {
+            slot = nextSlot(slot);
+        }
+        int hole = slot;
+        for (int next = nextSlot(hole); emailIndex[next] != EMPTY; next = nextSlot(next)) {
+            int home = home(emailHash(Arrays.binarySearch(ids, 0, size, emailIndex[next])));
+            // home 이 (hole, next] 구간 밖이면 hole 로 옮겨도 탐색 경로가 유지됨
+            boolean between = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!between) {
+                emailIndex[hole] = emailIndex[next];
+                hole = next;
+            }
+        }
+        emailIndex[hole] = EMPTY;
+    }
+
+    private void rebuildEmailIndex(int capacity) {
+        emailIndex = new long[capacity];
+        for (int row = 0; row < size; row++) {
+            int slot = home(emailHash(row));
+            while (emailIndex[slot] != EMPTY) {
+                slot = nextSlot(slot);
+            }
+            emailIndex[slot] = ids[row];
+        }
+    }
+
+    // 크기가 2의 거듭제곱이 아니어도 되도록 나머지 대신 곱셈으로 범위를 맞춤
+    private int home(int hash) {
+        return (int) (((hash & 0xffffffffL) * emailIndex.length) >>> 32);
+    }
+
+    private int nextSlot(int slot) {
+        return slot + 1 == emailIndex.length ? 0 : slot + 1;
+    }
+
+    private int emailHash(int row) {
+        return hash(emailBytes, emailOffsets[row], emailLengths[row]);
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 1;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h * 0x9E3779B9; // 상위 비트까지 고르게 섞음
+    }
+}
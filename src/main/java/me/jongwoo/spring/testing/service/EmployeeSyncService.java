@@ -0,0 +1,85 @@
+package me.jongwoo.spring.testing.service;
+
+import io.micrometer.core.annotation.Timed;
+import me.jongwoo.spring.testing.config.SyncProperties;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeSyncPage;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.entity.EmployeeChange;
+import me.jongwoo.spring.testing.repository.EmployeeChangeRepository;
+import me.jongwoo.spring.testing.repository.EmployeeRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * "이 token 이후 변경분" 조회. token 은 마지막으로 받은 변경의 version(EmployeeChange id) 이다.
+ * 수정/생성은 employees.row_version 으로, 삭제는 employee_changes 의 DELETED 기록으로 읽어서 version 순으로 합친다.
+ * version 은 쓰는 트랜잭션 안에서 정해지므로 더 작은 version 이 늦게 커밋될 수 있다. 그래서 commit-lag 보다 최근에 발급된 version 을
+ * 만나면 거기서 멈춘다. version 은 트랜잭션마다 새로 받는 시퀀스 블록에서 발급되어(TransactionBlockSequenceGenerator) 받은 시각 순서대로
+ * 커지므로, 내려준 version 보다 작은 version 은 모두 commit-lag 전에 발급되었고 그 안에 커밋(또는 롤백)되었다고 볼 수 있다.
+ */
+@Service
+@ConditionalOnProperty(prefix = "employee.sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
+@EnableConfigurationProperties(SyncProperties.class)
+public class EmployeeSyncService {
+
+    static final String TIMER_NAME = "employee.sync";
+
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeChangeRepository employeeChangeRepository;
+    private final Duration commitLag;
+
+    public EmployeeSyncService(EmployeeRepository employeeRepository, EmployeeChangeRepository employeeChangeRepository,
+                               SyncProperties properties) {
+        this.employeeRepository = employeeRepository;
+        this.employeeChangeRepository = employeeChangeRepository;
+        this.commitLag = properties.getCommitLag();
+    }
+
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
+    public EmployeeSyncPage getChangesSince(long since, int limit) {
+        Instant safeBefore = Instant.now().minus(commitLag); // 읽기 전에 정해야 이 시각 전에 발급된 version 이 모두 커밋된 뒤에 읽음
+        // 각각 limit + 1 건을 읽어서 합친 결과가 limit 보다 많으면 다음 페이지가 있음
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<Employee> employees = employeeRepository.findByRowVersionGreaterThanOrderByRowVersionAsc(since, page);
+        List<EmployeeChange> deletions = employeeChangeRepository.findByTypeAndIdGreaterThanOrderByIdAsc(
+                EmployeeChange.Type.DELETED, since, page);
+
+        List<EmployeeDto> changed = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        long token = since;
+        int e = 0;
+        int d = 0;
+        boolean reachedRecent = false;
+        while (changed.size() + deletedIds.size() < limit && (e < employees.size() || d < deletions.size())) {
+            boolean takeEmployee = d == deletions.size()
+                    || (e < employees.size() && employees.get(e).getRowVersion() < deletions.get(d).getId());
+            Instant changedAt = takeEmployee ? employees.get(e).getUpdatedAt() : deletions.get(d).getChangedAt();
+            if (changedAt != null && !changedAt.isBefore(safeBefore)) { // 이 앞의 version 이 아직 커밋 중일 수 있음
+                reachedRecent = true;
+                break;
+            }
+            if (takeEmployee) {
+                Employee employee = employees.get(e++);
+                changed.add(EmployeeDto.from(employee));
+                token = employee.getRowVersion();
+            } else {
+                EmployeeChange deletion = deletions.get(d++);
+                deletedIds.add(deletion.getEmployeeId());
+                token = deletion.getId();
+            }
+        }
+        // 최근 변경에서 멈췄으면 다음 주기에 다시 요청
+        boolean hasMore = !reachedRecent && (e < employees.size() || d < deletions.size());
+        return new EmployeeSyncPage(changed, deletedIds, String.valueOf(token), hasMore);
+    }
+}
@@ -0,0 +1,309 @@
+package me.jongwoo.spring.testing.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import me.jongwoo.spring.testing.config.IdempotencyProperties;
+import me.jongwoo.spring.testing.entity.IdempotencyRecord;
+import me.jongwoo.spring.testing.exception.IdempotencyKeyInProgressException;
+import me.jongwoo.spring.testing.exception.IdempotencyKeyMismatchException;
+import me.jongwoo.spring.testing.repository.IdempotencyRecordRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key 별로 처음 처리한 응답을 보관했다가 같은 키로 다시 오면 서비스를 실행하지 않고 그대로 돌려준다.
+ * 같은 키가 처리 중이면 먼저 들어온 요청이 끝날 때까지 기다린다.
+ * persistent=true 이면 서비스를 실행하기 전에 같은 트랜잭션에서 키 행을 먼저 insert 하므로
+ * 다른 노드의 같은 키 요청은 그 행의 락에서 기다렸다가 PK 충돌로 저장된 응답을 받는다.
+ * DB 의 락 대기 시간이 먼저 끝나도 waitTimeout 까지는 다시 기다리고, 그래도 끝나지 않으면 409.
+ * 예외로 끝난 요청은 저장하지 않으므로 (키 행도 롤백) 같은 키로 다시 시도할 수 있다.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyStore {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    // 처리 중으로 저장된 키를 다시 확인하는 간격
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final Cache<String, Entry> entries;
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final long waitTimeoutMillis;
+    private final boolean persistent;
+    private final long purgeIntervalMillis;
+    private final AtomicLong lastPurgeMillis = new AtomicLong(System.currentTimeMillis());
+
+    public IdempotencyStore(IdempotencyProperties properties, IdempotencyRecordRepository recordRepository,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            PlatformTransactionManager transactionManager) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = properties.getTtl();
+        this.waitTimeoutMillis = properties.getWaitTimeout().toMillis();
+        this.persistent = properties.isPersistent();
+        this.purgeIntervalMillis = properties.getPurgeInterval().toMillis();
+    }
+
+    /**
+     * @param scope   키를 구분하는 요청 종류 (ex. "PUT /api/employees/1")
+     * @param request 요청 본문. 같은 키로 다른 본문이 오면 IdempotencyKeyMismatchException
+     */
+    public ResponseEntity<?> execute(String scope, String idempotencyKey, Object request, Supplier<ResponseEntity<?>> action) {
+        String key = scope + " " + idempotencyKey;
+        String fingerprint = fingerprint(request);
+        Entry entry = new Entry(fingerprint, new CompletableFuture<>());
+
+        Entry existing = entries.asMap().putIfAbsent(key, entry);
+        if (existing != null) {
+            return replay(existing, fingerprint);
+        }
+
+        ResponseEntity<?> response;
+        StoredResponse stored;
+        try {
+            if (persistent) {
+                Outcome outcome = executeClaimed(key, fingerprint, action);
+                if (outcome.response == null) { // 다른 노드나 재시작 전에 처리된 요청
+                    Entry found = new Entry(outcome.stored.fingerprint, CompletableFuture.completedFuture(outcome.stored));
+                    entries.put(key, found);
+                    entry.response.complete(outcome.stored); // 그 사이 기다리기 시작한 요청
+                    return replay(found, fingerprint);
+                }
+                response = outcome.response;
+                stored = outcome.stored;
+            } else {
+                response = action.get();
+                stored = toStored(fingerprint, response);
+            }
+        } catch (RuntimeException e) {
+            // 기다리던 요청도 같은 예외를 받고, 이후 같은 키는 다시 실행됨
+            entries.asMap().remove(key, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+
+        entry.response.complete(stored);
+        if (persistent) {
+            purgeExpired();
+        }
+        count("executed");
+        return response;
+    }
+
+    /**
+     * 키 행을 차지하고 같은 트랜잭션에서 서비스를 실행한 뒤 응답을 채운다.
+     * 이미 다른 요청이 처리한 키면 저장된 응답만 돌려준다 (response 가 null).
+     */
+    private Outcome executeClaimed(String key, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis);
+        boolean expiredDeleted = false;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    try {
+                        recordRepository.claim(key, fingerprint, Instant.now());
+                    } catch (DataIntegrityViolationException e) {
+                        throw new KeyTakenException(e);
+                    }
+                    ResponseEntity<?> response = action.get(); // 서비스 트랜잭션은 여기에 참여함
+                    StoredResponse stored = toStored(fingerprint, response);
+                    recordRepository.complete(key, stored.status, stored.location, stored.body);
+                    return new Outcome(response, stored);
+                });
+            } catch (PessimisticLockingFailureException e) { // 다른 노드가 키를 잡은 채 DB 락 대기 시간을 넘김. 다시 락에서 기다림
+                checkDeadline(deadline);
+            } catch (TransactionSystemException e) {
+                // 락 대기 시간 초과로 풀이 커넥션을 버리면 롤백이 실패해 원래 예외가 감싸져 옴
+                if (!(e.getApplicationException() instanceof PessimisticLockingFailureException)) {
+                    throw e;
+                }
+                checkDeadline(deadline);
+            } catch (KeyTakenException e) {
+                IdempotencyRecord record = recordRepository.findById(key).orElse(null);
+                if (record == null) { // 그 사이 지워진 키. 다시 차지해 봄
+                    checkDeadline(deadline);
+                    continue;
+                }
+                if (record.getCreatedAt().isBefore(Instant.now().minus(ttl)) && !expiredDeleted) {
+                    // 만료된 키는 지우고 한 번만 다시 차지함
+                    recordRepository.deleteExpired(key, Instant.now().minus(ttl));
+                    expiredDeleted = true;
+                    continue;
+                }
+                if (record.getStatus() == IdempotencyRecord.IN_PROGRESS) {
+                    pause(deadline);
+                    continue;
+                }
+                return new Outcome(null,
+                        new StoredResponse(record.getFingerprint(), record.getStatus(), record.getLocation(), record.getBody()));
+            }
+        }
+    }
+
+    private void checkDeadline(long deadline) {
+        if (System.nanoTime() - deadline >= 0) {
+            count("in_progress");
+            throw new IdempotencyKeyInProgressException("같은 Idempotency-Key 요청을 처리 중입니다.");
+        }
+    }
+
+    private void pause(long deadline) {
+        checkDeadline(deadline);
+        try {
+            Thread.sleep(Math.min(POLL_INTERVAL_MILLIS, Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("같은 Idempotency-Key 요청을 처리 중입니다.");
+        }
+        checkDeadline(deadline);
+    }
+
+    private ResponseEntity<?> replay(Entry entry, String fingerprint) {
+        if (!entry.fingerprint.equals(fingerprint)) {
+            count("mismatch");
+            throw new IdempotencyKeyMismatchException("같은 Idempotency-Key 로 다른 요청이 들어왔습니다.");
+        }
+        StoredResponse stored;
+        try {
+            stored = entry.response.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            count("failed");
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            count("in_progress");
+            throw new IdempotencyKeyInProgressException("같은 Idempotency-Key 요청을 처리 중입니다.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("같은 Idempotency-Key 요청을 처리 중입니다.");
+        }
+        count("replayed");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(stored.status)
+                .header(REPLAYED_HEADER, "true");
+        if (stored.location != null) {
+            response.location(URI.create(stored.location));
+        }
+        if (stored.body == null) {
+            return response.build();
+        }
+        return response.contentType(MediaType.APPLICATION_JSON).body(stored.body);
+    }
+
+    private StoredResponse toStored(String fingerprint, ResponseEntity<?> response) {
+        return new StoredResponse(fingerprint, response.getStatusCodeValue(),
+                response.getHeaders().getFirst(HttpHeaders.LOCATION), toJson(response.getBody()));
+    }
+
+    // 정리 실패는 응답에 영향을 주지 않음 (커밋 뒤에 실행)
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        long lastPurge = lastPurgeMillis.get();
+        if (now - lastPurge < purgeIntervalMillis || !lastPurgeMillis.compareAndSet(lastPurge, now)) {
+            return;
+        }
+        try {
+            recordRepository.deleteExpired(Instant.now().minus(ttl));
+        } catch (RuntimeException e) {
+            log.warn("만료된 Idempotency-Key 정리 실패", e);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("employee.idempotency.requests", "result", result).increment();
+    }
+
+    private static class Entry {
+        final String fingerprint;
+        final CompletableFuture<StoredResponse> response;
+
+        Entry(String fingerprint, CompletableFuture<StoredResponse> response) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+        }
+    }
+
+    @Value
+    private static class Outcome {
+        ResponseEntity<?> response; // 이번에 실행했으면 그 응답, 저장된 응답을 찾았으면 null
+        StoredResponse stored;
+    }
+
+    // claim 의 PK 충돌. 트랜잭션을 롤백시키고 저장된 응답을 찾으러 감
+    private static class KeyTakenException extends RuntimeException {
+        KeyTakenException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    @Value
+    private static class StoredResponse {
+        String fingerprint;
+        int status;
+        String location;
+        String body; // JSON
+    }
+}
@@ -0,0 +1,74 @@
+package me.jongwoo.spring.testing.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키로 동시에 들어온 조회를 하나로 합친다. 먼저 들어온 호출만 loader 를 실행하고, 실행 중에 들어온 호출은 그 결과를 함께 받는다.
+ * 결과는 보관하지 않으므로 (캐시가 아님) 실행이 끝난 뒤 들어온 호출은 다시 실행한다.
+ * loader 가 예외를 던지면 기다리던 호출도 같은 예외를 받고 키는 바로 비워지므로 다음 호출은 새로 실행된다.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter collapsed;
+
+    /**
+     * @param operation 메트릭 태그 (ex. findById)
+     */
+    public SingleFlight(String operation, MeterRegistry meterRegistry) {
+        this.executed = meterRegistry.counter("employee.singleflight.calls", "operation", operation, "result", "executed");
+        this.collapsed = meterRegistry.counter("employee.singleflight.calls", "operation", operation, "result", "collapsed");
+        Gauge.builder("employee.singleflight.in-flight", calls, Map::size)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, call);
+        if (inFlight != null) {
+            collapsed.increment();
+            return await(inFlight);
+        }
+
+        executed.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    // 결과를 기다리고, 실패했으면 loader 가 던진 예외를 그대로 던짐
+    static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("조회를 기다리는 중 인터럽트되었습니다.", e);
+        }
+    }
+}
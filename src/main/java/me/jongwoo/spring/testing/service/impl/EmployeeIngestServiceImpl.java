@@ -0,0 +1,223 @@
+package me.jongwoo.spring.testing.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import me.jongwoo.spring.testing.config.IngestProperties;
+import me.jongwoo.spring.testing.dto.IngestStatus;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.exception.AlreadyExistsException;
+import me.jongwoo.spring.testing.exception.IngestQueueFullException;
+import me.jongwoo.spring.testing.repository.EmployeeRepository;
+import me.jongwoo.spring.testing.service.EmployeeIngestService;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 등록 요청을 큐에 쌓고 writer 스레드 하나가 batchSize 건 또는 flushInterval 단위로 모아서 저장한다.
+ * 요청 스레드는 커넥션을 잡지 않으므로 몰려도 커넥션 풀은 writer 가 쓰는 한 개만 사용됨.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "employee.ingest", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(IngestProperties.class)
+public class EmployeeIngestServiceImpl implements EmployeeIngestService {
+
+    // 큐가 비어 있을 때 종료 여부를 확인하는 주기
+    private static final long IDLE_POLL_MILLIS = 500;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final EmployeeService employeeService;
+    private final EmployeeRepository employeeRepository;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<PendingEmployee> queue;
+    private final Cache<String, IngestStatus> statuses;
+    private final Counter queueFullCounter;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public EmployeeIngestServiceImpl(EmployeeService employeeService,
+                                     EmployeeRepository employeeRepository,
+                                     IngestProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.employeeService = employeeService;
+        this.employeeRepository = employeeRepository;
+        this.batchSize = properties.getBatchSize();
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(properties.getStatusMaxEntries())
+                .expireAfterWrite(properties.getStatusTtl())
+                .build();
+        this.queueFullCounter = meterRegistry.counter("employee.ingest.queue.full");
+        Gauge.builder("employee.ingest.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        this.writer = new Thread(this::run, "employee-ingest-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    void start() {
+        writer.start();
+    }
+
+    // 종료 시 새 요청은 받지 않고 큐에 남은 요청은 저장한 뒤 끝냄
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public IngestStatus submit(Employee employee) {
+        if (!running) {
+            throw new IngestQueueFullException("종료 중입니다.");
+        }
+        String trackingId = UUID.randomUUID().toString();
+        IngestStatus status = IngestStatus.queued(trackingId);
+        statuses.put(trackingId, status); // writer 가 먼저 처리해도 덮어쓰지 않도록 큐에 넣기 전에 저장
+        if (!queue.offer(new PendingEmployee(trackingId, employee))) {
+            statuses.invalidate(trackingId);
+            queueFullCounter.increment();
+            throw new IngestQueueFullException("등록 요청이 많습니다. 잠시 후 다시 시도해 주세요.");
+        }
+        return status;
+    }
+
+    @Override
+    public Optional<IngestStatus> getStatus(String trackingId) {
+        return Optional.ofNullable(statuses.getIfPresent(trackingId));
+    }
+
+    private void run() {
+        List<PendingEmployee> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) { // writer 스레드가 죽지 않도록 배치 단위로 실패 처리
+                log.error("직원 등록 배치 저장 실패", e);
+                batch.forEach(pending -> statuses.put(pending.getTrackingId(),
+                        IngestStatus.failed(pending.getTrackingId(), e.getMessage())));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // 첫 요청을 기다린 뒤 batchSize 가 차거나 flushInterval 이 지날 때까지 모은다
+    private void collectBatch(List<PendingEmployee> batch) throws InterruptedException {
+        PendingEmployee first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            PendingEmployee next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<PendingEmployee> batch) {
+        // 같은 배치 안의 중복은 먼저 들어온 요청만 저장
+        Map<String, PendingEmployee> byEmail = new LinkedHashMap<>();
+        for (PendingEmployee pending : batch) {
+            if (byEmail.putIfAbsent(pending.getEmployee().getEmail(), pending) != null) {
+                reject(pending, "중복된 이메일이 있습니다: " + pending.getEmployee().getEmail());
+            }
+        }
+
+        // 이미 있는 이메일은 배치 전체를 실패시키지 않도록 미리 한 번에 조회해서 해당 요청만 거절
+        Set<String> existingEmails = new HashSet<>(employeeRepository.findExistingEmails(byEmail.keySet()));
+        List<PendingEmployee> accepted = new ArrayList<>(byEmail.size());
+        for (PendingEmployee pending : byEmail.values()) {
+            if (existingEmails.contains(pending.getEmployee().getEmail())) {
+                reject(pending, "이미 존재합니다: " + pending.getEmployee().getEmail());
+            } else {
+                accepted.add(pending);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<Employee> savedEmployees;
+        try {
+            savedEmployees = employeeService.saveEmployees(accepted.stream()
+                    .map(PendingEmployee::getEmployee)
+                    .collect(Collectors.toList()));
+        } catch (AlreadyExistsException e) {
+            // 확인 이후 다른 요청이 먼저 저장한 경우 (드묾). 한 건씩 저장해서 해당 요청만 거절
+            accepted.forEach(this::writeOne);
+            return;
+        } catch (RuntimeException e) {
+            log.error("직원 등록 배치 저장 실패", e);
+            accepted.forEach(pending -> statuses.put(pending.getTrackingId(),
+                    IngestStatus.failed(pending.getTrackingId(), e.getMessage())));
+            return;
+        }
+        for (int i = 0; i < accepted.size(); i++) {
+            String trackingId = accepted.get(i).getTrackingId();
+            statuses.put(trackingId, IngestStatus.created(trackingId, savedEmployees.get(i).getId()));
+        }
+    }
+
+    private void writeOne(PendingEmployee pending) {
+        String trackingId = pending.getTrackingId();
+        Employee employee = pending.getEmployee();
+        employee.setId(0); // 실패한 배치에서 할당된 id 는 롤백되었으므로 새로 발급받음
+        try {
+            statuses.put(trackingId, IngestStatus.created(trackingId, employeeService.saveEmployee(employee).getId()));
+        } catch (AlreadyExistsException e) {
+            reject(pending, e.getMessage());
+        } catch (RuntimeException e) {
+            statuses.put(trackingId, IngestStatus.failed(trackingId, e.getMessage()));
+        }
+    }
+
+    private void reject(PendingEmployee pending, String message) {
+        statuses.put(pending.getTrackingId(), IngestStatus.rejected(pending.getTrackingId(), message));
+    }
+
+    @Value
+    private static class PendingEmployee {
+        String trackingId;
+        Employee employee;
+    }
+}
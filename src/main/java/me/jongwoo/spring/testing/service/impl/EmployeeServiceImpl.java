@@ -1,51 +1,356 @@
 package me.jongwoo.spring.testing.service.impl;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.jongwoo.spring.testing.config.BatchLoaderProperties;
+import me.jongwoo.spring.testing.config.CacheConfig;
+import me.jongwoo.spring.testing.config.ReplicaRoutingDataSource;
+import me.jongwoo.spring.testing.dto.EmployeeChangeEvent;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeStats;
 import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.entity.EmployeeChange;
 import me.jongwoo.spring.testing.exception.AlreadyExistsException;
+import me.jongwoo.spring.testing.repository.EmployeeChangeRepository;
 import me.jongwoo.spring.testing.repository.EmployeeRepository;
+import me.jongwoo.spring.testing.service.BatchLoader;
 import me.jongwoo.spring.testing.service.EmployeeService;
+import me.jongwoo.spring.testing.service.SingleFlight;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@ConditionalOnProperty(prefix = "employee.sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
+@EnableConfigurationProperties(BatchLoaderProperties.class)
 public class EmployeeServiceImpl implements EmployeeService {
 
+    static final String TIMER_NAME = "employee.service";
+
+    // 이메일/id 확인(IN 쿼리)과 flush/clear 단위. JDBC 배치 크기는 hibernate.jdbc.batch_size 로 따로 설정
+    static final int BATCH_CHUNK_SIZE = 500;
+
     private final EmployeeRepository employeeRepository;
+    private final EmployeeChangeRepository employeeChangeRepository; // 모든 쓰기는 같은 트랜잭션에서 변경 기록을 남김 (delta sync)
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher; // 변경 이벤트는 커밋 후 EmployeeChangeFeed 로 전달됨
+    private final CacheManager cacheManager; // 여러 id 를 지울 때만 직접 사용 (@CacheEvict 는 키 하나)
+    // 같은 id/email 로 동시에 들어온 조회는 쿼리 한 번으로 처리
+    private final SingleFlight<Long, Optional<EmployeeDto>> findByIdFlight;
+    private final SingleFlight<String, Optional<EmployeeDto>> findByEmailFlight;
+    private final BatchLoader<Long, EmployeeDto> findByIdLoader; // employee.batch-loader.enabled=false 이면 null
 
-    public EmployeeServiceImpl(EmployeeRepository employeeRepository) {
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository, EmployeeChangeRepository employeeChangeRepository,
+                               EntityManager entityManager, ApplicationEventPublisher eventPublisher,
+                               CacheManager cacheManager, MeterRegistry meterRegistry,
+                               BatchLoaderProperties batchLoaderProperties) {
         this.employeeRepository = employeeRepository;
+        this.employeeChangeRepository = employeeChangeRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.findByIdFlight = new SingleFlight<>("findById", meterRegistry);
+        this.findByEmailFlight = new SingleFlight<>("findByEmail", meterRegistry);
+        this.findByIdLoader = !batchLoaderProperties.isEnabled() ? null : new BatchLoader<>("findById",
+                ids -> ReplicaRoutingDataSource.readFromPrimary(() -> employeeRepository.findByIdIn(ids)).stream()
+                        .collect(Collectors.toMap(EmployeeDto::getId, Function.identity())),
+                batchLoaderProperties.getWindow(), batchLoaderProperties.getMaxBatchSize(),
+                batchLoaderProperties.getThreads(), meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (findByIdLoader != null) {
+            findByIdLoader.close();
+        }
     }
 
     @Override
+    @Timed(TIMER_NAME)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEE_CACHE, key = "#result.id") // 없는 id 로 캐시된 항목 제거
     public Employee saveEmployee(Employee employee) {
-        Optional<Employee> savedEmployee = employeeRepository.findByEmail(employee.getEmail());
+        // 조회 후 저장하지 않고 유니크 인덱스에 맡긴다 (insert 한 번, 동시 요청에도 안전)
+        Employee savedEmployee;
+        try {
+            savedEmployee = employeeRepository.save(employee); // 시퀀스라서 id 는 flush 전에 정해짐
+            stamp(savedEmployee, EmployeeChange.Type.CREATED);
+            employeeRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw translateEmailViolation(e);
+        }
+        eventPublisher.publishEvent(EmployeeChangeEvent.created(EmployeeDto.from(savedEmployee)));
+        return savedEmployee;
+    }
 
-        if (savedEmployee.isPresent()) { // 이미 DB에 존재할경우
-            throw new AlreadyExistsException("이미 존재합니다.");
+    @Override
+    @Timed(TIMER_NAME)
+    @Transactional
+    public List<Employee> saveEmployees(List<Employee> employees) {
+        Set<String> emails = new HashSet<>();
+        for (Employee employee : employees) {
+            if (!emails.add(employee.getEmail())) { // 요청 안에서 중복된 경우
+                throw new AlreadyExistsException("중복된 이메일이 있습니다: " + employee.getEmail());
+            }
         }
 
-        return employeeRepository.save(employee);
+        List<Employee> savedEmployees = new ArrayList<>(employees.size());
+        try {
+            for (int from = 0; from < employees.size(); from += BATCH_CHUNK_SIZE) {
+                List<Employee> chunk = employees.subList(from, Math.min(from + BATCH_CHUNK_SIZE, employees.size()));
+                List<String> existingEmails = employeeRepository.findExistingEmails(
+                        chunk.stream().map(Employee::getEmail).collect(Collectors.toList()));
+
+                if (!existingEmails.isEmpty()) { // 이미 DB에 존재할경우
+                    throw new AlreadyExistsException("이미 존재합니다: " + existingEmails);
+                }
+
+                List<Employee> savedChunk = employeeRepository.saveAll(chunk);
+                stamp(savedChunk, EmployeeChange.Type.CREATED);
+                savedEmployees.addAll(savedChunk);
+                employeeRepository.flush();
+                entityManager.clear();
+            }
+        } catch (DataIntegrityViolationException e) { // 확인 이후 다른 요청이 먼저 저장한 경우
+            throw translateEmailViolation(e);
+        }
+        // 없는 id 로 캐시된 항목만 제거. 캐시 전체를 비우면 다른 직원까지 다시 조회하게 됨
+        evictAfterCommit(savedEmployees.stream().map(Employee::getId).collect(Collectors.toList()));
+        savedEmployees.forEach(savedEmployee -> eventPublisher.publishEvent(EmployeeChangeEvent.created(EmployeeDto.from(savedEmployee))));
+        return savedEmployees;
+    }
+
+    @Override
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
+    public List<EmployeeDto> getAllEmployees() {
+        return employeeRepository.findAllProjectedBy();
+    }
+
+    @Override
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
+    public List<EmployeeDto> getEmployeesAfter(long afterId, int limit) {
+        return employeeRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
+    public void exportEmployees(Consumer<EmployeeDto> consumer) {
+        // DTO 라서 영속성 컨텍스트에 쌓이지 않음
+        try (Stream<EmployeeDto> employees = employeeRepository.streamAll()) {
+            employees.forEach(consumer);
+        }
+    }
+
+    // 아래 두 조회는 리포지토리의 readOnly 트랜잭션만 사용. 기다리는 호출이 트랜잭션(커넥션)을 잡고 있지 않도록 바깥에는 걸지 않음
+    // 결과가 캐시(@Cacheable, 2차/쿼리 캐시)에 들어가므로 replica 가 아닌 primary 에서 읽음. 지연된 replica 의 이전 값이 캐시되지 않도록
+    @Override
+    @Timed(TIMER_NAME)
+    @Cacheable(cacheNames = CacheConfig.EMPLOYEE_CACHE, key = "#id") // 없는 id 도 null 로 캐시됨
+    public Optional<EmployeeDto> getEmployeeById(long id) {
+        if (findByIdLoader != null) { // 다른 id 조회와 모아서 IN 쿼리 한 번으로 (2차 캐시는 거치지 않음)
+            return findByIdFlight.execute(id, () -> findByIdLoader.load(id));
+        }
+        // 프로젝션 쿼리는 2차 캐시를 거치지 않으므로 findById 로 읽어서 DTO 로 변환
+        return findByIdFlight.execute(id, () -> ReplicaRoutingDataSource.readFromPrimary(
+                () -> employeeRepository.findById(id).map(EmployeeDto::from)));
+    }
+
+    @Override
+    @Timed(TIMER_NAME)
+    public Optional<EmployeeDto> getEmployeeByEmail(String email) {
+        return findByEmailFlight.execute(email, () -> ReplicaRoutingDataSource.readFromPrimary(
+                () -> employeeRepository.findByEmail(email).map(EmployeeDto::from)));
+    }
+
+    @Override
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.EMPLOYEE_STATS_CACHE, sync = true) // 캐시가 비었을 때 동시에 들어온 요청은 한 번만 집계
+    public EmployeeStats getEmployeeStats() {
+        return EmployeeStats.of(employeeRepository.count(),
+                employeeRepository.countByEmailDomain(), employeeRepository.countByLastNameInitial());
     }
 
     @Override
-    public List<Employee> getAllEmployees() {
-        return employeeRepository.findAll();
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
+    public List<EmployeeDto> getEmployeesByIds(Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<EmployeeDto> employees = new ArrayList<>(distinctIds.size());
+        for (int from = 0; from < distinctIds.size(); from += BATCH_CHUNK_SIZE) {
+            employees.addAll(employeeRepository.findByIdIn(distinctIds.subList(from, Math.min(from + BATCH_CHUNK_SIZE, distinctIds.size()))));
+        }
+        return employees;
     }
 
     @Override
-    public Optional<Employee> getEmployeeById(long id) {
-        return employeeRepository.findById(id);
+    @Timed(TIMER_NAME)
+    @Transactional(readOnly = true)
+    public Slice<EmployeeDto> searchByName(String firstName, String lastName, int page, int size) {
+        return employeeRepository.findByLastNameAndFirstNameOrderByIdAsc(lastName, firstName, PageRequest.of(page, size));
     }
 
     @Override
+    @Timed(TIMER_NAME)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEE_CACHE, key = "#employee.id")
     public Employee updateEmployee(Employee employee) {
-        return employeeRepository.save(employee);
+        Employee updatedEmployee;
+        try {
+            updatedEmployee = employeeRepository.save(employee);
+            stamp(updatedEmployee, EmployeeChange.Type.UPDATED);
+            employeeRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw translateEmailViolation(e);
+        }
+        eventPublisher.publishEvent(EmployeeChangeEvent.updated(EmployeeDto.from(updatedEmployee)));
+        return updatedEmployee;
     }
 
     @Override
-    public void deleteById(long id) {
-        employeeRepository.deleteById(id);
+    @Timed(TIMER_NAME)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEE_CACHE, key = "#id")
+    public boolean patchEmployee(long id, Employee employee) {
+        boolean updated;
+        try {
+            // version 만 먼저 받고 변경 기록은 실제로 바뀐 행이 있을 때만 남김 (없는 id 면 update 한 번으로 끝)
+            long version = employeeChangeRepository.nextVersion();
+            Instant changedAt = Instant.now();
+            updated = employeeRepository.updatePartially(id,
+                    employee.getFirstName(), employee.getLastName(), employee.getEmail(),
+                    version, changedAt) > 0;
+            if (updated) {
+                employeeChangeRepository.insertChange(version, id, EmployeeChange.Type.UPDATED, changedAt);
+            }
+        } catch (DataIntegrityViolationException e) {
+            throw translateEmailViolation(e);
+        }
+        if (updated) { // 변경 후 상태를 다시 읽지 않으므로 id 만 발행
+            eventPublisher.publishEvent(EmployeeChangeEvent.updated(id));
+        }
+        return updated;
+    }
+
+    @Override
+    @Timed(TIMER_NAME)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEE_CACHE, key = "#id")
+    public boolean deleteById(long id) {
+        boolean deleted = employeeRepository.deleteEmployeeById(id) > 0;
+        if (deleted) {
+            recordChange(id, EmployeeChange.Type.DELETED);
+            eventPublisher.publishEvent(EmployeeChangeEvent.deleted(id));
+        }
+        return deleted;
+    }
+
+    @Override
+    @Timed(TIMER_NAME)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEE_CACHE, allEntries = true)
+    public int deleteByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = 0;
+        Instant now = Instant.now();
+        for (int from = 0; from < ids.size(); from += BATCH_CHUNK_SIZE) {
+            // tombstone 은 실제로 지워진 id 만 남겨야 하므로 존재하는 id 를 먼저 확인
+            List<Long> existingIds = employeeRepository.findExistingIds(ids.subList(from, Math.min(from + BATCH_CHUNK_SIZE, ids.size())));
+            if (existingIds.isEmpty()) {
+                continue;
+            }
+            deleted += employeeRepository.deleteEmployeesByIds(existingIds);
+            employeeChangeRepository.saveAll(existingIds.stream()
+                    .map(id -> new EmployeeChange(id, EmployeeChange.Type.DELETED, now))
+                    .collect(Collectors.toList()));
+            existingIds.forEach(id -> eventPublisher.publishEvent(EmployeeChangeEvent.deleted(id)));
+        }
+        return deleted;
+    }
+
+    // @CacheEvict 와 같이 커밋 뒤에 지움. 커밋 전에 지우면 그 사이 조회가 없는 값(null)을 다시 캐시할 수 있음
+    private void evictAfterCommit(List<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.EMPLOYEE_CACHE);
+        if (cache == null || ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ids.forEach(cache::evict);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(cache::evict);
+            }
+        });
+    }
+
+    private EmployeeChange recordChange(long employeeId, EmployeeChange.Type type) {
+        return employeeChangeRepository.save(new EmployeeChange(employeeId, type, Instant.now()));
+    }
+
+    // 영속 상태의 엔티티에 version 을 기록. insert/update 는 flush 때 함께 나감
+    private void stamp(Employee employee, EmployeeChange.Type type) {
+        EmployeeChange change = recordChange(employee.getId(), type);
+        employee.setRowVersion(change.getId());
+        employee.setUpdatedAt(change.getChangedAt());
+    }
+
+    // 여러 건을 한 번에 기록. 변경 기록도 employees 와 같이 JDBC 배치로 insert 됨
+    private void stamp(List<Employee> employees, EmployeeChange.Type type) {
+        Instant now = Instant.now();
+        List<EmployeeChange> changes = employeeChangeRepository.saveAll(employees.stream()
+                .map(employee -> new EmployeeChange(employee.getId(), type, now))
+                .collect(Collectors.toList()));
+        for (int i = 0; i < employees.size(); i++) {
+            employees.get(i).setRowVersion(changes.get(i).getId());
+            employees.get(i).setUpdatedAt(now);
+        }
+    }
+
+    private static RuntimeException translateEmailViolation(DataIntegrityViolationException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof ConstraintViolationException) {
+            String constraintName = ((ConstraintViolationException) cause).getConstraintName();
+            // 제약조건 이름은 DB 마다 스키마/인덱스 접미사가 붙어서 나옴 (ex. PUBLIC.UK_EMPLOYEES_EMAIL_INDEX_A)
+            if (constraintName != null && constraintName.toLowerCase().contains(Employee.EMAIL_UNIQUE_CONSTRAINT)) {
+                return new AlreadyExistsException("이미 존재합니다.", e);
+            }
+        }
+        return e;
     }
 }
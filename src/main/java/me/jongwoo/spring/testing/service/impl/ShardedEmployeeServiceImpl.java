@@ -0,0 +1,332 @@
+package me.jongwoo.spring.testing.service.impl;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.jongwoo.spring.testing.config.CacheConfig;
+import me.jongwoo.spring.testing.config.ShardingProperties;
+import me.jongwoo.spring.testing.dto.EmployeeChangeEvent;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeStats;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.exception.AlreadyExistsException;
+import me.jongwoo.spring.testing.exception.EmployeeNotFoundException;
+import me.jongwoo.spring.testing.repository.EmployeeShard;
+import me.jongwoo.spring.testing.repository.ShardedEmployeeRepository;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import me.jongwoo.spring.testing.service.SingleFlight;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * email 해시로 나눈 샤드에 저장하는 EmployeeService. id/email 조회는 샤드 하나로 보내고 목록 조회는 모든 샤드에 병렬로 보낸 뒤 id 순으로 합친다.
+ * 샤드 간 트랜잭션은 없으므로 saveEmployees/deleteByIds 는 샤드 단위로만 원자적이다.
+ * 이메일 변경으로 샤드가 바뀌면 두 샤드의 트랜잭션을 함께 열고 같은 id 로 행을 옮긴다 (ShardedEmployeeRepository.move).
+ * 변경 이벤트는 샤드에 반영된 직후 발행한다 (Spring 트랜잭션이 없으므로 구독자에게 바로 전달됨).
+ */
+@Service
+@ConditionalOnProperty(prefix = "employee.sharding", name = "enabled", havingValue = "true")
+public class ShardedEmployeeServiceImpl implements EmployeeService {
+
+    // export 시 한 번에 각 샤드에서 읽는 건수
+    static final int EXPORT_PAGE_SIZE = 1000;
+
+    private final ShardedEmployeeRepository shardedEmployeeRepository;
+    private final ExecutorService executor;
+    private final SingleFlight<Long, Optional<EmployeeDto>> findByIdFlight;
+    private final SingleFlight<String, Optional<EmployeeDto>> findByEmailFlight;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager; // 여러 id 를 지울 때만 직접 사용 (@CacheEvict 는 키 하나)
+
+    public ShardedEmployeeServiceImpl(ShardedEmployeeRepository shardedEmployeeRepository, ShardingProperties properties,
+                                      MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher,
+                                      CacheManager cacheManager) {
+        this.shardedEmployeeRepository = shardedEmployeeRepository;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.executor = Executors.newFixedThreadPool(properties.getQueryThreads());
+        this.findByIdFlight = new SingleFlight<>("findById", meterRegistry);
+        this.findByEmailFlight = new SingleFlight<>("findByEmail", meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEE_CACHE, key = "#result.id")
+    public Employee saveEmployee(Employee employee) {
+        try {
+            shardedEmployeeRepository.shardForEmail(employee.getEmail()).insert(List.of(employee));
+        } catch (DuplicateKeyException e) {
+            throw new AlreadyExistsException("이미 존재합니다.", e);
+        }
+        eventPublisher.publishEvent(EmployeeChangeEvent.created(EmployeeDto.from(employee)));
+        return employee;
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public List<Employee> saveEmployees(List<Employee> employees) {
+        Set<String> emails = new HashSet<>();
+        for (Employee employee : employees) {
+            if (!emails.add(employee.getEmail())) { // 요청 안에서 중복된 경우
+                throw new AlreadyExistsException("중복된 이메일이 있습니다: " + employee.getEmail());
+            }
+        }
+
+        Map<EmployeeShard, List<Employee>> byShard = new LinkedHashMap<>();
+        for (Employee employee : employees) {
+            byShard.computeIfAbsent(shardedEmployeeRepository.shardForEmail(employee.getEmail()), shard -> new ArrayList<>())
+                    .add(employee);
+        }
+
+        // 모든 샤드에서 중복을 먼저 확인한 뒤 저장 (저장 도중 실패하면 먼저 끝난 샤드는 롤백되지 않음)
+        List<String> existingEmails = gather(new ArrayList<>(byShard.keySet()), shard -> shard.findExistingEmails(
+                byShard.get(shard).stream().map(Employee::getEmail).collect(Collectors.toList())));
+        if (!existingEmails.isEmpty()) { // 이미 DB에 존재할경우
+            throw new AlreadyExistsException("이미 존재합니다: " + existingEmails);
+        }
+
+        try {
+            gather(new ArrayList<>(byShard.keySet()), shard -> {
+                shard.insert(byShard.get(shard));
+                return List.of();
+            });
+        } catch (DuplicateKeyException e) { // 확인 이후 다른 요청이 먼저 저장한 경우
+            throw new AlreadyExistsException("이미 존재합니다.", e);
+        }
+        // 이미 커밋되었으므로 바로 지움. 없는 id 로 캐시된 항목만 제거하고 다른 직원 캐시는 유지
+        Cache cache = cacheManager.getCache(CacheConfig.EMPLOYEE_CACHE);
+        if (cache != null) {
+            employees.forEach(employee -> cache.evict(employee.getId()));
+        }
+        employees.forEach(employee -> eventPublisher.publishEvent(EmployeeChangeEvent.created(EmployeeDto.from(employee))));
+        return employees;
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public List<EmployeeDto> getAllEmployees() {
+        return mergeById(gather(shardedEmployeeRepository.getShards(), EmployeeShard::findAll));
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public List<EmployeeDto> getEmployeesAfter(long afterId, int limit) {
+        // 각 샤드에서 limit 건씩 읽으면 합친 결과의 앞 limit 건은 항상 정확함
+        List<EmployeeDto> employees = mergeById(gather(shardedEmployeeRepository.getShards(),
+                shard -> shard.findAfter(afterId, limit)));
+        return employees.size() > limit ? employees.subList(0, limit) : employees;
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public void exportEmployees(Consumer<EmployeeDto> consumer) {
+        // 전체를 메모리에 모으지 않도록 keyset 페이지 단위로 모든 샤드를 읽음
+        long after = 0;
+        while (true) {
+            List<EmployeeDto> page = getEmployeesAfter(after, EXPORT_PAGE_SIZE);
+            page.forEach(consumer);
+            if (page.size() < EXPORT_PAGE_SIZE) {
+                return;
+            }
+            after = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    @Cacheable(cacheNames = CacheConfig.EMPLOYEE_CACHE, key = "#id") // 없는 id 도 null 로 캐시됨
+    public Optional<EmployeeDto> getEmployeeById(long id) {
+        return findByIdFlight.execute(id, () -> {
+            // 대부분 id 의 샤드에 있으므로 없을 때만 옮겨 간 위치를 확인
+            Optional<EmployeeDto> employee = shardedEmployeeRepository.shardForId(id).findById(id);
+            return employee.isPresent() ? employee : shardedEmployeeRepository.locate(id).findById(id);
+        });
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public Optional<EmployeeDto> getEmployeeByEmail(String email) {
+        return findByEmailFlight.execute(email, () -> shardedEmployeeRepository.shardForEmail(email).findByEmail(email));
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    @Cacheable(cacheNames = CacheConfig.EMPLOYEE_STATS_CACHE, sync = true)
+    public EmployeeStats getEmployeeStats() {
+        List<EmployeeShard> shards = shardedEmployeeRepository.getShards();
+        long total = gather(shards, shard -> List.of(shard.count())).stream().mapToLong(Long::longValue).sum();
+        return EmployeeStats.of(total, gather(shards, EmployeeShard::countByEmailDomain),
+                gather(shards, EmployeeShard::countByLastNameInitial));
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public List<EmployeeDto> getEmployeesByIds(Collection<Long> ids) {
+        Map<EmployeeShard, List<Long>> byShard = shardedEmployeeRepository.locateAll(ids);
+        return gather(new ArrayList<>(byShard.keySet()), shard -> {
+            List<Long> shardIds = byShard.get(shard);
+            List<EmployeeDto> employees = new ArrayList<>(shardIds.size());
+            for (int from = 0; from < shardIds.size(); from += EmployeeServiceImpl.BATCH_CHUNK_SIZE) {
+                employees.addAll(shard.findByIds(shardIds.subList(from, Math.min(from + EmployeeServiceImpl.BATCH_CHUNK_SIZE, shardIds.size()))));
+            }
+            return employees;
+        });
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public Slice<EmployeeDto> searchByName(String firstName, String lastName, int page, int size) {
+        // 앞 페이지를 건너뛰려면 각 샤드에서 (page + 1) * size 건과 다음 페이지 확인용 1건이 필요함.
+        // int 를 넘는 깊이는 한 샤드에서 읽을 수도 없으므로 ArithmeticException 으로 거절 (컨트롤러는 MAX_SEARCH_PAGE 로 막음)
+        int limit = Math.toIntExact(((long) page + 1) * size + 1);
+        List<EmployeeDto> employees = mergeById(gather(shardedEmployeeRepository.getShards(),
+                shard -> shard.findByName(lastName, firstName, limit)));
+        int from = Math.min(page * size, employees.size()); // limit 안이므로 넘치지 않음
+        int to = Math.min(from + size, employees.size());
+        return new SliceImpl<>(new ArrayList<>(employees.subList(from, to)), PageRequest.of(page, size), employees.size() > to);
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEE_CACHE, key = "#employee.id")
+    public Employee updateEmployee(Employee employee) {
+        long id = employee.getId();
+        EmployeeShard shard = shardedEmployeeRepository.locate(id);
+        EmployeeShard target = targetShard(shard, employee.getEmail());
+        boolean updated;
+        try {
+            if (target == shard) {
+                updated = shard.update(id, employee.getFirstName(), employee.getLastName(), employee.getEmail()) > 0;
+            } else {
+                updated = shardedEmployeeRepository.move(id, shard, target, current -> new EmployeeDto(
+                        id, employee.getFirstName(), employee.getLastName(), employee.getEmail())).isPresent();
+            }
+        } catch (DuplicateKeyException e) {
+            throw new AlreadyExistsException("이미 존재합니다.", e);
+        }
+        if (!updated) { // 조회한 뒤 다른 요청이 삭제한 경우
+            throw new EmployeeNotFoundException("존재하지 않습니다: " + id);
+        }
+        eventPublisher.publishEvent(EmployeeChangeEvent.updated(EmployeeDto.from(employee)));
+        return employee;
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEE_CACHE, key = "#id")
+    public boolean patchEmployee(long id, Employee employee) {
+        EmployeeShard shard = shardedEmployeeRepository.locate(id);
+        EmployeeShard target = targetShard(shard, employee.getEmail());
+        boolean updated;
+        try {
+            if (target == shard) {
+                updated = shard.updatePartially(id, employee.getFirstName(), employee.getLastName(), employee.getEmail()) > 0;
+            } else {
+                // null 인 값은 기존 값을 유지 (updatePartially 와 같음)
+                updated = shardedEmployeeRepository.move(id, shard, target, current -> new EmployeeDto(id,
+                        Optional.ofNullable(employee.getFirstName()).orElse(current.getFirstName()),
+                        Optional.ofNullable(employee.getLastName()).orElse(current.getLastName()),
+                        employee.getEmail())).isPresent();
+            }
+        } catch (DuplicateKeyException e) {
+            throw new AlreadyExistsException("이미 존재합니다.", e);
+        }
+        if (updated) {
+            eventPublisher.publishEvent(EmployeeChangeEvent.updated(id));
+        }
+        return updated;
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEE_CACHE, key = "#id")
+    public boolean deleteById(long id) {
+        EmployeeShard shard = shardedEmployeeRepository.locate(id);
+        boolean deleted = shard.deleteById(id) > 0;
+        if (deleted && shard != shardedEmployeeRepository.shardForId(id)) { // 옮겨 간 행이면 위치도 지움
+            shardedEmployeeRepository.shardForId(id).deleteLocations(List.of(id));
+        }
+        if (deleted) {
+            eventPublisher.publishEvent(EmployeeChangeEvent.deleted(id));
+        }
+        return deleted;
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEE_CACHE, allEntries = true)
+    public int deleteByIds(List<Long> ids) {
+        Map<EmployeeShard, List<Long>> byShard = shardedEmployeeRepository.locateAll(ids);
+        List<Long> deletedIds = gather(new ArrayList<>(byShard.keySet()), shard -> shard.deleteByIds(byShard.get(shard)));
+        Set<Long> movedIds = new HashSet<>();
+        byShard.forEach((shard, shardIds) -> shardIds.stream()
+                .filter(id -> shard != shardedEmployeeRepository.shardForId(id))
+                .forEach(movedIds::add));
+        deletedIds.stream()
+                .filter(movedIds::contains) // 옮겨 간 행이면 위치도 지움
+                .collect(Collectors.groupingBy(shardedEmployeeRepository::shardForId))
+                .forEach(EmployeeShard::deleteLocations);
+        deletedIds.forEach(id -> eventPublisher.publishEvent(EmployeeChangeEvent.deleted(id)));
+        return deletedIds.size();
+    }
+
+    // 변경 후 행이 있어야 할 샤드. 이메일을 바꾸지 않으면 지금 샤드 그대로
+    private EmployeeShard targetShard(EmployeeShard shard, String email) {
+        return email == null ? shard : shardedEmployeeRepository.shardForEmail(email);
+    }
+
+    // 샤드별 조회를 병렬로 실행하고 결과를 하나로 합침. 하나라도 실패하면 그 예외를 그대로 던짐
+    private <T> List<T> gather(List<EmployeeShard> shards, Function<EmployeeShard, List<T>> query) {
+        List<CompletableFuture<List<T>>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), executor))
+                .collect(Collectors.toList());
+        List<T> results = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<T>> future : futures) {
+                results.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private static List<EmployeeDto> mergeById(List<EmployeeDto> employees) {
+        employees.sort(Comparator.comparingLong(EmployeeDto::getId));
+        return employees;
+    }
+}
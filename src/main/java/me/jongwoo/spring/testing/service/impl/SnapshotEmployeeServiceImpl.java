@@ -0,0 +1,305 @@
+package me.jongwoo.spring.testing.service.impl;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import me.jongwoo.spring.testing.config.SnapshotProperties;
+import me.jongwoo.spring.testing.dto.EmployeeChangeEvent;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeStats;
+import me.jongwoo.spring.testing.dto.EmployeeSyncPage;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.repository.EmployeeRepository;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import me.jongwoo.spring.testing.service.EmployeeSnapshot;
+import me.jongwoo.spring.testing.service.EmployeeSyncService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 조회는 메모리 사본(EmployeeSnapshot)에서, 쓰기와 나머지는 EmployeeServiceImpl 에 맡긴다.
+ * 사본은 delta sync(EmployeeSyncService)로 채우고, 이 노드의 변경은 트랜잭션별로 id 를 모아 커밋 후 한 번에 다시 읽어 반영한다.
+ * 다른 노드의 변경은 refreshInterval 마다 반영되며 /sync 와 같은 한계 (늦게 커밋된 긴 트랜잭션은 놓칠 수 있음) 가 있다.
+ */
+@Slf4j
+@Primary
+@Service
+@ConditionalOnExpression("${employee.snapshot.enabled:false} and !${employee.sharding.enabled:false}")
+@EnableConfigurationProperties(SnapshotProperties.class)
+public class SnapshotEmployeeServiceImpl implements EmployeeService {
+
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+    private static final long SUPERSEDED = -1;
+
+    private final EmployeeServiceImpl delegate;
+    private final EmployeeSyncService employeeSyncService;
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeSnapshot snapshot = new EmployeeSnapshot();
+    private final int pageSize;
+    private final long refreshIntervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean loaded; // 처음 전체를 다 읽기 전에는 DB 에서 조회
+    private long token; // guarded by this
+
+    // DB 읽기 순번. 커밋 후 다시 읽는 중인 id → 가장 늦게 시작한 읽기의 순번 (SUPERSEDED 면 refresh 가 더 최근 값을 반영함)
+    private final AtomicLong readTickets = new AtomicLong();
+    private final Map<Long, Long> readingIds = new ConcurrentHashMap<>();
+
+    public SnapshotEmployeeServiceImpl(EmployeeServiceImpl delegate, EmployeeSyncService employeeSyncService,
+                                       EmployeeRepository employeeRepository, SnapshotProperties properties,
+                                       MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.employeeSyncService = employeeSyncService;
+        this.employeeRepository = employeeRepository;
+        this.pageSize = properties.getPageSize();
+        this.refreshIntervalMillis = properties.getRefreshInterval().toMillis();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "employee-snapshot-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("employee.snapshot.size", snapshot, EmployeeSnapshot::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // 마지막 token 이후 변경분을 모두 읽어 반영. 페이지 단위로 잠그므로 커밋 이벤트는 한 페이지 이상 기다리지 않음
+    void refresh() {
+        try {
+            boolean hasMore = true;
+            while (hasMore) {
+                synchronized (this) {
+                    long ticket = readTickets.incrementAndGet();
+                    EmployeeSyncPage page = employeeSyncService.getChangesSince(token, pageSize);
+                    for (EmployeeDto employee : page.getEmployees()) {
+                        snapshot.put(employee);
+                        // 이보다 먼저 시작한 커밋 후 읽기는 더 오래된 값일 수 있으므로 반영하지 않게 함
+                        readingIds.computeIfPresent(employee.getId(), (key, reading) -> reading < ticket ? SUPERSEDED : reading);
+                    }
+                    for (Long id : page.getDeletedIds()) {
+                        snapshot.remove(id);
+                        readingIds.computeIfPresent(id, (key, reading) -> reading < ticket ? SUPERSEDED : reading);
+                    }
+                    token = Long.parseLong(page.getToken());
+                    hasMore = page.isHasMore();
+                }
+            }
+            if (!loaded) {
+                snapshot.trimToSize();
+                log.info("employee snapshot loaded: {} rows", snapshot.size());
+                loaded = true;
+            }
+        } catch (RuntimeException e) { // 다음 주기에 이어서 시도
+            log.warn("employee snapshot refresh failed", e);
+        }
+    }
+
+    // 같은 트랜잭션의 변경은 모아 두었다가 커밋 후 한 번에 다시 읽음. 트랜잭션 밖이면 바로 반영
+    @EventListener
+    public void onChange(EmployeeChangeEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Map.of(event.getEmployeeId(), event.getType()));
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.put(event.getEmployeeId(), event.getType());
+    }
+
+    // 커밋 순서와 이벤트 순서가 다를 수 있으므로 이벤트의 값 대신 DB 의 현재 값을 다시 읽음.
+    // DB 는 잠그지 않고 읽고, 읽기 전에 받은 순번보다 늦게 시작한 읽기 (다른 커밋, refresh) 가 있는 id 는 덮어쓰지 않음
+    void apply(Map<Long, EmployeeChangeEvent.Type> changes) {
+        long ticket = readTickets.incrementAndGet();
+        List<Long> ids = new ArrayList<>();
+        changes.forEach((id, type) -> {
+            if (type != EmployeeChangeEvent.Type.DELETED) { // 삭제된 id 는 다시 읽지 않음
+                ids.add(id);
+                readingIds.merge(id, ticket, Math::max);
+            }
+        });
+        try {
+            Map<Long, EmployeeDto> found = new HashMap<>();
+            for (int from = 0; from < ids.size(); from += EmployeeServiceImpl.BATCH_CHUNK_SIZE) {
+                employeeRepository.findByIdIn(ids.subList(from, Math.min(from + EmployeeServiceImpl.BATCH_CHUNK_SIZE, ids.size())))
+                        .forEach(employee -> found.put(employee.getId(), employee));
+            }
+            synchronized (this) {
+                changes.forEach((id, type) -> {
+                    if (type == EmployeeChangeEvent.Type.DELETED) {
+                        snapshot.remove(id);
+                    } else if (readingIds.remove(id, ticket)) {
+                        EmployeeDto employee = found.get(id);
+                        if (employee == null) {
+                            snapshot.remove(id);
+                        } else {
+                            snapshot.put(employee);
+                        }
+                    }
+                });
+            }
+        } finally {
+            for (Long id : ids) { // 읽기에 실패하거나 refresh 에 밀려도 표시는 남기지 않음
+                readingIds.remove(id, ticket);
+                readingIds.remove(id, SUPERSEDED);
+            }
+        }
+    }
+
+    /**
+     * 한 트랜잭션에서 발행된 변경 (id 별 마지막 종류). 커밋되면 반영하고 롤백되면 버린다.
+     */
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final Map<Long, EmployeeChangeEvent.Type> changes = new LinkedHashMap<>();
+
+        @Override
+        public void afterCommit() {
+            try {
+                apply(changes);
+            } catch (RuntimeException e) { // 이미 커밋됐으므로 호출한 쪽에 넘기지 않음. 다음 refresh 에서 반영됨
+                log.warn("employee snapshot update after commit failed", e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SnapshotEmployeeServiceImpl.this);
+        }
+    }
+
+    @Override
+    public Employee saveEmployee(Employee employee) {
+        return delegate.saveEmployee(employee);
+    }
+
+    @Override
+    public List<Employee> saveEmployees(List<Employee> employees) {
+        return delegate.saveEmployees(employees);
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public List<EmployeeDto> getAllEmployees() {
+        return loaded ? snapshot.findAfter(0, Integer.MAX_VALUE) : delegate.getAllEmployees();
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public List<EmployeeDto> getEmployeesAfter(long afterId, int limit) {
+        return loaded ? snapshot.findAfter(afterId, limit) : delegate.getEmployeesAfter(afterId, limit);
+    }
+
+    // 한 번에 잠그지 않도록 나눠서 읽음 (느린 consumer 가 사본 갱신을 막지 않음)
+    @Override
+    public void exportEmployees(Consumer<EmployeeDto> consumer) {
+        if (!loaded) {
+            delegate.exportEmployees(consumer);
+            return;
+        }
+        long afterId = 0;
+        List<EmployeeDto> chunk;
+        do {
+            chunk = snapshot.findAfter(afterId, EXPORT_CHUNK_SIZE);
+            chunk.forEach(consumer);
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == EXPORT_CHUNK_SIZE);
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public Optional<EmployeeDto> getEmployeeById(long id) {
+        return loaded ? snapshot.findById(id) : delegate.getEmployeeById(id);
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public Optional<EmployeeDto> getEmployeeByEmail(String email) {
+        return loaded ? snapshot.findByEmail(email) : delegate.getEmployeeByEmail(email);
+    }
+
+    @Override
+    @Timed(EmployeeServiceImpl.TIMER_NAME)
+    public List<EmployeeDto> getEmployeesByIds(Collection<Long> ids) {
+        if (!loaded) {
+            return delegate.getEmployeesByIds(ids);
+        }
+        List<EmployeeDto> employees = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            snapshot.findById(id).ifPresent(employees::add);
+        }
+        return employees;
+    }
+
+    @Override
+    public EmployeeStats getEmployeeStats() {
+        return delegate.getEmployeeStats();
+    }
+
+    @Override
+    public Slice<EmployeeDto> searchByName(String firstName, String lastName, int page, int size) {
+        return delegate.searchByName(firstName, lastName, page, size);
+    }
+
+    @Override
+    public Employee updateEmployee(Employee employee) {
+        return delegate.updateEmployee(employee);
+    }
+
+    @Override
+    public boolean patchEmployee(long id, Employee employee) {
+        return delegate.patchEmployee(id, employee);
+    }
+
+    @Override
+    public boolean deleteById(long id) {
+        return delegate.deleteById(id);
+    }
+
+    @Override
+    public int deleteByIds(List<Long> ids) {
+        return delegate.deleteByIds(ids);
+    }
+}
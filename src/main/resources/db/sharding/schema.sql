@@ -0,0 +1,25 @@
+-- 로컬/인메모리(H2) 샤드용 스키마. 운영 샤드는 별도로 생성할 것
+create table if not exists employees (
+    id bigint not null primary key,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    email varchar(255) not null,
+    constraint uk_employees_email unique (email)
+);
+
+create index if not exists idx_employees_last_first on employees (last_name, first_name);
+
+-- 이메일 변경으로 id 의 샤드(id % 샤드 수)를 떠난 행이 지금 있는 샤드. id 의 샤드에만 저장함
+create table if not exists employee_locations (
+    id bigint not null primary key,
+    shard int not null
+);
+
+-- 샤드 안에서만 증가하는 로컬 id. 전체 id 는 로컬 id * 샤드 수 + 샤드 번호
+create table if not exists employee_id_blocks (
+    id int not null primary key,
+    next_val bigint not null
+);
+
+insert into employee_id_blocks (id, next_val)
+select 1, 1 from dual where not exists (select 1 from employee_id_blocks where id = 1);
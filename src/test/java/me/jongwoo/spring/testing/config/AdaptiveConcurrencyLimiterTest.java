@@ -0,0 +1,93 @@
+package me.jongwoo.spring.testing.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitProperties.Limit properties = new ConcurrencyLimitProperties.Limit();
+        properties.setInitialLimit(4);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(5);
+        properties.setLatencyThreshold(Duration.ofMillis(100));
+        limiter = new AdaptiveConcurrencyLimiter(properties, 0.5);
+    }
+
+    @DisplayName("JUnit test for tryAcquire over the limit")
+    @Test
+    void givenLimitReached_whenTryAcquire_thenReturnFalse(){
+        //given - precondition ro setup
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+
+        //when - action or the behaviour that we are going test
+        boolean acquired = limiter.tryAcquire();
+
+        //then - verify the output
+        assertThat(acquired).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(4);
+    }
+
+    @DisplayName("JUnit test for release with fast responses under load")
+    @Test
+    void givenFastResponsesUnderLoad_whenRelease_thenIncreaseLimitUpToMax(){
+        //given - precondition ro setup
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+
+        //when - action or the behaviour that we are going test
+        for (int i = 0; i < 4; i++) {
+            limiter.release(FAST, false);
+        }
+
+        //then - verify the output
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @DisplayName("JUnit test for release with fast responses while idle")
+    @Test
+    void givenFastResponsesWhileIdle_whenRelease_thenKeepLimit(){
+        //given - precondition ro setup
+        limiter.tryAcquire();
+
+        //when - action or the behaviour that we are going test
+        limiter.release(FAST, false);
+
+        //then - verify the output
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @DisplayName("JUnit test for release with slow or failed responses")
+    @Test
+    void givenSlowOrFailedResponses_whenRelease_thenDecreaseLimitDownToMin(){
+        //given - precondition ro setup
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        //when - action or the behaviour that we are going test
+        limiter.release(SLOW, false);
+        int afterSlow = limiter.getLimit();
+        limiter.release(FAST, true);
+        limiter.release(SLOW, true);
+
+        //then - verify the output
+        assertThat(afterSlow).isEqualTo(2);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,104 @@
+package me.jongwoo.spring.testing.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.getRead().setInitialLimit(1);
+        properties.getRead().setMinLimit(1);
+        properties.getWrite().setInitialLimit(1);
+        properties.getWrite().setMinLimit(1);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(properties, meterRegistry);
+    }
+
+    @DisplayName("JUnit test for concurrency limit filter over the read limit")
+    @Test
+    void givenReadLimitReached_whenFilter_thenReturn503AndKeepWrites() throws Exception {
+        //given - precondition ro setup
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> inFlight = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/employees"), new MockHttpServletResponse(),
+                        new MockFilterChain(new HttpServlet() {
+                            @Override
+                            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                                entered.countDown();
+                                try {
+                                    release.await(5, TimeUnit.SECONDS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            }
+                        }));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        entered.await(5, TimeUnit.SECONDS);
+
+        //when - action or the behaviour that we are going test
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), rejected, new MockFilterChain());
+        MockHttpServletResponse write = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/employees"), write, new MockFilterChain());
+        release.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+
+        //then - verify the output
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(write.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.counter("employee.concurrency.rejected", "type", "read").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("employee.concurrency.in-flight").tag("type", "read").gauge().value()).isZero();
+    }
+
+    @DisplayName("JUnit test for concurrency limit filter with async request")
+    @Test
+    void givenAsyncRequest_whenFilter_thenKeepSlotUntilComplete() throws Exception {
+        //given - precondition ro setup
+        MockHttpServletRequest stream = new MockHttpServletRequest("GET", "/api/employees/changes");
+        stream.setAsyncSupported(true);
+        filter.doFilter(stream, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                req.startAsync(); // SSE 처럼 요청 스레드를 놓고 계속 응답
+            }
+        }));
+        MockHttpServletResponse whileStreaming = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), whileStreaming, new MockFilterChain());
+
+        //when - action or the behaviour that we are going test
+        stream.getAsyncContext().complete();
+        MockHttpServletResponse afterComplete = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), afterComplete, new MockFilterChain());
+
+        //then - verify the output
+        assertThat(whileStreaming.getStatus()).isEqualTo(503);
+        assertThat(afterComplete.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("employee.concurrency.in-flight").tag("type", "read").gauge().value()).isZero();
+    }
+}
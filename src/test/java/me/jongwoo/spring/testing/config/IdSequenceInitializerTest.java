@@ -0,0 +1,78 @@
+package me.jongwoo.spring.testing.config;
+
+import org.hibernate.dialect.H2Dialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdSequenceInitializerTest {
+
+    private Connection connection;
+    private IdSequenceInitializer initializer;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:id-sequence", "sa", "");
+        execute("create table employees (id bigint not null primary key)");
+        execute("create sequence employees_seq start with 1 increment by 50"); // ddl-auto 가 만드는 것과 같음
+        initializer = new IdSequenceInitializer(List.of(
+                new IdSequenceInitializer.IdSequence("employees", "id", "employees_seq", 50)));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @DisplayName("JUnit test for align with rows inserted before the sequence")
+    @Test
+    void givenExistingRows_whenAlign_thenSequenceStartsAfterMaxId() throws SQLException {
+        //given - precondition ro setup
+        execute("insert into employees (id) values (1), (120)");
+
+        //when - action or the behaviour that we are going test
+        initializer.align(connection, new H2Dialect());
+
+        //then - verify the output
+        long next = nextValue();
+        assertThat(next - 50 + 1).isGreaterThan(120); // pooled 최적화가 발급하는 첫 id
+    }
+
+    @DisplayName("JUnit test for align with sequence already after rows")
+    @Test
+    void givenSequenceAfterRows_whenAlign_thenKeepSequence() throws SQLException {
+        //given - precondition ro setup
+        execute("insert into employees (id) values (120)");
+        execute("alter sequence employees_seq restart with 1000");
+
+        //when - action or the behaviour that we are going test
+        initializer.align(connection, new H2Dialect());
+
+        //then - verify the output
+        assertThat(nextValue()).isEqualTo(1050); // 확인하면서 읽은 1000 다음 값
+    }
+
+    private long nextValue() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select next value for employees_seq")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package me.jongwoo.spring.testing.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica0;
+
+    @Mock
+    private DataSource replica1;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replica0Connection;
+
+    @Mock
+    private Connection replica1Connection;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica0, replica1), Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @DisplayName("JUnit test for getConnection outside read only transaction")
+    @Test
+    void givenReadWriteTransaction_whenGetConnection_thenReturnPrimaryConnection() throws SQLException {
+        //given - precondition ro setup
+        given(primary.getConnection()).willReturn(primaryConnection);
+
+        //when - action or the behaviour that we are going test
+        Connection connection = routingDataSource.getConnection();
+
+        //then - verify the output
+        assertThat(connection).isSameAs(primaryConnection);
+        verifyNoInteractions(replica0, replica1);
+    }
+
+    @DisplayName("JUnit test for getConnection in read only transaction")
+    @Test
+    void givenReadOnlyTransaction_whenGetConnection_thenReturnReplicasRoundRobin() throws SQLException {
+        //given - precondition ro setup
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        given(replica0.getConnection()).willReturn(replica0Connection);
+        given(replica1.getConnection()).willReturn(replica1Connection);
+
+        //when - action or the behaviour that we are going test
+        List<Connection> connections = List.of(routingDataSource.getConnection(),
+                routingDataSource.getConnection(), routingDataSource.getConnection());
+
+        //then - verify the output
+        assertThat(connections).containsExactly(replica0Connection, replica1Connection, replica0Connection);
+        verifyNoInteractions(primary);
+        assertThat(meterRegistry.get(ReplicaRoutingDataSource.CONNECTIONS_METRIC).tag("target", "replica-0").counter().count())
+                .isEqualTo(2);
+    }
+
+    @DisplayName("JUnit test for getConnection in read only transaction inside readFromPrimary")
+    @Test
+    void givenReadFromPrimary_whenGetConnection_thenReturnPrimaryConnection() throws SQLException {
+        //given - precondition ro setup
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        given(primary.getConnection()).willReturn(primaryConnection);
+        given(replica0.getConnection()).willReturn(replica0Connection);
+
+        //when - action or the behaviour that we are going test
+        Connection connection = ReplicaRoutingDataSource.readFromPrimary(() -> {
+            try {
+                return routingDataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        //then - verify the output
+        assertThat(connection).isSameAs(primaryConnection);
+        assertThat(routingDataSource.getConnection()).isSameAs(replica0Connection); // 밖에서는 다시 replica
+    }
+
+    @DisplayName("JUnit test for getConnection in read only transaction with failing replica")
+    @Test
+    void givenFailingReplica_whenGetConnection_thenSkipItUntilRetryInterval() throws SQLException {
+        //given - precondition ro setup
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        given(replica0.getConnection()).willThrow(new SQLException("connection refused"));
+        given(replica1.getConnection()).willReturn(replica1Connection);
+
+        //when - action or the behaviour that we are going test
+        List<Connection> connections = List.of(routingDataSource.getConnection(),
+                routingDataSource.getConnection(), routingDataSource.getConnection());
+
+        //then - verify the output
+        assertThat(connections).containsOnly(replica1Connection);
+        verify(replica0, times(1)).getConnection();
+        verifyNoInteractions(primary);
+    }
+
+    @DisplayName("JUnit test for getConnection in read only transaction with all replicas down")
+    @Test
+    void givenAllReplicasDown_whenGetConnection_thenFallbackToPrimary() throws SQLException {
+        //given - precondition ro setup
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        given(replica0.getConnection()).willThrow(new SQLException("connection refused"));
+        given(replica1.getConnection()).willThrow(new SQLException("connection refused"));
+        given(primary.getConnection()).willReturn(primaryConnection);
+
+        //when - action or the behaviour that we are going test
+        Connection connection = routingDataSource.getConnection();
+
+        //then - verify the output
+        assertThat(connection).isSameAs(primaryConnection);
+        assertThat(meterRegistry.get(ReplicaRoutingDataSource.CONNECTIONS_METRIC).tag("fallback", "true").counter().count())
+                .isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for getConnection with username and password in read only transaction")
+    @Test
+    void givenCredentials_whenGetConnection_thenRouteWithCredentials() throws SQLException {
+        //given - precondition ro setup
+        given(primary.getConnection("sa", "secret")).willReturn(primaryConnection);
+        given(replica0.getConnection("sa", "secret")).willReturn(replica0Connection);
+
+        //when - action or the behaviour that we are going test
+        Connection writeConnection = routingDataSource.getConnection("sa", "secret");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection readConnection = routingDataSource.getConnection("sa", "secret");
+
+        //then - verify the output
+        assertThat(writeConnection).isSameAs(primaryConnection);
+        assertThat(readConnection).isSameAs(replica0Connection);
+        verify(primary, never()).getConnection();
+        verify(replica0, never()).getConnection();
+    }
+
+    @DisplayName("JUnit test for getConnection with username and password on pool without credential support")
+    @Test
+    void givenUnsupportedCredentials_whenGetConnection_thenThrowWithoutMarkingReplicaDown() throws SQLException {
+        //given - precondition ro setup
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        given(replica0.getConnection("sa", "secret")).willThrow(new SQLFeatureNotSupportedException("not supported"));
+        given(replica0.getConnection()).willReturn(replica0Connection);
+        given(replica1.getConnection()).willReturn(replica1Connection);
+
+        //when - action or the behaviour that we are going test
+        assertThatThrownBy(() -> routingDataSource.getConnection("sa", "secret"))
+                .isInstanceOf(SQLFeatureNotSupportedException.class);
+        List<Connection> connections = List.of(routingDataSource.getConnection(), routingDataSource.getConnection());
+
+        //then - verify the output
+        assertThat(connections).containsExactlyInAnyOrder(replica0Connection, replica1Connection);
+        verifyNoInteractions(primary);
+    }
+}
@@ -0,0 +1,88 @@
+package me.jongwoo.spring.testing.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlQueryListenerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SqlQueryListener listener;
+
+    @BeforeEach
+    void setUp() {
+        SqlLoggingProperties properties = new SqlLoggingProperties();
+        properties.setSlowQueryThreshold(Duration.ofMillis(50));
+        properties.setMaxQueriesPerRequest(3);
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new SqlQueryListener(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        listener.close();
+    }
+
+    @DisplayName("JUnit test for query timer by type and slow query counter")
+    @Test
+    void givenQueries_whenAfterQuery_thenRecordTimerByTypeAndSlowQueries(){
+        //given - precondition ro setup
+        String select = "select * from employees where id=?";
+        String insert = "insert into employees (email, first_name, last_name) values (?, ?, ?)";
+
+        //when - action or the behaviour that we are going test
+        execute(select, 1);
+        execute(select, 60);
+        execute(insert, 1);
+
+        //then - verify the output
+        assertThat(meterRegistry.get("employee.sql.query").tag("type", "select").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("employee.sql.query").tag("type", "insert").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("employee.sql.slow-queries").counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for queries per request over the limit")
+    @Test
+    void givenRequestOverLimit_whenFinishRequest_thenRecordCountAndNPlusOne(){
+        //given - precondition ro setup
+        SqlQueryListener.RequestQueries small = listener.startRequest("GET /api/employees/1");
+        execute("select * from employees where id=?", 1);
+        listener.finishRequest(small, "GET", "/api/employees/{id}");
+        execute("select * from employees", 1); // 요청 밖에서 실행된 쿼리는 세지 않음
+
+        //when - action or the behaviour that we are going test
+        SqlQueryListener.RequestQueries large = listener.startRequest("GET /api/employees");
+        execute("select * from employees", 1);
+        for (int i = 0; i < 4; i++) {
+            execute("select * from employees where id=?", 1);
+        }
+        listener.finishRequest(large, "GET", "/api/employees");
+
+        //then - verify the output
+        assertThat(small.getCount()).isEqualTo(1);
+        assertThat(large.getCount()).isEqualTo(5);
+        assertThat(meterRegistry.get("employee.sql.queries-per-request").tag("uri", "/api/employees/{id}").summary().totalAmount())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("employee.sql.queries-per-request").tag("uri", "/api/employees").summary().totalAmount())
+                .isEqualTo(5);
+        assertThat(meterRegistry.find("employee.sql.n-plus-one").tag("uri", "/api/employees/{id}").counter()).isNull();
+        assertThat(meterRegistry.get("employee.sql.n-plus-one").tag("uri", "/api/employees").counter().count()).isEqualTo(1);
+    }
+
+    private void execute(String query, long elapsedMillis) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setElapsedTime(elapsedMillis);
+        execInfo.setSuccess(true);
+        List<QueryInfo> queryInfoList = List.of(new QueryInfo(query));
+        listener.afterQuery(execInfo, queryInfoList); // beforeQuery 를 건너뛰어 elapsedTime 이 그대로 쓰이게 함
+    }
+}
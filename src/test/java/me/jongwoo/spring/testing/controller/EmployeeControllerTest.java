@@ -2,8 +2,15 @@ package me.jongwoo.spring.testing.controller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeStats;
+import me.jongwoo.spring.testing.dto.GroupCount;
 import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.exception.AlreadyExistsException;
+import me.jongwoo.spring.testing.exception.EmployeeNotFoundException;
+import me.jongwoo.spring.testing.service.EmployeeChangeFeed;
 import me.jongwoo.spring.testing.service.EmployeeService;
+import me.jongwoo.spring.testing.service.IdempotencyStore;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,22 +18,33 @@ import org.mockito.BDDMockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest
@@ -39,6 +57,12 @@ class EmployeeControllerTest {
     @MockBean
     private EmployeeService employeeService;
 
+    @MockBean
+    private EmployeeChangeFeed employeeChangeFeed;
+
+    @MockBean
+    private IdempotencyStore idempotencyStore;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -70,14 +94,86 @@ class EmployeeControllerTest {
     }
 
 
+    @DisplayName("JUnit test for createEmployee RestAPI with too long Idempotency-Key")
+    @Test
+    void givenTooLongIdempotencyKey_whenCreateEmployee_thenReturn400() throws Exception {
+        //given - precondition ro setup
+        Employee employee = Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build();
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .header(EmployeeController.IDEMPOTENCY_KEY_HEADER, "k".repeat(EmployeeController.MAX_IDEMPOTENCY_KEY_LENGTH + 1))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee))
+        );
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(idempotencyStore, employeeService);
+    }
+
+
+    @DisplayName("JUnit test for createEmployee RestAPI with existing email")
+    @Test
+    void givenExistingEmail_whenCreateEmployee_thenReturn409() throws Exception {
+        //given - precondition ro setup
+        Employee employee = Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build();
+        given(employeeService.saveEmployee(any(Employee.class)))
+                .willThrow(new AlreadyExistsException("이미 존재합니다."));
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee))
+        );
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isConflict());
+    }
+
+
+    @DisplayName("JUnit test for createEmployees RestAPI")
+    @Test
+    void givenEmployeeList_whenCreateEmployees_thenReturnCreatedEmployees() throws Exception {
+        //given - precondition ro setup
+        List<Employee> employeeList = new ArrayList<>();
+        employeeList.add(Employee.builder().firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+        employeeList.add(Employee.builder().firstName("gildong").lastName("hong").email("gildong@email.com").build());
+        given(employeeService.saveEmployees(anyList()))
+                .willAnswer((invocation) -> invocation.getArgument(0));
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employeeList))
+        );
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.size()", is(employeeList.size())))
+                .andExpect(jsonPath("$[1].email", is(employeeList.get(1).getEmail())));
+    }
+
+
     @DisplayName("JUnit test for getAllEmployees RestAPI")
     @Test
     void givenListOfEmployees_whenGetAllEmployees_then() throws Exception {
         //given - precondition ro setup
-        List<Employee> employeeList = new ArrayList<>();
-        employeeList.add(Employee.builder().id(1L).firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
-        employeeList.add(Employee.builder().id(2L).firstName("gildong").lastName("hong").email("gildong@email.com").build());
-        given(employeeService.getAllEmployees()).willReturn(employeeList);
+        List<EmployeeDto> employeeList = new ArrayList<>();
+        employeeList.add(new EmployeeDto(1L, "jongwoo", "lee", "jongwoo@email.com"));
+        employeeList.add(new EmployeeDto(2L, "gildong", "hong", "gildong@email.com"));
+        given(employeeService.getEmployeesAfter(0L, 20)).willReturn(employeeList);
 
         //when - action or the behaviour that we are going test
         ResultActions response = mockMvc.perform(get("/api/employees"));
@@ -85,10 +181,138 @@ class EmployeeControllerTest {
         //then - verify the output
         response.andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()", is(employeeList.size())));
+                .andExpect(jsonPath("$.size()", is(employeeList.size())))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
     }
 
 
+    @DisplayName("JUnit test for getAllEmployees RestAPI with keyset cursor")
+    @Test
+    void givenFullPage_whenGetAllEmployeesWithCursor_thenReturnNextCursor() throws Exception {
+        //given - precondition ro setup
+        List<EmployeeDto> employeeList = new ArrayList<>();
+        employeeList.add(new EmployeeDto(11L, "jongwoo", "lee", "jongwoo@email.com"));
+        employeeList.add(new EmployeeDto(12L, "gildong", "hong", "gildong@email.com"));
+        given(employeeService.getEmployeesAfter(10L, 2)).willReturn(employeeList);
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("after", "10")
+                .param("limit", "2"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(employeeList.size())))
+                .andExpect(header().string("X-Next-Cursor", "12"));
+    }
+
+
+    @DisplayName("JUnit test for getAllEmployees RestAPI with limit over the maximum")
+    @Test
+    void givenLimitOverMaximum_whenGetAllEmployees_thenClampLimit() throws Exception {
+        //given - precondition ro setup
+        given(employeeService.getEmployeesAfter(0L, 100)).willReturn(Collections.emptyList());
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees").param("limit", "100000"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(0)));
+        verify(employeeService).getEmployeesAfter(0L, 100);
+    }
+
+
+    @DisplayName("JUnit test for searchEmployees RestAPI")
+    @Test
+    void givenName_whenSearchEmployees_thenReturnSlice() throws Exception {
+        //given - precondition ro setup
+        List<EmployeeDto> employeeList = new ArrayList<>();
+        employeeList.add(new EmployeeDto(1L, "jongwoo", "lee", "jongwoo@email.com"));
+        employeeList.add(new EmployeeDto(2L, "jongwoo", "lee", "jongwoo2@email.com"));
+        given(employeeService.searchByName("jongwoo", "lee", 0, 100))
+                .willReturn(new SliceImpl<>(employeeList, PageRequest.of(0, 100), false));
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/search")
+                .param("firstName", "jongwoo")
+                .param("lastName", "lee")
+                .param("size", "1000"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.size()", is(employeeList.size())))
+                .andExpect(jsonPath("$.last", is(true)));
+    }
+
+
+    @DisplayName("JUnit test for searchEmployees RestAPI with page over the limit")
+    @Test
+    void givenPageOverLimit_whenSearchEmployees_thenReturn400() throws Exception {
+        //given - precondition ro setup
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/search")
+                .param("firstName", "jongwoo")
+                .param("lastName", "lee")
+                .param("page", String.valueOf(Integer.MAX_VALUE)));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isBadRequest());
+        verify(employeeService, never()).searchByName(anyString(), anyString(), anyInt(), anyInt());
+    }
+
+
+    @DisplayName("JUnit test for exportEmployees RestAPI")
+    @Test
+    void givenEmployees_whenExportEmployees_thenReturnNdjson() throws Exception {
+        //given - precondition ro setup
+        EmployeeDto employee1 = new EmployeeDto(1L, "jongwoo", "lee", "jongwoo@email.com");
+        EmployeeDto employee2 = new EmployeeDto(2L, "gildong", "hong", "gildong@email.com");
+        willAnswer(invocation -> {
+            Consumer<EmployeeDto> consumer = invocation.getArgument(0);
+            consumer.accept(employee1);
+            consumer.accept(employee2);
+            return null;
+        }).given(employeeService).exportEmployees(any());
+
+        //when - action or the behaviour that we are going test
+        MvcResult asyncResult = mockMvc.perform(get("/api/employees/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        ResultActions response = mockMvc.perform(asyncDispatch(asyncResult));
+
+        //then - verify the output
+        MvcResult result = response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(objectMapper.readTree(lines[1]).get("email").asText()).isEqualTo(employee2.getEmail());
+    }
+
+
+    @DisplayName("JUnit test for streamChanges RestAPI with Last-Event-ID")
+    @Test
+    void givenLastEventId_whenStreamChanges_thenResumeFromLastEventId() throws Exception {
+        //given - precondition ro setup
+        given(employeeChangeFeed.subscribe("epoch:5")).willReturn(new SseEmitter());
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/changes")
+                .header("Last-Event-ID", "epoch:5"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(request().asyncStarted());
+        verify(employeeChangeFeed).subscribe("epoch:5");
+    }
+
     @DisplayName("JUnit test for getEmployeeById RestAPI with valid employeeId")
     @Test
     void givenValidEmployeeId_whenGetEmployeeById_thenReturnEmployeeObject() throws Exception {
@@ -101,7 +325,7 @@ class EmployeeControllerTest {
                 .email("jongwoo@email.com")
                 .build();
 
-        given(employeeService.getEmployeeById(id)).willReturn(Optional.of(employee));
+        given(employeeService.getEmployeeById(id)).willReturn(Optional.of(EmployeeDto.from(employee)));
 
         //when - action or the behaviour that we are going test
         ResultActions response = mockMvc.perform(get("/api/employees/{id}", id));
@@ -131,6 +355,87 @@ class EmployeeControllerTest {
     }
 
 
+    @DisplayName("JUnit test for getEmployeeByEmail RestAPI")
+    @Test
+    void givenEmail_whenGetEmployeeByEmail_thenReturnEmployeeObject() throws Exception {
+        //given - precondition ro setup
+        EmployeeDto employee = new EmployeeDto(1L, "jongwoo", "lee", "jongwoo@email.com");
+        given(employeeService.getEmployeeByEmail(employee.getEmail())).willReturn(Optional.of(employee));
+        given(employeeService.getEmployeeByEmail("none@email.com")).willReturn(Optional.empty());
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees").param("email", employee.getEmail()));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.email", is(employee.getEmail())));
+        mockMvc.perform(get("/api/employees").param("email", "none@email.com"))
+                .andExpect(status().isNotFound());
+    }
+
+
+    @DisplayName("JUnit test for getEmployeeStats RestAPI")
+    @Test
+    void givenStats_whenGetEmployeeStats_thenReturnCounts() throws Exception {
+        //given - precondition ro setup
+        given(employeeService.getEmployeeStats()).willReturn(EmployeeStats.of(3,
+                List.of(new GroupCount("email.com", 2), new GroupCount("other.com", 1)),
+                List.of(new GroupCount("L", 3))));
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/stats"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(3)))
+                .andExpect(jsonPath("$.byEmailDomain['email.com']", is(2)))
+                .andExpect(jsonPath("$.byLastNameInitial.L", is(3)));
+    }
+
+    @DisplayName("JUnit test for getEmployeesByIds RestAPI")
+    @Test
+    void givenIds_whenGetEmployeesByIds_thenReturnEmployeesInRequestOrderWithMissingIds() throws Exception {
+        //given - precondition ro setup
+        EmployeeDto employee1 = new EmployeeDto(1L, "jongwoo", "lee", "jongwoo@email.com");
+        EmployeeDto employee3 = new EmployeeDto(3L, "jw", "kim", "jw@email.com");
+        given(employeeService.getEmployeesByIds(List.of(3L, 2L, 1L, 3L))).willReturn(List.of(employee1, employee3));
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees").param("ids", "3,2,1,3"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees.size()", is(2)))
+                .andExpect(jsonPath("$.employees[0].id", is(3)))
+                .andExpect(jsonPath("$.employees[1].id", is(1)))
+                .andExpect(jsonPath("$.missingIds.size()", is(1)))
+                .andExpect(jsonPath("$.missingIds[0]", is(2)));
+    }
+
+    @DisplayName("JUnit test for lookupEmployees RestAPI with too many ids")
+    @Test
+    void givenTooManyIds_whenLookupEmployees_thenReturnBadRequest() throws Exception {
+        //given - precondition ro setup
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= EmployeeController.MAX_LOOKUP_IDS + 1; id++) {
+            ids.add(id);
+        }
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ids)));
+
+        //then - verify the output
+        response.andExpect(status().isBadRequest());
+        verify(employeeService, never()).getEmployeesByIds(anyList());
+    }
+
+
     @DisplayName("JUnit test for updateEmployee RestAPI")
     @Test
     void givenUpdatedEmployee_whenUpdateEmployee_thenReturnUpdateEmployeeObject() throws Exception {
@@ -150,7 +455,7 @@ class EmployeeControllerTest {
                 .email("jw@email.com")
                 .build();
 
-        given(employeeService.getEmployeeById(id)).willReturn(Optional.of(savedEmployee));
+        given(employeeService.getEmployeeById(id)).willReturn(Optional.of(EmployeeDto.from(savedEmployee)));
         given(employeeService.updateEmployee(any(Employee.class))).willAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
 
         //when - action or the behaviour that we are going test
@@ -193,12 +498,75 @@ class EmployeeControllerTest {
     }
 
 
+    @DisplayName("JUnit test for updateEmployee RestAPI with employee deleted during update")
+    @Test
+    void givenEmployeeDeletedDuringUpdate_whenUpdateEmployee_thenReturn404() throws Exception {
+        //given - precondition ro setup
+        long id = 1L;
+        Employee updatedEmployee = Employee.builder()
+                .id(id)
+                .firstName("jw")
+                .lastName("kim")
+                .email("jw@email.com")
+                .build();
+
+        given(employeeService.getEmployeeById(id)).willReturn(Optional.of(new EmployeeDto(id, "jongwoo", "lee", "jongwoo@email.com")));
+        given(employeeService.updateEmployee(any(Employee.class))).willThrow(new EmployeeNotFoundException("존재하지 않습니다: " + id));
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+
+    @DisplayName("JUnit test for patchEmployee RestAPI")
+    @Test
+    void givenChangedFields_whenPatchEmployee_thenReturn204() throws Exception {
+        //given - precondition ro setup
+        long id = 1L;
+        given(employeeService.patchEmployee(eq(id), any(Employee.class))).willReturn(true);
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"jw\"}"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNoContent());
+        verify(employeeService, never()).getEmployeeById(anyLong());
+    }
+
+
+    @DisplayName("JUnit test for patchEmployee RestAPI with invalid employeeId")
+    @Test
+    void givenIfNotExistsEmployee_whenPatchEmployee_thenReturn404() throws Exception {
+        //given - precondition ro setup
+        long id = 1L;
+        given(employeeService.patchEmployee(eq(id), any(Employee.class))).willReturn(false);
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"jw\"}"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+
     @DisplayName("JUnit test for deleteEmployee RestAPI")
     @Test
     void givenEmployeeId_whenDeleteEmployee_thenReturn200() throws Exception {
         //given - precondition ro setup
         long id = 1L;
-        willDoNothing().given(employeeService).deleteById(id);
+        given(employeeService.deleteById(id)).willReturn(true);
 
         //when - action or the behaviour that we are going test
         ResultActions response = mockMvc.perform(delete("/api/employees/{id}", id));
@@ -212,4 +580,56 @@ class EmployeeControllerTest {
         Assertions.assertThat(content).isEqualTo("Employee deleted successfully!");
     }
 
+
+    @DisplayName("JUnit test for deleteEmployee RestAPI with invalid employeeId")
+    @Test
+    void givenIfNotExistsEmployee_whenDeleteEmployee_thenReturn404() throws Exception {
+        //given - precondition ro setup
+        long id = 1L;
+        given(employeeService.deleteById(id)).willReturn(false);
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}", id));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+
+    @DisplayName("JUnit test for deleteEmployees RestAPI")
+    @Test
+    void givenEmployeeIds_whenDeleteEmployees_thenReturnDeletedCount() throws Exception {
+        //given - precondition ro setup
+        given(employeeService.deleteByIds(List.of(1L, 2L, 3L))).willReturn(3);
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(delete("/api/employees").param("ids", "1,2,3"));
+
+        //then - verify the output
+        MvcResult result = response.andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        Assertions.assertThat(content).isEqualTo("3 employees deleted successfully!");
+    }
+
+    @DisplayName("JUnit test for deleteEmployees RestAPI with too many ids")
+    @Test
+    void givenTooManyIds_whenDeleteEmployees_thenReturnBadRequest() throws Exception {
+        //given - precondition ro setup
+        List<String> ids = new ArrayList<>();
+        for (long id = 1; id <= EmployeeController.MAX_LOOKUP_IDS + 1; id++) {
+            ids.add(String.valueOf(id));
+        }
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(delete("/api/employees").param("ids", String.join(",", ids)));
+
+        //then - verify the output
+        response.andExpect(status().isBadRequest());
+        verify(employeeService, never()).deleteByIds(anyList());
+    }
+
 }
\ No newline at end of file
@@ -1,32 +1,56 @@
 package me.jongwoo.spring.testing.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.jongwoo.spring.testing.config.CacheConfig;
 import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.entity.EmployeeChange;
+import me.jongwoo.spring.testing.repository.EmployeeChangeRepository;
 import me.jongwoo.spring.testing.repository.EmployeeRepository;
+import me.jongwoo.spring.testing.service.EmployeeChangeFeed;
+import me.jongwoo.spring.testing.service.EmployeeService;
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.interceptor.BeanFactoryCacheOperationSourceAdvisor;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.interceptor.BeanFactoryTransactionAttributeSourceAdvisor;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "employee.sync.commit-lag=0s") // 저장 직후 sync 로 확인
 @AutoConfigureMockMvc
+@AutoConfigureMetrics
 @ActiveProfiles("dev")
 public class EmployeeControllerIntegrationTest {
 
@@ -36,12 +60,32 @@ public class EmployeeControllerIntegrationTest {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private EmployeeChangeRepository employeeChangeRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeChangeFeed employeeChangeFeed;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     void setup() {
         employeeRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.getCache().evictAll();
     }
 
     @DisplayName("test for createEmployee")
@@ -68,6 +112,95 @@ public class EmployeeControllerIntegrationTest {
                 .andExpect(jsonPath("$.email", is(employee.getEmail())));
     }
 
+    @DisplayName("test for createEmployee retried with Idempotency-Key")
+    @Test
+    void givenRetriedIdempotencyKey_whenCreateEmployee_thenReturnFirstResponse() throws Exception {
+        //given - precondition ro setup
+        Employee employee = Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build();
+        String body = objectMapper.writeValueAsString(employee);
+        MvcResult first = mockMvc.perform(post("/api/employees")
+                        .header("Idempotency-Key", "create-jongwoo")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(first.getResponse().getContentAsString()).get("id").asLong();
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .header("Idempotency-Key", "create-jongwoo")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id", is((int) id)));
+        Assertions.assertThat(employeeRepository.count()).isEqualTo(1);
+    }
+
+    @DisplayName("test for createEmployee with existing email")
+    @Test
+    void givenExistingEmail_whenCreateEmployee_thenReturn409() throws Exception {
+        //given - precondition ro setup
+        employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        Employee employee = Employee.builder()
+                .firstName("jw")
+                .lastName("kim")
+                .email("jongwoo@email.com")
+                .build();
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee))
+        );
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isConflict());
+        Assertions.assertThat(employeeRepository.count()).isEqualTo(1);
+    }
+
+    @DisplayName("test for createEmployees RestAPI")
+    @Test
+    void givenEmployeeList_whenCreateEmployees_thenSaveAll() throws Exception {
+        //given - precondition ro setup
+        List<Employee> employeeList = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            employeeList.add(Employee.builder().firstName("first" + i).lastName("last" + i).email(i + "@email.com").build());
+        }
+
+        DistributionSummary queriesPerRequest = DistributionSummary.builder("employee.sql.queries-per-request")
+                .tag("method", "POST")
+                .tag("uri", "/api/employees/batch")
+                .register(meterRegistry);
+        double queriesBefore = queriesPerRequest.totalAmount();
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employeeList))
+        );
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.size()", is(employeeList.size())));
+        Assertions.assertThat(employeeRepository.count()).isEqualTo(employeeList.size());
+        // 이메일 확인, 시퀀스 호출(50건당 1번), insert 배치만 나가야 함. 행마다 쿼리가 늘면 120건을 넘음
+        Assertions.assertThat(queriesPerRequest.totalAmount() - queriesBefore).isLessThan(20);
+    }
+
     @DisplayName("test for getAllEmployees RestAPI")
     @Test
     void givenListOfEmployees_whenGetAllEmployees_then() throws Exception {
@@ -87,6 +220,75 @@ public class EmployeeControllerIntegrationTest {
     }
 
 
+    @DisplayName("test for exportEmployees RestAPI")
+    @Test
+    void givenListOfEmployees_whenExportEmployees_thenReturnOneLinePerEmployee() throws Exception {
+        //given - precondition ro setup
+        List<Employee> employeeList = new ArrayList<>();
+        employeeList.add(Employee.builder().firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+        employeeList.add(Employee.builder().firstName("gildong").lastName("hong").email("gildong@email.com").build());
+        employeeRepository.saveAll(employeeList);
+
+        //when - action or the behaviour that we are going test
+        MvcResult asyncResult = mockMvc.perform(get("/api/employees/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        ResultActions response = mockMvc.perform(asyncDispatch(asyncResult));
+
+        //then - verify the output
+        MvcResult result = response.andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        Assertions.assertThat(content.split("\n")).hasSize(employeeList.size());
+    }
+
+
+    @DisplayName("test for streamChanges RestAPI after createEmployee")
+    @Test
+    void givenSubscriber_whenCreateEmployee_thenReceiveCreatedEvent() throws Exception {
+        //given - precondition ro setup
+        MvcResult stream = mockMvc.perform(get("/api/employees/changes"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //when - action or the behaviour that we are going test
+        mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Employee.builder()
+                        .firstName("jongwoo")
+                        .lastName("lee")
+                        .email("jongwoo@email.com")
+                        .build())));
+
+        //then - verify the output
+        String content = awaitContent(stream, "jongwoo@email.com");
+        Assertions.assertThat(content).contains("event:CREATED").contains("jongwoo@email.com");
+    }
+
+
+    @DisplayName("test for streamChanges RestAPI with Last-Event-ID")
+    @Test
+    void givenLastEventId_whenStreamChanges_thenReplayOnlyLaterEvents() throws Exception {
+        //given - precondition ro setup
+        employeeService.saveEmployee(Employee.builder().firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+        String lastEventId = employeeChangeFeed.getLastEventId();
+        employeeService.saveEmployee(Employee.builder().firstName("gildong").lastName("hong").email("gildong@email.com").build());
+        String nextEventId = employeeChangeFeed.getLastEventId();
+
+        //when - action or the behaviour that we are going test
+        MvcResult stream = mockMvc.perform(get("/api/employees/changes")
+                        .header("Last-Event-ID", lastEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then - verify the output
+        String content = awaitContent(stream, "gildong@email.com");
+        Assertions.assertThat(content).contains("id:" + nextEventId).doesNotContain("jongwoo@email.com");
+    }
+
+
     @DisplayName("test for getEmployeeById RestAPI with valid employeeId")
     @Test
     void givenValidEmployeeId_whenGetEmployeeById_thenReturnEmployeeObject() throws Exception {
@@ -111,11 +313,174 @@ public class EmployeeControllerIntegrationTest {
     }
 
 
+    @DisplayName("test for getEmployeeById RestAPI served from cache")
+    @Test
+    void givenCachedEmployee_whenGetEmployeeById_thenHitCache() throws Exception {
+        //given - precondition ro setup
+        Employee employee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        mockMvc.perform(get("/api/employees/{id}", employee.getId()));
+        long hitCount = employeeCacheStats().hitCount();
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}", employee.getId()));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is(employee.getEmail())));
+        Assertions.assertThat(employeeCacheStats().hitCount()).isEqualTo(hitCount + 1);
+    }
+
+
+    @DisplayName("test for getEmployeeById RestAPI after update evicts cache")
+    @Test
+    void givenCachedEmployee_whenUpdateEmployee_thenReturnUpdatedEmployee() throws Exception {
+        //given - precondition ro setup
+        Employee employee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        mockMvc.perform(get("/api/employees/{id}", employee.getId()));
+        mockMvc.perform(put("/api/employees/{id}", employee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Employee.builder()
+                        .firstName("jw")
+                        .lastName("kim")
+                        .email("jw@email.com")
+                        .build())));
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}", employee.getId()));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is("jw@email.com")));
+    }
+
+
+    @DisplayName("test for getEmployeeById RestAPI with missing id cached until create")
+    @Test
+    void givenMissingIdCached_whenCreateEmployee_thenEvictNegativeEntry() throws Exception {
+        //given - precondition ro setup
+        Employee employee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        long nextId = employee.getId() + 1;
+        mockMvc.perform(get("/api/employees/{id}", nextId)).andExpect(status().isNotFound());
+        long hitCount = employeeCacheStats().hitCount();
+        mockMvc.perform(get("/api/employees/{id}", nextId)).andExpect(status().isNotFound());
+        Assertions.assertThat(employeeCacheStats().hitCount()).isEqualTo(hitCount + 1);
+
+        //when - action or the behaviour that we are going test
+        mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Employee.builder()
+                        .firstName("gildong")
+                        .lastName("hong")
+                        .email("gildong@email.com")
+                        .build())));
+
+        //then - verify the output
+        mockMvc.perform(get("/api/employees/{id}", nextId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is("gildong@email.com")));
+    }
+
+    @DisplayName("test for cache advice wrapping transaction advice")
+    @Test
+    void givenEmployeeService_whenInspectAdvisors_thenCacheEvictRunsAfterCommit() {
+        //given - precondition ro setup
+        List<Class<?>> advisors = new ArrayList<>();
+
+        //when - action or the behaviour that we are going test
+        Arrays.stream(((Advised) employeeService).getAdvisors()).map(Advisor::getClass).forEach(advisors::add);
+
+        //then - verify the output
+        // 앞에 있는 advisor 가 바깥에서 실행됨
+        Assertions.assertThat(advisors.indexOf(BeanFactoryCacheOperationSourceAdvisor.class))
+                .isNotNegative()
+                .isLessThan(advisors.indexOf(BeanFactoryTransactionAttributeSourceAdvisor.class));
+    }
+
+    // SSE 는 비동기로 전송되므로 기대하는 내용이 올 때까지 응답 본문을 확인
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = stream.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        return content;
+    }
+
+    private CacheStats employeeCacheStats() {
+        return ((CaffeineCache) cacheManager.getCache(CacheConfig.EMPLOYEE_CACHE)).getNativeCache().stats();
+    }
+
+
+    @DisplayName("test for prometheus scrape after getEmployeeById RestAPI")
+    @Test
+    void givenEmployeeLookup_whenScrapePrometheus_thenExposeTimersAndPoolGauges() throws Exception {
+        //given - precondition ro setup
+        Employee employee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        mockMvc.perform(get("/api/employees/{id}", employee.getId()));
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/actuator/prometheus"));
+
+        //then - verify the output
+        String content = response.andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Assertions.assertThat(content)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("employee_service_seconds{class=\"me.jongwoo.spring.testing.service.impl.EmployeeServiceImpl\",exception=\"none\",method=\"getEmployeeById\",quantile=\"0.99\",}")
+                .contains("spring_data_repository_invocations_seconds_bucket{")
+                .contains("hikaricp_connections_active");
+    }
+
+
+    @DisplayName("test for getEmployeeById RestAPI records queries per request")
+    @Test
+    void givenEmployeeLookup_whenGetEmployeeById_thenRecordQueriesPerRequest() throws Exception {
+        //given - precondition ro setup
+        Employee employee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        entityManagerFactory.getCache().evictAll(); // 저장하면서 2차 캐시에 들어간 엔티티를 비워 select 가 나가게 함
+        DistributionSummary queriesPerRequest = DistributionSummary.builder("employee.sql.queries-per-request")
+                .tag("method", "GET")
+                .tag("uri", "/api/employees/{id}")
+                .register(meterRegistry);
+        long requestsBefore = queriesPerRequest.count();
+        double queriesBefore = queriesPerRequest.totalAmount();
+
+        //when - action or the behaviour that we are going test
+        mockMvc.perform(get("/api/employees/{id}", employee.getId())).andExpect(status().isOk());
+
+        //then - verify the output
+        Assertions.assertThat(queriesPerRequest.count()).isEqualTo(requestsBefore + 1);
+        Assertions.assertThat(queriesPerRequest.totalAmount()).isEqualTo(queriesBefore + 1);
+        Assertions.assertThat(meterRegistry.get("employee.sql.query").tag("type", "select").timer().count()).isPositive();
+    }
+
     @DisplayName("test for getEmployeeById RestAPI with invalid employeeId")
     @Test
     void givenInvalidEmployeeId_whenGetEmployeeById_thenReturnEmpty() throws Exception {
         //given - precondition ro setup
-        long id = 10L;
         Employee employee = Employee.builder()
                 .id(1L)
                 .firstName("jongwoo")
@@ -123,7 +488,8 @@ public class EmployeeControllerIntegrationTest {
                 .email("jongwoo@email.com")
                 .build();
 
-        employeeRepository.save(employee);
+        // id 는 시퀀스로 발급되므로 고정값 대신 저장된 id 다음 값을 사용
+        long id = employeeRepository.save(employee).getId() + 1;
 
         //when - action or the behaviour that we are going test
         ResultActions response = mockMvc.perform(get("/api/employees/{id}", id));
@@ -185,7 +551,7 @@ public class EmployeeControllerIntegrationTest {
                 .build();
 
         //when - action or the behaviour that we are going test
-        ResultActions response = mockMvc.perform(put("/api/employees/{id}", 10L)
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", savedEmployee.getId() + 1)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(updatedEmployee)));
 
@@ -195,6 +561,129 @@ public class EmployeeControllerIntegrationTest {
     }
 
 
+    @DisplayName("test for patchEmployee RestAPI")
+    @Test
+    void givenChangedFields_whenPatchEmployee_thenUpdateOnlyGivenFields() throws Exception {
+        //given - precondition ro setup
+        Employee savedEmployee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"jw\"}"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId()))
+                .andExpect(jsonPath("$.firstName", is("jw")))
+                .andExpect(jsonPath("$.lastName", is(savedEmployee.getLastName())))
+                .andExpect(jsonPath("$.email", is(savedEmployee.getEmail())));
+        long rowVersion = employeeRepository.findById(savedEmployee.getId()).get().getRowVersion();
+        Assertions.assertThat(employeeChangeRepository.findById(rowVersion))
+                .hasValueSatisfying(change -> Assertions.assertThat(change.getType()).isEqualTo(EmployeeChange.Type.UPDATED));
+    }
+
+
+    @DisplayName("test for patchEmployee RestAPI with second level and query cache populated")
+    @Test
+    void givenCachedEmployee_whenPatchEmployee_thenSecondLevelAndQueryCacheReturnChangedEmployee() throws Exception {
+        //given - precondition ro setup
+        Employee savedEmployee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        employeeRepository.findById(savedEmployee.getId());
+        employeeRepository.findByEmail(savedEmployee.getEmail());
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"jw@email.com\"}"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNoContent());
+        Assertions.assertThat(employeeRepository.findById(savedEmployee.getId()).get().getEmail()).isEqualTo("jw@email.com");
+        Assertions.assertThat(employeeRepository.findByEmail(savedEmployee.getEmail())).isEmpty();
+        Assertions.assertThat(employeeRepository.findByEmail("jw@email.com")).isPresent();
+    }
+
+
+    @DisplayName("test for findById served from second level cache")
+    @Test
+    void givenLoadedEmployee_whenFindByIdAgain_thenHitSecondLevelCache() {
+        //given - precondition ro setup
+        Employee savedEmployee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        employeeRepository.findById(savedEmployee.getId());
+        long hitCount = statistics.getSecondLevelCacheHitCount();
+
+        //when - action or the behaviour that we are going test
+        Optional<Employee> employee = employeeRepository.findById(savedEmployee.getId());
+
+        //then - verify the output
+        Assertions.assertThat(employee).isPresent();
+        Assertions.assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(hitCount + 1);
+    }
+
+
+    @DisplayName("test for findByEmail served from query cache")
+    @Test
+    void givenEmployeeLookedUpByEmail_whenFindByEmailAgain_thenHitQueryCache() {
+        //given - precondition ro setup
+        Employee savedEmployee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        employeeRepository.findByEmail(savedEmployee.getEmail());
+        long queryCacheHitCount = statistics.getQueryCacheHitCount();
+        long secondLevelCacheHitCount = statistics.getSecondLevelCacheHitCount();
+
+        //when - action or the behaviour that we are going test
+        Optional<Employee> employee = employeeRepository.findByEmail(savedEmployee.getEmail());
+
+        //then - verify the output
+        Assertions.assertThat(employee).isPresent();
+        Assertions.assertThat(statistics.getQueryCacheHitCount()).isEqualTo(queryCacheHitCount + 1);
+        Assertions.assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(secondLevelCacheHitCount);
+    }
+
+
+    @DisplayName("test for patchEmployee RestAPI with invalid employeeId")
+    @Test
+    void givenIfNotExistsEmployee_whenPatchEmployee_thenReturn404() throws Exception {
+        //given - precondition ro setup
+        Employee savedEmployee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        long changes = employeeChangeRepository.count();
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId() + 1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"jw\"}"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+        Assertions.assertThat(employeeChangeRepository.count()).isEqualTo(changes); // 없는 id 에는 변경 기록을 남기지 않음
+    }
+
+
     @DisplayName("test for deleteEmployee RestAPI")
     @Test
     void givenEmployeeId_whenDeleteEmployee_thenReturn200() throws Exception {
@@ -218,4 +707,183 @@ public class EmployeeControllerIntegrationTest {
         String content = result.getResponse().getContentAsString();
         Assertions.assertThat(content).isEqualTo("Employee deleted successfully!");
     }
+
+
+    @DisplayName("test for deleteEmployee RestAPI with second level cache populated")
+    @Test
+    void givenCachedEmployee_whenDeleteEmployee_thenSecondLevelCacheDoesNotReturnIt() throws Exception {
+        //given - precondition ro setup
+        Employee savedEmployee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        employeeRepository.findById(savedEmployee.getId());
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}", savedEmployee.getId()));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk());
+        Assertions.assertThat(employeeRepository.findById(savedEmployee.getId())).isEmpty();
+    }
+
+
+    @DisplayName("test for deleteEmployee RestAPI with invalid employeeId")
+    @Test
+    void givenIfNotExistsEmployee_whenDeleteEmployee_thenReturn404() throws Exception {
+        //given - precondition ro setup
+        Employee savedEmployee = employeeRepository.save(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}", savedEmployee.getId() + 1));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+
+    @DisplayName("test for deleteEmployees RestAPI")
+    @Test
+    void givenListOfEmployees_whenDeleteEmployees_thenRemoveAll() throws Exception {
+        //given - precondition ro setup
+        List<Employee> employeeList = new ArrayList<>();
+        employeeList.add(Employee.builder().firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+        employeeList.add(Employee.builder().firstName("gildong").lastName("hong").email("gildong@email.com").build());
+        employeeRepository.saveAll(employeeList);
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(delete("/api/employees")
+                .param("ids", employeeList.get(0).getId() + "," + employeeList.get(1).getId()));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk());
+        Assertions.assertThat(employeeRepository.count()).isEqualTo(0);
+    }
+
+
+    @DisplayName("test for lookupEmployees RestAPI")
+    @Test
+    void givenListOfEmployees_whenLookupEmployees_thenReturnInRequestOrderWithMissingIds() throws Exception {
+        //given - precondition ro setup
+        List<Employee> employeeList = new ArrayList<>();
+        employeeList.add(Employee.builder().firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+        employeeList.add(Employee.builder().firstName("gildong").lastName("hong").email("gildong@email.com").build());
+        employeeRepository.saveAll(employeeList);
+        long missingId = employeeList.get(1).getId() + 100;
+        List<Long> ids = List.of(employeeList.get(1).getId(), missingId, employeeList.get(0).getId());
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(post("/api/employees/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ids)));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees.size()", is(2)))
+                .andExpect(jsonPath("$.employees[0].email", is("gildong@email.com")))
+                .andExpect(jsonPath("$.employees[1].email", is("jongwoo@email.com")))
+                .andExpect(jsonPath("$.missingIds[0]", is((int) missingId)));
+    }
+
+
+    @DisplayName("test for getEmployeeStats RestAPI served from cache")
+    @Test
+    void givenCachedStats_whenCreateEmployee_thenReturnCachedStatsUntilTtl() throws Exception {
+        //given - precondition ro setup
+        employeeRepository.save(Employee.builder().firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+        mockMvc.perform(get("/api/employees/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(1)));
+        employeeRepository.save(Employee.builder().firstName("gildong").lastName("hong").email("gildong@email.com").build());
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/stats"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(1)))
+                .andExpect(jsonPath("$.byEmailDomain['email.com']", is(1)));
+        CacheStats stats = ((CaffeineCache) cacheManager.getCache(CacheConfig.EMPLOYEE_STATS_CACHE)).getNativeCache().stats();
+        Assertions.assertThat(stats.hitCount()).isEqualTo(1);
+    }
+
+
+    @DisplayName("test for syncEmployees RestAPI")
+    @Test
+    void givenChangesAfterToken_whenSyncEmployees_thenReturnOnlyChangesAndTombstones() throws Exception {
+        //given - precondition ro setup
+        Employee unchanged = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+        Employee updated = employeeService.saveEmployee(Employee.builder()
+                .firstName("gildong").lastName("hong").email("gildong@email.com").build());
+        Employee deleted = employeeService.saveEmployee(Employee.builder()
+                .firstName("jw").lastName("kim").email("jw@email.com").build());
+        long token = deleted.getRowVersion();
+        employeeService.patchEmployee(updated.getId(), Employee.builder().firstName("gd").build());
+        employeeService.deleteById(deleted.getId());
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/sync").param("since", String.valueOf(token)));
+
+        //then - verify the output
+        MvcResult result = response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees.length()", is(1)))
+                .andExpect(jsonPath("$.employees[0].id", is((int) updated.getId())))
+                .andExpect(jsonPath("$.employees[0].firstName", is("gd")))
+                .andExpect(jsonPath("$.deletedIds.length()", is(1)))
+                .andExpect(jsonPath("$.deletedIds[0]", is((int) deleted.getId())))
+                .andExpect(jsonPath("$.hasMore", is(false)))
+                .andReturn();
+        String nextToken = objectMapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+        Assertions.assertThat(Long.parseLong(nextToken)).isGreaterThan(token);
+        Assertions.assertThat(unchanged.getRowVersion()).isLessThan(token);
+
+        // 변경이 없으면 빈 목록과 같은 token
+        mockMvc.perform(get("/api/employees/sync").param("since", nextToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees.length()", is(0)))
+                .andExpect(jsonPath("$.deletedIds.length()", is(0)))
+                .andExpect(jsonPath("$.token", is(nextToken)))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
+
+
+    @DisplayName("test for syncEmployees RestAPI with limit")
+    @Test
+    void givenMoreChangesThanLimit_whenSyncEmployees_thenPaginateByVersion() throws Exception {
+        //given - precondition ro setup
+        Employee first = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+        Employee second = employeeService.saveEmployee(Employee.builder()
+                .firstName("gildong").lastName("hong").email("gildong@email.com").build());
+        long token = first.getRowVersion() - 1;
+
+        //when - action or the behaviour that we are going test
+        ResultActions response = mockMvc.perform(get("/api/employees/sync")
+                .param("since", String.valueOf(token))
+                .param("limit", "1"));
+
+        //then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees[0].id", is((int) first.getId())))
+                .andExpect(jsonPath("$.token", is(String.valueOf(first.getRowVersion()))))
+                .andExpect(jsonPath("$.hasMore", is(true)));
+        mockMvc.perform(get("/api/employees/sync")
+                        .param("since", String.valueOf(first.getRowVersion()))
+                        .param("limit", "1"))
+                .andExpect(jsonPath("$.employees[0].id", is((int) second.getId())))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
 }
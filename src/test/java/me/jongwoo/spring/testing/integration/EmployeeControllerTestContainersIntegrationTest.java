@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -42,9 +43,13 @@ public class EmployeeControllerTestContainersIntegrationTest extends AbstractCon
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @BeforeEach
     void setup() {
         employeeRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
     }
 
 
@@ -119,7 +124,6 @@ public class EmployeeControllerTestContainersIntegrationTest extends AbstractCon
     @Test
     void givenInvalidEmployeeId_whenGetEmployeeById_thenReturnEmpty() throws Exception {
         //given - precondition ro setup
-        long id = 10L;
         Employee employee = Employee.builder()
                 .id(1L)
                 .firstName("jongwoo")
@@ -127,7 +131,8 @@ public class EmployeeControllerTestContainersIntegrationTest extends AbstractCon
                 .email("jongwoo@email.com")
                 .build();
 
-        employeeRepository.save(employee);
+        // id 는 시퀀스로 발급되므로 고정값 대신 저장된 id 다음 값을 사용
+        long id = employeeRepository.save(employee).getId() + 1;
 
         //when - action or the behaviour that we are going test
         ResultActions response = mockMvc.perform(get("/api/employees/{id}", id));
@@ -189,7 +194,7 @@ public class EmployeeControllerTestContainersIntegrationTest extends AbstractCon
                 .build();
 
         //when - action or the behaviour that we are going test
-        ResultActions response = mockMvc.perform(put("/api/employees/{id}", 10L)
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", savedEmployee.getId() + 1)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(updatedEmployee)));
 
@@ -0,0 +1,155 @@
+package me.jongwoo.spring.testing.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.jongwoo.spring.testing.dto.IngestStatus;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.repository.EmployeeRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "employee.ingest.enabled=true",
+        "employee.ingest.flush-interval=50ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+public class EmployeeIngestIntegrationTest {
+
+    private static final long WAIT_TIMEOUT_MILLIS = 5_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setup() {
+        employeeRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @DisplayName("test for createEmployee RestAPI in ingest mode")
+    @Test
+    void givenEmployeeObject_whenCreateEmployee_thenAcceptAndCreateLater() throws Exception {
+        //given - precondition ro setup
+        Employee employee = Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build();
+
+        //when - action or the behaviour that we are going test
+        MvcResult result = mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.state", is("QUEUED")))
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andReturn();
+
+        //then - verify the output
+        IngestStatus status = awaitProcessed(objectMapper.readValue(result.getResponse().getContentAsString(), IngestStatus.class));
+        Assertions.assertThat(status.getState()).isEqualTo(IngestStatus.State.CREATED);
+        Assertions.assertThat(employeeRepository.findById(status.getEmployeeId()))
+                .hasValueSatisfying(saved -> Assertions.assertThat(saved.getEmail()).isEqualTo(employee.getEmail()));
+    }
+
+    @DisplayName("test for createEmployee RestAPI in ingest mode with duplicated emails")
+    @Test
+    void givenDuplicatedEmails_whenCreateEmployee_thenRejectDuplicates() throws Exception {
+        //given - precondition ro setup
+        employeeRepository.save(Employee.builder()
+                .firstName("gildong")
+                .lastName("hong")
+                .email("gildong@email.com")
+                .build());
+        Employee employee = Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build();
+
+        //when - action or the behaviour that we are going test
+        IngestStatus first = submit(employee);
+        IngestStatus duplicatedInBatch = submit(employee);
+        IngestStatus existing = submit(Employee.builder()
+                .firstName("gildong")
+                .lastName("hong")
+                .email("gildong@email.com")
+                .build());
+
+        //then - verify the output
+        Assertions.assertThat(awaitProcessed(first).getState()).isEqualTo(IngestStatus.State.CREATED);
+        Assertions.assertThat(awaitProcessed(duplicatedInBatch).getState()).isEqualTo(IngestStatus.State.REJECTED);
+        Assertions.assertThat(awaitProcessed(existing).getState()).isEqualTo(IngestStatus.State.REJECTED);
+        Assertions.assertThat(employeeRepository.count()).isEqualTo(2);
+    }
+
+    @DisplayName("test for getIngestStatus RestAPI with unknown tracking id")
+    @Test
+    void givenUnknownTrackingId_whenGetIngestStatus_thenReturn404() throws Exception {
+        //given - precondition ro setup
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        mockMvc.perform(get("/api/employees/ingest/{trackingId}", "unknown"))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+    private IngestStatus submit(Employee employee) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), IngestStatus.class);
+    }
+
+    // writer 스레드가 처리할 때까지 상태 API 를 조회
+    private IngestStatus awaitProcessed(IngestStatus queued) throws Exception {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (true) {
+            MvcResult result = mockMvc.perform(get("/api/employees/ingest/{trackingId}", queued.getTrackingId()))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            IngestStatus status = objectMapper.readValue(result.getResponse().getContentAsString(), IngestStatus.class);
+            if (status.getState() != IngestStatus.State.QUEUED || System.currentTimeMillis() > deadline) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
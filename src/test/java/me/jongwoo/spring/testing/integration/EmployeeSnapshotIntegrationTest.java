@@ -0,0 +1,116 @@
+package me.jongwoo.spring.testing.integration;
+
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import me.jongwoo.spring.testing.service.impl.SnapshotEmployeeServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 사본에서 읽는지는 서비스를 거치지 않고 DB 의 행을 직접 바꾼 뒤에도 이전 값이 조회되는지로 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot;DB_CLOSE_DELAY=-1",
+        "spring.cache.type=none",
+        "employee.snapshot.enabled=true",
+        "employee.snapshot.refresh-interval=1h" // 기동 시 한 번만 읽고 이후에는 커밋 후 반영만 확인
+})
+@ActiveProfiles("dev")
+public class EmployeeSnapshotIntegrationTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() throws InterruptedException {
+        awaitLoaded();
+        List<Long> ids = employeeService.getAllEmployees().stream().map(EmployeeDto::getId).collect(Collectors.toList());
+        if (!ids.isEmpty()) {
+            employeeService.deleteByIds(ids);
+        }
+    }
+
+    @DisplayName("test for getEmployeeById and getEmployeeByEmail served from snapshot")
+    @Test
+    void givenSavedEmployee_whenRowChangedBehindService_thenReturnFromSnapshot() {
+        //given - precondition ro setup
+        Employee employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        jdbcTemplate.update("update employees set first_name = 'changed' where id = ?", employee.getId());
+
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        Assertions.assertThat(employeeService.getEmployeeById(employee.getId())).contains(EmployeeDto.from(employee));
+        Assertions.assertThat(employeeService.getEmployeeByEmail(employee.getEmail())).contains(EmployeeDto.from(employee));
+        Assertions.assertThat(employeeService.getEmployeesAfter(0, 10)).containsExactly(EmployeeDto.from(employee));
+    }
+
+    @DisplayName("test for patchEmployee and deleteById refresh snapshot after commit")
+    @Test
+    void givenSavedEmployee_whenPatchAndDelete_thenSnapshotFollows() {
+        //given - precondition ro setup
+        Employee employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+
+        //when - action or the behaviour that we are going test
+        employeeService.patchEmployee(employee.getId(), Employee.builder().email("jw@email.com").build());
+
+        //then - verify the output
+        Assertions.assertThat(employeeService.getEmployeeByEmail("jongwoo@email.com")).isEmpty();
+        Assertions.assertThat(employeeService.getEmployeeByEmail("jw@email.com").map(EmployeeDto::getId)).contains(employee.getId());
+        employeeService.deleteById(employee.getId());
+        Assertions.assertThat(employeeService.getEmployeeById(employee.getId())).isEmpty();
+        Assertions.assertThat(employeeService.getAllEmployees()).isEmpty();
+    }
+
+    @DisplayName("test for saveEmployees and deleteByIds refresh snapshot once per transaction")
+    @Test
+    void givenBatch_whenSaveAndDeleteEmployees_thenSnapshotFollows() {
+        //given - precondition ro setup
+        List<Employee> employees = employeeService.saveEmployees(List.of(
+                Employee.builder().firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build(),
+                Employee.builder().firstName("gildong").lastName("hong").email("hong@email.com").build(),
+                Employee.builder().firstName("minsu").lastName("kim").email("kim@email.com").build()));
+        List<Long> ids = employees.stream().map(Employee::getId).collect(Collectors.toList());
+
+        //when - action or the behaviour that we are going test
+        List<EmployeeDto> saved = employeeService.getEmployeesByIds(ids);
+        employeeService.deleteByIds(ids.subList(0, 2));
+
+        //then - verify the output
+        Assertions.assertThat(saved).extracting(EmployeeDto::getEmail)
+                .containsExactly("jongwoo@email.com", "hong@email.com", "kim@email.com");
+        Assertions.assertThat(employeeService.getAllEmployees()).extracting(EmployeeDto::getId).containsExactly(ids.get(2));
+    }
+
+    // 기동 후 처음 전체를 읽는 것은 백그라운드에서 진행됨
+    private void awaitLoaded() throws InterruptedException {
+        Assertions.assertThat(employeeService).isInstanceOf(SnapshotEmployeeServiceImpl.class);
+        SnapshotEmployeeServiceImpl snapshotService = (SnapshotEmployeeServiceImpl) employeeService;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!snapshotService.isLoaded() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertThat(snapshotService.isLoaded()).isTrue();
+    }
+}
@@ -0,0 +1,107 @@
+package me.jongwoo.spring.testing.integration;
+
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeSyncPage;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.entity.EmployeeChange;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import me.jongwoo.spring.testing.service.EmployeeSyncService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sync;DB_CLOSE_DELAY=-1",
+        "spring.cache.type=none",
+        "employee.sync.commit-lag=500ms"
+})
+@ActiveProfiles("dev")
+public class EmployeeSyncIntegrationTest {
+
+    @Autowired
+    private EmployeeSyncService syncService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setup() {
+        List<Long> ids = employeeService.getAllEmployees().stream().map(EmployeeDto::getId).collect(Collectors.toList());
+        if (!ids.isEmpty()) {
+            employeeService.deleteByIds(ids);
+        }
+    }
+
+    @DisplayName("test for getChangesSince with lower version committed after higher version")
+    @Test
+    void givenLowerVersionCommittedLate_whenGetChangesSince_thenDoNotSkipIt() throws Exception {
+        //given - precondition ro setup
+        long since = Long.parseLong(syncService.getChangesSince(0, 1000).getToken());
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CompletableFuture<Employee> late = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Employee employee = employeeService.saveEmployee(Employee.builder()
+                    .firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+            saved.countDown();
+            await(commit);
+            return employee;
+        }));
+        Assertions.assertThat(saved.await(5, TimeUnit.SECONDS)).isTrue();
+        Employee early = employeeService.saveEmployee(Employee.builder()
+                .firstName("gildong").lastName("hong").email("gildong@email.com").build());
+
+        //when - action or the behaviour that we are going test
+        EmployeeSyncPage whileInFlight = syncService.getChangesSince(since, 1000);
+        commit.countDown();
+        Employee lateEmployee = late.get(5, TimeUnit.SECONDS);
+        Thread.sleep(600); // commit-lag 이후
+        EmployeeSyncPage afterCommit = syncService.getChangesSince(Long.parseLong(whileInFlight.getToken()), 1000);
+
+        //then - verify the output
+        Assertions.assertThat(lateEmployee.getRowVersion()).isLessThan(early.getRowVersion());
+        Assertions.assertThat(whileInFlight.getEmployees()).isEmpty();
+        Assertions.assertThat(whileInFlight.getToken()).isEqualTo(String.valueOf(since));
+        Assertions.assertThat(afterCommit.getEmployees()).extracting(EmployeeDto::getId)
+                .containsExactly(lateEmployee.getId(), early.getId());
+    }
+
+    @DisplayName("test for versions issued from a new sequence block per transaction")
+    @Test
+    void givenSeparateTransactions_whenSaveEmployee_thenDoNotReuseEarlierBlock() {
+        //given - precondition ro setup
+        Employee first = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+
+        //when - action or the behaviour that we are going test
+        Employee second = employeeService.saveEmployee(Employee.builder()
+                .firstName("gildong").lastName("hong").email("gildong@email.com").build());
+
+        //then - verify the output
+        // 앞 트랜잭션이 남긴 값을 쓰면 다른 인스턴스가 그 사이 발급한 version 보다 작아질 수 있음
+        Assertions.assertThat(second.getRowVersion() - first.getRowVersion()).isEqualTo(EmployeeChange.ID_ALLOCATION_SIZE);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
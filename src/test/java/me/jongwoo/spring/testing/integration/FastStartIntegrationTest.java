@@ -0,0 +1,86 @@
+package me.jongwoo.spring.testing.integration;
+
+import me.jongwoo.spring.testing.SpringTestJunitMockitoApplication;
+import me.jongwoo.spring.testing.controller.EmployeeController;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import me.jongwoo.spring.testing.service.EmployeeSyncService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.actuate.autoconfigure.metrics.orm.jpa.HibernateMetricsAutoConfiguration;
+import org.springframework.boot.actuate.startup.StartupEndpoint;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * BufferingApplicationStartup 은 SpringApplication 에 직접 설정해야 하므로 @SpringBootTest 대신 main 과 같은 방법으로 띄운다.
+ */
+public class FastStartIntegrationTest {
+
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void start() {
+        context = SpringTestJunitMockitoApplication.application().run(
+                "--spring.profiles.active=dev,fast-start",
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:fast-start;DB_CLOSE_DELAY=-1",
+                "--spring.cache.type=none");
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @DisplayName("test for fast-start lazy initialization except request path")
+    @Test
+    void givenFastStartProfile_whenStarted_thenOnlyRequestPathInitialized() {
+        //given - precondition ro setup
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        Assertions.assertThat(context.getBeanNamesForType(EmployeeSyncService.class))
+                .allMatch(name -> beanFactory.getBeanDefinition(name).isLazyInit());
+        Assertions.assertThat(context.getBeanNamesForType(EmployeeService.class))
+                .allMatch(name -> !beanFactory.getBeanDefinition(name).isLazyInit());
+        Assertions.assertThat(context.getBeanNamesForType(EmployeeController.class))
+                .allMatch(name -> !beanFactory.getBeanDefinition(name).isLazyInit());
+
+        EmployeeService employeeService = context.getBean(EmployeeService.class);
+        Employee employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        Assertions.assertThat(employeeService.getEmployeeById(employee.getId())).contains(EmployeeDto.from(employee));
+    }
+
+    @DisplayName("test for fast-start without hibernate metrics waiting for deferred EntityManagerFactory")
+    @Test
+    void givenFastStartProfile_whenStarted_thenHibernateMetricsExcluded() {
+        //given - precondition ro setup
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        Assertions.assertThat(context.getBeanNamesForType(HibernateMetricsAutoConfiguration.class)).isEmpty();
+    }
+
+    @DisplayName("test for startup endpoint")
+    @Test
+    void givenBufferingApplicationStartup_whenStartupSnapshot_thenReturnSteps() {
+        //given - precondition ro setup
+        StartupEndpoint startupEndpoint = context.getBean(StartupEndpoint.class);
+
+        //when - action or the behaviour that we are going test
+        StartupEndpoint.StartupResponse response = startupEndpoint.startupSnapshot();
+
+        //then - verify the output
+        Assertions.assertThat(response.getTimeline().getEvents())
+                .anyMatch(event -> event.getStartupStep().getName().equals("spring.context.refresh"));
+    }
+}
@@ -0,0 +1,66 @@
+package me.jongwoo.spring.testing.integration;
+
+import me.jongwoo.spring.testing.SpringTestJunitMockitoApplication;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * IDENTITY 를 쓰던 때 만들어진 employees 테이블에 행이 남아 있는 DB 로 기동한다.
+ * 스키마를 컨텍스트보다 먼저 만들어야 하므로 @SpringBootTest 대신 직접 띄운다.
+ */
+public class IdSequenceIntegrationTest {
+
+    private static final String URL = "jdbc:h2:mem:id-sequence-legacy;DB_CLOSE_DELAY=-1";
+
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void start() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table employees (id bigint generated by default as identity primary key, " +
+                    "first_name varchar(255) not null, last_name varchar(255) not null, email varchar(255) not null, " +
+                    "row_version bigint not null, updated_at timestamp)");
+            statement.execute("insert into employees (id, first_name, last_name, email, row_version) " +
+                    "values (1, 'gildong', 'hong', 'hong@email.com', 0), (120, 'jongwoo', 'kim', 'kim@email.com', 0)");
+        }
+        context = SpringTestJunitMockitoApplication.application().run(
+                "--spring.profiles.active=dev",
+                "--server.port=0",
+                "--spring.datasource.url=" + URL,
+                "--spring.cache.type=none");
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @DisplayName("test for saveEmployee on database with rows from before the id sequence")
+    @Test
+    void givenLegacyRows_whenSaveEmployee_thenIdAfterExistingRows() {
+        //given - precondition ro setup
+        EmployeeService employeeService = context.getBean(EmployeeService.class);
+
+        //when - action or the behaviour that we are going test
+        Employee employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+
+        //then - verify the output
+        Assertions.assertThat(employee.getId()).isGreaterThan(120);
+    }
+}
@@ -0,0 +1,169 @@
+package me.jongwoo.spring.testing.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.jongwoo.spring.testing.config.IdempotencyProperties;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.exception.IdempotencyKeyInProgressException;
+import me.jongwoo.spring.testing.repository.IdempotencyRecordRepository;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import me.jongwoo.spring.testing.service.IdempotencyStore;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 메모리를 공유하지 않는 두 노드를 같은 DB 를 쓰는 IdempotencyStore 두 개로 흉내낸다.
+ * DB 락 대기 시간은 wait-timeout 보다 짧게 두어 락 대기가 끝난 뒤에도 다시 기다리는지 본다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=200",
+        "spring.cache.type=none",
+        "employee.idempotency.persistent=true"
+})
+@ActiveProfiles("dev")
+public class IdempotencyIntegrationTest {
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private IdempotencyProperties properties;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @BeforeEach
+    void setup() {
+        recordRepository.deleteAll();
+        List<Long> ids = employeeService.getAllEmployees().stream().map(EmployeeDto::getId).collect(Collectors.toList());
+        if (!ids.isEmpty()) {
+            employeeService.deleteByIds(ids);
+        }
+    }
+
+    @DisplayName("test for execute with same key on another node while first request is running")
+    @Test
+    void givenKeyClaimedOnOtherNode_whenExecute_thenWaitAndReplayWithoutRunning() throws Exception {
+        //given - precondition ro setup
+        IdempotencyStore otherNode = new IdempotencyStore(properties, recordRepository, objectMapper,
+                new SimpleMeterRegistry(), transactionManager);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyStore.execute("POST /api/employees", "key-1", "jongwoo@email.com", () -> {
+                    calls.incrementAndGet();
+                    Employee saved = employeeService.saveEmployee(Employee.builder()
+                            .firstName("jongwoo")
+                            .lastName("lee")
+                            .email("jongwoo@email.com")
+                            .build());
+                    started.countDown();
+                    await(release);
+                    return new ResponseEntity<>(saved, HttpStatus.CREATED);
+                }));
+        Assertions.assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //when - action or the behaviour that we are going test
+        CompletableFuture<ResponseEntity<?>> duplicate = CompletableFuture.supplyAsync(() ->
+                otherNode.execute("POST /api/employees", "key-1", "jongwoo@email.com", () -> {
+                    calls.incrementAndGet();
+                    return new ResponseEntity<>(HttpStatus.CREATED);
+                }));
+        Thread.sleep(1000); // DB 락 대기 시간보다 오래 처리 중
+        release.countDown();
+
+        //then - verify the output
+        Assertions.assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        ResponseEntity<?> replayed = duplicate.get(15, TimeUnit.SECONDS);
+        Assertions.assertThat(replayed.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+        Assertions.assertThat((String) replayed.getBody()).contains("jongwoo@email.com");
+        Assertions.assertThat(calls.get()).isEqualTo(1);
+        Assertions.assertThat(employeeService.getAllEmployees()).hasSize(1);
+    }
+
+    @DisplayName("test for execute with same key on another node after wait timeout")
+    @Test
+    void givenKeyClaimedOnOtherNode_whenWaitTimeoutExpires_thenThrowInProgress() throws Exception {
+        //given - precondition ro setup
+        IdempotencyProperties shortWait = new IdempotencyProperties();
+        shortWait.setPersistent(true);
+        shortWait.setWaitTimeout(Duration.ofMillis(500));
+        IdempotencyStore otherNode = new IdempotencyStore(shortWait, recordRepository, objectMapper,
+                new SimpleMeterRegistry(), transactionManager);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyStore.execute("POST /api/employees", "key-3", "jongwoo@email.com", () -> {
+                    started.countDown();
+                    await(release);
+                    return new ResponseEntity<>(HttpStatus.CREATED);
+                }));
+        Assertions.assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //when - action or the behaviour that we are going test
+        long startedAt = System.nanoTime();
+        Throwable thrown = Assertions.catchThrowable(() -> otherNode.execute("POST /api/employees", "key-3",
+                "jongwoo@email.com", () -> new ResponseEntity<>(HttpStatus.CREATED)));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        release.countDown();
+
+        //then - verify the output
+        Assertions.assertThat(thrown).isInstanceOf(IdempotencyKeyInProgressException.class);
+        Assertions.assertThat(waitedMillis).isGreaterThanOrEqualTo(500);
+        Assertions.assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    @DisplayName("test for execute with failed request on another node")
+    @Test
+    void givenFailedRequestOnOtherNode_whenExecute_thenRunAgain() {
+        //given - precondition ro setup
+        IdempotencyStore otherNode = new IdempotencyStore(properties, recordRepository, objectMapper,
+                new SimpleMeterRegistry(), transactionManager);
+        Assertions.assertThatThrownBy(() -> otherNode.execute("POST /api/employees", "key-2", "jongwoo@email.com", () -> {
+            throw new IllegalStateException("실패");
+        })).isInstanceOf(IllegalStateException.class);
+
+        //when - action or the behaviour that we are going test
+        ResponseEntity<?> response = idempotencyStore.execute("POST /api/employees", "key-2", "jongwoo@email.com",
+                () -> new ResponseEntity<>(HttpStatus.CREATED));
+
+        //then - verify the output
+        Assertions.assertThat(response.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isNull();
+        Assertions.assertThat(recordRepository.findById("POST /api/employees key-2")).isPresent();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package me.jongwoo.spring.testing.integration;
+
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 캐시를 켠 상태에서 replica 가 primary 보다 늦은 경우 (복제 대신 replica 에 이전 값을 직접 넣음).
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-cache-primary;DB_CLOSE_DELAY=-1",
+        "employee.datasource.routing.enabled=true",
+        "employee.datasource.routing.replicas[0].url=" + ReadReplicaCacheIntegrationTest.REPLICA_URL,
+        "employee.datasource.routing.replicas[0].username=sa"
+})
+@ActiveProfiles("dev")
+public class ReadReplicaCacheIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-cache-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setup() {
+        jdbcTemplate.update("delete from employees");
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @DisplayName("test for getEmployeeById and getEmployeeByEmail after update with lagging replica")
+    @Test
+    void givenLaggingReplica_whenReadAfterPatch_thenCacheValueFromPrimary() throws SQLException {
+        //given - precondition ro setup
+        Employee saved = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        seedReplica(saved.getId(), "jongwoo@email.com"); // 아직 변경이 반영되지 않은 replica
+        employeeService.patchEmployee(saved.getId(), Employee.builder().email("changed@email.com").build());
+
+        //when - action or the behaviour that we are going test
+        EmployeeDto first = employeeService.getEmployeeById(saved.getId()).orElseThrow();
+        EmployeeDto cached = employeeService.getEmployeeById(saved.getId()).orElseThrow();
+
+        //then - verify the output
+        Assertions.assertThat(first.getEmail()).isEqualTo("changed@email.com");
+        Assertions.assertThat(cached.getEmail()).isEqualTo("changed@email.com");
+        Assertions.assertThat(employeeService.getEmployeeByEmail("changed@email.com")).isPresent();
+        Assertions.assertThat(employeeService.getEmployeeByEmail("jongwoo@email.com")).isEmpty();
+        // 캐시를 채우지 않는 목록 조회는 그대로 replica 에서 읽음
+        Assertions.assertThat(employeeService.getAllEmployees())
+                .extracting(EmployeeDto::getEmail)
+                .containsExactly("jongwoo@email.com");
+    }
+
+    private static void seedReplica(long id, String email) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table if not exists employees (id bigint primary key, " +
+                        "first_name varchar(255) not null, last_name varchar(255) not null, email varchar(255) not null, " +
+                        "row_version bigint not null, updated_at timestamp)");
+                statement.execute("delete from employees");
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "insert into employees (id, first_name, last_name, email, row_version) values (?, 'jongwoo', 'lee', ?, 0)")) {
+                statement.setLong(1, id);
+                statement.setString(2, email);
+                statement.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package me.jongwoo.spring.testing.integration;
+
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * primary 와 replica 2개를 서로 다른 H2 DB 로 띄우고 (복제 없음) 어느 DB 의 데이터가 보이는지로 라우팅을 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.cache.type=none",
+        "employee.datasource.routing.enabled=true",
+        "employee.datasource.routing.replicas[0].url=" + ReadReplicaRoutingIntegrationTest.REPLICA_0_URL,
+        "employee.datasource.routing.replicas[0].username=sa",
+        "employee.datasource.routing.replicas[1].url=" + ReadReplicaRoutingIntegrationTest.REPLICA_1_URL,
+        "employee.datasource.routing.replicas[1].username=sa"
+})
+@ActiveProfiles("dev")
+public class ReadReplicaRoutingIntegrationTest {
+
+    static final String REPLICA_0_URL = "jdbc:h2:mem:routing-replica-0;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_1_URL = "jdbc:h2:mem:routing-replica-1;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        jdbcTemplate.update("delete from employees");
+        seedReplica(REPLICA_0_URL, 1000, "replica0@email.com");
+        seedReplica(REPLICA_1_URL, 2000, "replica1@email.com");
+    }
+
+    @DisplayName("test for saveEmployee goes to primary")
+    @Test
+    void givenEmployeeObject_whenSaveEmployee_thenWriteToPrimaryOnly() {
+        //given - precondition ro setup
+        Employee employee = Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build();
+
+        //when - action or the behaviour that we are going test
+        employeeService.saveEmployee(employee);
+
+        //then - verify the output
+        Assertions.assertThat(jdbcTemplate.queryForList("select email from employees", String.class))
+                .containsExactly("jongwoo@email.com");
+        Assertions.assertThat(employeeService.getAllEmployees())
+                .extracting(EmployeeDto::getEmail)
+                .doesNotContain("jongwoo@email.com");
+    }
+
+    @DisplayName("test for read only service methods go to replicas round robin")
+    @Test
+    void givenTwoReplicas_whenGetAllEmployees_thenReadFromEachReplicaInTurn() {
+        //given - precondition ro setup
+        //when - action or the behaviour that we are going test
+        List<String> reads = List.of(
+                employeeService.getAllEmployees(),
+                employeeService.getAllEmployees(),
+                employeeService.getAllEmployees(),
+                employeeService.getAllEmployees()).stream()
+                .map(employees -> employees.get(0).getEmail())
+                .collect(Collectors.toList());
+
+        //then - verify the output
+        Assertions.assertThat(reads).containsOnly("replica0@email.com", "replica1@email.com");
+        Assertions.assertThat(reads.get(0)).isNotEqualTo(reads.get(1));
+        Assertions.assertThat(reads.get(0)).isEqualTo(reads.get(2));
+        Assertions.assertThat(reads.get(1)).isEqualTo(reads.get(3));
+    }
+
+    private static void seedReplica(String url, long id, String email) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists employees (id bigint primary key, " +
+                    "first_name varchar(255) not null, last_name varchar(255) not null, email varchar(255) not null)");
+            statement.execute("delete from employees");
+            statement.execute("insert into employees (id, first_name, last_name, email) values (" + id + ", 'replica', 'lee', '" + email + "')");
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package me.jongwoo.spring.testing.integration;
+
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeStats;
+import me.jongwoo.spring.testing.dto.GroupCount;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.exception.AlreadyExistsException;
+import me.jongwoo.spring.testing.exception.EmployeeNotFoundException;
+import me.jongwoo.spring.testing.repository.EmployeeShard;
+import me.jongwoo.spring.testing.repository.ShardedEmployeeRepository;
+import me.jongwoo.spring.testing.service.EmployeeChangeFeed;
+import me.jongwoo.spring.testing.service.EmployeeService;
+import me.jongwoo.spring.testing.service.impl.ShardedEmployeeServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 서로 다른 인메모리 H2 DB 3개를 샤드로 사용한다.
+ */
+@SpringBootTest(properties = {
+        "spring.cache.type=none",
+        "employee.sharding.enabled=true",
+        "employee.sharding.initialize-schema=true",
+        "employee.sharding.shards[0].url=jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1",
+        "employee.sharding.shards[0].username=sa",
+        "employee.sharding.shards[1].url=jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1",
+        "employee.sharding.shards[1].username=sa",
+        "employee.sharding.shards[2].url=jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1",
+        "employee.sharding.shards[2].username=sa"
+})
+@ActiveProfiles("dev")
+public class ShardedEmployeeServiceIntegrationTest {
+
+    private static final int SHARD_COUNT = 3;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private ShardedEmployeeRepository shardedEmployeeRepository;
+
+    @Autowired
+    private EmployeeChangeFeed employeeChangeFeed;
+
+    @BeforeEach
+    void setup() {
+        List<Long> ids = employeeService.getAllEmployees().stream().map(EmployeeDto::getId).collect(Collectors.toList());
+        if (!ids.isEmpty()) {
+            employeeService.deleteByIds(ids);
+        }
+    }
+
+    @DisplayName("test for sharded EmployeeService bean")
+    @Test
+    void givenShardingEnabled_whenInjectEmployeeService_thenUseShardedImplementation() {
+        //given - precondition ro setup
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        Assertions.assertThat(employeeService).isInstanceOf(ShardedEmployeeServiceImpl.class);
+    }
+
+    @DisplayName("test for saveEmployees distributes rows by email hash")
+    @Test
+    void givenEmployeeList_whenSaveEmployees_thenStoreEachRowOnItsEmailShard() {
+        //given - precondition ro setup
+        List<Employee> employees = employees(30);
+
+        //when - action or the behaviour that we are going test
+        List<Employee> savedEmployees = employeeService.saveEmployees(employees);
+
+        //then - verify the output
+        for (Employee employee : savedEmployees) {
+            EmployeeShard shard = shardedEmployeeRepository.shardForEmail(employee.getEmail());
+            Assertions.assertThat(employee.getId() % SHARD_COUNT).isEqualTo(shard.getIndex());
+            Assertions.assertThat(shard.findById(employee.getId())).isPresent();
+        }
+        Assertions.assertThat(shardedEmployeeRepository.getShards())
+                .allSatisfy(shard -> Assertions.assertThat(shard.findAll()).isNotEmpty());
+    }
+
+    @DisplayName("test for getEmployeeById and getEmployeeByEmail on sharded storage")
+    @Test
+    void givenSavedEmployee_whenGetByIdOrEmail_thenReturnEmployeeFromItsShard() {
+        //given - precondition ro setup
+        Employee employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        Assertions.assertThat(employeeService.getEmployeeById(employee.getId())).contains(EmployeeDto.from(employee));
+        Assertions.assertThat(employeeService.getEmployeeByEmail(employee.getEmail())).contains(EmployeeDto.from(employee));
+    }
+
+    @DisplayName("test for getEmployeesByIds gathers rows from every shard")
+    @Test
+    void givenEmployeesOnEveryShard_whenGetEmployeesByIds_thenReturnFoundEmployees() {
+        //given - precondition ro setup
+        List<Employee> savedEmployees = employeeService.saveEmployees(employees(10));
+        List<Long> ids = savedEmployees.stream().map(Employee::getId).collect(Collectors.toList());
+        ids.add(ids.get(0) + 1000L * SHARD_COUNT); // 없는 id
+
+        //when - action or the behaviour that we are going test
+        List<EmployeeDto> employees = employeeService.getEmployeesByIds(ids);
+
+        //then - verify the output
+        Assertions.assertThat(employees).containsExactlyInAnyOrderElementsOf(
+                savedEmployees.stream().map(EmployeeDto::from).collect(Collectors.toList()));
+    }
+
+    @DisplayName("test for stats group by queries on every shard")
+    @Test
+    void givenEmployeesOnEveryShard_whenCountByEmailDomain_thenSumToTotal() {
+        //given - precondition ro setup
+        employeeService.saveEmployees(employees(10));
+
+        //when - action or the behaviour that we are going test
+        List<GroupCount> byDomain = new ArrayList<>();
+        long total = 0;
+        for (EmployeeShard shard : shardedEmployeeRepository.getShards()) {
+            byDomain.addAll(shard.countByEmailDomain());
+            total += shard.count();
+        }
+
+        //then - verify the output
+        EmployeeStats stats = EmployeeStats.of(total, byDomain, List.of());
+        Assertions.assertThat(stats.getTotal()).isEqualTo(10);
+        Assertions.assertThat(stats.getByEmailDomain()).containsOnlyKeys("email.com").containsValue(10L);
+    }
+
+    @DisplayName("test for getAllEmployees, getEmployeesAfter and exportEmployees merge shards by id")
+    @Test
+    void givenEmployeesOnAllShards_whenListEmployees_thenReturnMergedInIdOrder() {
+        //given - precondition ro setup
+        List<Long> ids = employeeService.saveEmployees(employees(30)).stream()
+                .map(Employee::getId).sorted().collect(Collectors.toList());
+
+        //when - action or the behaviour that we are going test
+        List<EmployeeDto> all = employeeService.getAllEmployees();
+        List<EmployeeDto> firstPage = employeeService.getEmployeesAfter(0, 10);
+        List<EmployeeDto> secondPage = employeeService.getEmployeesAfter(firstPage.get(9).getId(), 10);
+        List<EmployeeDto> exported = new ArrayList<>();
+        employeeService.exportEmployees(exported::add);
+
+        //then - verify the output
+        Assertions.assertThat(all).extracting(EmployeeDto::getId).containsExactlyElementsOf(ids);
+        Assertions.assertThat(firstPage).extracting(EmployeeDto::getId).containsExactlyElementsOf(ids.subList(0, 10));
+        Assertions.assertThat(secondPage).extracting(EmployeeDto::getId).containsExactlyElementsOf(ids.subList(10, 20));
+        Assertions.assertThat(exported).isEqualTo(all);
+    }
+
+    @DisplayName("test for searchByName merges shards into slices")
+    @Test
+    void givenSameNameOnAllShards_whenSearchByName_thenReturnSlicesInIdOrder() {
+        //given - precondition ro setup
+        List<Long> ids = employeeService.saveEmployees(employees(7)).stream()
+                .map(Employee::getId).sorted().collect(Collectors.toList());
+
+        //when - action or the behaviour that we are going test
+        Slice<EmployeeDto> firstPage = employeeService.searchByName("jongwoo", "lee", 0, 5);
+        Slice<EmployeeDto> secondPage = employeeService.searchByName("jongwoo", "lee", 1, 5);
+
+        //then - verify the output
+        Assertions.assertThat(firstPage.getContent()).extracting(EmployeeDto::getId).containsExactlyElementsOf(ids.subList(0, 5));
+        Assertions.assertThat(firstPage.hasNext()).isTrue();
+        Assertions.assertThat(secondPage.getContent()).extracting(EmployeeDto::getId).containsExactlyElementsOf(ids.subList(5, 7));
+        Assertions.assertThat(secondPage.hasNext()).isFalse();
+        Assertions.assertThatThrownBy(() -> employeeService.searchByName("jongwoo", "lee", Integer.MAX_VALUE, 5))
+                .isInstanceOf(ArithmeticException.class); // 샤드별 조회 건수가 int 를 넘음
+    }
+
+    @DisplayName("test for saveEmployee with existing email on sharded storage")
+    @Test
+    void givenExistingEmail_whenSaveEmployee_thenThrowsException() {
+        //given - precondition ro setup
+        employeeService.saveEmployee(Employee.builder().firstName("jongwoo").lastName("lee").email("jongwoo@email.com").build());
+
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        Assertions.assertThatThrownBy(() -> employeeService.saveEmployee(
+                        Employee.builder().firstName("jw").lastName("kim").email("jongwoo@email.com").build()))
+                .isInstanceOf(AlreadyExistsException.class);
+    }
+
+    @DisplayName("test for patchEmployee and deleteById on sharded storage")
+    @Test
+    void givenSavedEmployee_whenPatchAndDelete_thenChangeOnlyItsShard() {
+        //given - precondition ro setup
+        long lastEventId = employeeChangeFeed.getLastSequence();
+        Employee employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+
+        //when - action or the behaviour that we are going test
+        boolean patched = employeeService.patchEmployee(employee.getId(), Employee.builder().firstName("jw").build());
+
+        //then - verify the output
+        Assertions.assertThat(patched).isTrue();
+        Assertions.assertThat(employeeService.getEmployeeById(employee.getId()).get().getFirstName()).isEqualTo("jw");
+        Assertions.assertThat(employeeService.deleteById(employee.getId())).isTrue();
+        Assertions.assertThat(employeeService.getEmployeeById(employee.getId())).isEmpty();
+        Assertions.assertThat(employeeChangeFeed.getLastSequence() - lastEventId).isEqualTo(3); // 생성, 수정, 삭제
+    }
+
+    @DisplayName("test for patchEmployee and updateEmployee moving a row to another shard")
+    @Test
+    void givenEmailOnOtherShard_whenPatchAndUpdate_thenMoveRowWithSameId() {
+        //given - precondition ro setup
+        Employee employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        long id = employee.getId();
+        EmployeeShard home = shardedEmployeeRepository.shardForId(id);
+        String otherShardEmail = emailOnOtherShard(home, "moved");
+        EmployeeShard other = shardedEmployeeRepository.shardForEmail(otherShardEmail);
+        long lastEventId = employeeChangeFeed.getLastSequence();
+
+        //when - action or the behaviour that we are going test
+        boolean patched = employeeService.patchEmployee(id, Employee.builder().email(otherShardEmail).build());
+
+        //then - verify the output
+        Assertions.assertThat(patched).isTrue();
+        Assertions.assertThat(home.findById(id)).isEmpty();
+        Assertions.assertThat(other.findById(id)).get()
+                .extracting(EmployeeDto::getFirstName, EmployeeDto::getEmail)
+                .containsExactly("jongwoo", otherShardEmail);
+        Assertions.assertThat(employeeService.getEmployeeById(id)).get().extracting(EmployeeDto::getEmail).isEqualTo(otherShardEmail);
+        Assertions.assertThat(employeeService.getEmployeeByEmail(otherShardEmail)).get().extracting(EmployeeDto::getId).isEqualTo(id);
+        Assertions.assertThat(employeeService.getEmployeeByEmail("jongwoo@email.com")).isEmpty();
+        Assertions.assertThat(employeeService.getEmployeesByIds(List.of(id))).extracting(EmployeeDto::getId).containsExactly(id);
+        Assertions.assertThat(employeeService.getAllEmployees()).hasSize(1);
+
+        // 옮겨 간 행을 다시 수정하고 id 의 샤드로 되돌림
+        employeeService.patchEmployee(id, Employee.builder().firstName("jw").build());
+        Assertions.assertThat(other.findById(id)).get().extracting(EmployeeDto::getFirstName).isEqualTo("jw");
+        employeeService.updateEmployee(Employee.builder().id(id).firstName("jw").lastName("kim").email("jongwoo@email.com").build());
+        Assertions.assertThat(other.findById(id)).isEmpty();
+        Assertions.assertThat(home.findById(id)).get().extracting(EmployeeDto::getLastName).isEqualTo("kim");
+        Assertions.assertThat(home.findLocations(List.of(id))).isEmpty();
+        Assertions.assertThat(employeeChangeFeed.getLastSequence() - lastEventId).isEqualTo(3);
+    }
+
+    @DisplayName("test for patchEmployee moving a row onto an email already taken on the other shard")
+    @Test
+    void givenEmailTakenOnOtherShard_whenPatchEmployee_thenKeepRowOnItsShard() {
+        //given - precondition ro setup
+        Employee employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        EmployeeShard home = shardedEmployeeRepository.shardForId(employee.getId());
+        String otherShardEmail = emailOnOtherShard(home, "moved");
+        employeeService.saveEmployee(Employee.builder().firstName("jw").lastName("kim").email(otherShardEmail).build());
+
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        Assertions.assertThatThrownBy(() -> employeeService.patchEmployee(employee.getId(),
+                        Employee.builder().email(otherShardEmail).build()))
+                .isInstanceOf(AlreadyExistsException.class);
+        Assertions.assertThat(home.findById(employee.getId())).get().extracting(EmployeeDto::getEmail).isEqualTo("jongwoo@email.com");
+        Assertions.assertThat(home.findLocations(List.of(employee.getId()))).isEmpty();
+        Assertions.assertThat(employeeService.getAllEmployees()).hasSize(2);
+    }
+
+    @DisplayName("test for deleteById and deleteByIds with rows moved to another shard")
+    @Test
+    void givenMovedEmployees_whenDelete_thenDeleteRowsAndLocations() {
+        //given - precondition ro setup
+        List<Employee> employees = employeeService.saveEmployees(employees(2));
+        List<Long> ids = employees.stream().map(Employee::getId).collect(Collectors.toList());
+        for (int i = 0; i < employees.size(); i++) {
+            String email = emailOnOtherShard(shardedEmployeeRepository.shardForId(ids.get(i)), "moved-" + i + "-");
+            employeeService.patchEmployee(ids.get(i), Employee.builder().email(email).build());
+        }
+
+        //when - action or the behaviour that we are going test
+        boolean deleted = employeeService.deleteById(ids.get(0));
+        int deletedCount = employeeService.deleteByIds(ids);
+
+        //then - verify the output
+        Assertions.assertThat(deleted).isTrue();
+        Assertions.assertThat(deletedCount).isEqualTo(1);
+        Assertions.assertThat(employeeService.getAllEmployees()).isEmpty();
+        ids.forEach(id -> Assertions.assertThat(shardedEmployeeRepository.shardForId(id).findLocations(List.of(id))).isEmpty());
+    }
+
+    @DisplayName("test for deleteByIds publishes events only for deleted rows on sharded storage")
+    @Test
+    void givenIdsWithMissingOne_whenDeleteByIds_thenPublishDeletedEvents() {
+        //given - precondition ro setup
+        List<Long> ids = employeeService.saveEmployees(employees(5)).stream()
+                .map(Employee::getId).collect(Collectors.toList());
+        List<Long> requestedIds = new ArrayList<>(ids);
+        requestedIds.add(ids.get(0) + SHARD_COUNT * 1000L); // 같은 샤드의 없는 id
+        long lastEventId = employeeChangeFeed.getLastSequence();
+
+        //when - action or the behaviour that we are going test
+        int deleted = employeeService.deleteByIds(requestedIds);
+
+        //then - verify the output
+        Assertions.assertThat(deleted).isEqualTo(5);
+        Assertions.assertThat(employeeChangeFeed.getLastSequence() - lastEventId).isEqualTo(5);
+        Assertions.assertThat(employeeService.getAllEmployees()).isEmpty();
+    }
+
+    @DisplayName("test for updateEmployee with deleted employee on sharded storage")
+    @Test
+    void givenDeletedEmployee_whenUpdateEmployee_thenThrowsException() {
+        //given - precondition ro setup
+        Employee employee = employeeService.saveEmployee(Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build());
+        employeeService.deleteById(employee.getId());
+
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        Assertions.assertThatThrownBy(() -> employeeService.updateEmployee(Employee.builder()
+                        .id(employee.getId())
+                        .firstName("jw")
+                        .lastName("lee")
+                        .email("jongwoo@email.com")
+                        .build()))
+                .isInstanceOf(EmployeeNotFoundException.class);
+        Assertions.assertThat(employeeService.getEmployeeById(employee.getId())).isEmpty();
+    }
+
+    // home 이 아닌 샤드에 저장되는 이메일
+    private String emailOnOtherShard(EmployeeShard home, String name) {
+        return IntStream.range(0, 100)
+                .mapToObj(i -> name + i + "@email.com")
+                .filter(email -> shardedEmployeeRepository.shardForEmail(email) != home)
+                .findFirst().orElseThrow();
+    }
+
+    private static List<Employee> employees(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Employee.builder()
+                        .firstName("jongwoo")
+                        .lastName("lee")
+                        .email("jongwoo" + i + "@email.com")
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -1,26 +1,56 @@
 package me.jongwoo.spring.testing.repository;
 
+import me.jongwoo.spring.testing.config.HibernateCacheConfig;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.GroupCount;
 import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.entity.EmployeeChange;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
+@Import(HibernateCacheConfig.class) // 2차 캐시 영역이 없으면 기동 실패 (missing_cache_strategy=fail)
 @ActiveProfiles("dev")
 class EmployeeRepositoryTest {
 
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private EmployeeChangeRepository employeeChangeRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private Employee employee;
 
     @BeforeEach
@@ -66,6 +96,33 @@ class EmployeeRepositoryTest {
         assertThat(employeeList.size()).isEqualTo(2);
     }
 
+    @DisplayName("JUnit test for keyset page operation")
+    @Test
+    void givenEmployeesList_whenFindByIdGreaterThan_thenReturnNextPage(){
+        //given - precondition ro setup
+        Employee employee1 = Employee.builder()
+                .firstName("gildong")
+                .lastName("hong")
+                .email("hong@email.com")
+                .build();
+        Employee employee2 = Employee.builder()
+                .firstName("sunsin")
+                .lastName("lee")
+                .email("sunsin@email.com")
+                .build();
+
+        employeeRepository.save(employee);
+        employeeRepository.save(employee1);
+        employeeRepository.save(employee2);
+
+        //when - action or the behaviour that we are going test
+        List<EmployeeDto> employeeList = employeeRepository.findByIdGreaterThanOrderByIdAsc(employee.getId(), PageRequest.of(0, 1));
+
+        //then - verify the output
+        assertThat(employeeList).hasSize(1);
+        assertThat(employeeList.get(0).getId()).isEqualTo(employee1.getId());
+    }
+
     @DisplayName("JUnit test for get employee by id operation")
     @Test
     void givenEmployeeObject_whenFindById_thenReturnEmployee(){
@@ -93,6 +150,20 @@ class EmployeeRepositoryTest {
     }
 
 
+    @DisplayName("JUnit test for find existing emails operation")
+    @Test
+    void givenEmployeeObject_whenFindExistingEmails_thenReturnOnlySavedEmails(){
+        //given - precondition ro setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour that we are going test
+        List<String> existingEmails = employeeRepository.findExistingEmails(List.of(employee.getEmail(), "nobody@email.com"));
+
+        //then - verify the output
+        assertThat(existingEmails).containsExactly(employee.getEmail());
+    }
+
+
     @DisplayName("JUnit test for update employee operation")
     @Test
     void givenEmployeeObject_whenUpdate_thenReturnUpdatedEmployee(){
@@ -111,6 +182,96 @@ class EmployeeRepositoryTest {
     }
 
 
+    @DisplayName("JUnit test for partial update employee operation")
+    @Test
+    void givenEmployeeObject_whenUpdatePartially_thenUpdateOnlyGivenColumns(){
+        //given - precondition ro setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour that we are going test
+        Instant updatedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        int updated = employeeRepository.updatePartially(employee.getId(), "jw", null, null, 5L, updatedAt);
+        int missing = employeeRepository.updatePartially(employee.getId() + 1, "jw", null, null, 6L, updatedAt);
+
+        //then - verify the output
+        Employee savedEmployee = testEntityManager.find(Employee.class, employee.getId());
+        assertThat(updated).isEqualTo(1);
+        assertThat(missing).isEqualTo(0);
+        assertThat(savedEmployee.getFirstName()).isEqualTo("jw");
+        assertThat(savedEmployee.getLastName()).isEqualTo("lee");
+        assertThat(savedEmployee.getEmail()).isEqualTo("jongwoo@email.com");
+        assertThat(savedEmployee.getRowVersion()).isEqualTo(5L);
+        assertThat(savedEmployee.getUpdatedAt()).isEqualTo(updatedAt);
+    }
+
+
+    @DisplayName("JUnit test for partial update and delete keep other employees in second level cache")
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 같은 트랜잭션에서 저장한 엔티티는 2차 캐시에 들어가지 않으므로 커밋함
+    void givenCachedEmployees_whenUpdatePartiallyAndDelete_thenEvictOnlyGivenIds(){
+        //given - precondition ro setup
+        Employee employee1 = Employee.builder()
+                .firstName("gildong")
+                .lastName("hong")
+                .email("hong@email.com")
+                .build();
+        employeeRepository.save(employee);
+        employeeRepository.save(employee1); // 커밋 후 2차 캐시에 들어감
+        Cache cache = entityManagerFactory.getCache();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        try {
+            //when - action or the behaviour that we are going test
+            transactionTemplate.executeWithoutResult(status -> {
+                employeeRepository.updatePartially(employee.getId(), "jw", null, null, 5L, Instant.now());
+                employeeChangeRepository.insertChange(5L, employee.getId(), EmployeeChange.Type.UPDATED, Instant.now());
+            });
+            boolean updatedCached = cache.contains(Employee.class, employee.getId());
+            boolean otherCachedAfterUpdate = cache.contains(Employee.class, employee1.getId());
+            employeeRepository.findById(employee.getId());
+            employeeRepository.deleteEmployeeById(employee.getId());
+
+            //then - verify the output
+            assertThat(updatedCached).isFalse();
+            assertThat(otherCachedAfterUpdate).isTrue();
+            assertThat(cache.contains(Employee.class, employee.getId())).isFalse();
+            assertThat(cache.contains(Employee.class, employee1.getId())).isTrue();
+        } finally {
+            employeeRepository.deleteAll();
+            employeeChangeRepository.deleteAll();
+        }
+    }
+
+
+    @DisplayName("JUnit test for find employees changed after row version operation")
+    @Test
+    void givenEmployeesWithRowVersion_whenFindByRowVersionGreaterThan_thenReturnChangedEmployeesInVersionOrder(){
+        //given - precondition ro setup
+        Employee employee1 = Employee.builder()
+                .firstName("gildong")
+                .lastName("hong")
+                .email("hong@email.com")
+                .rowVersion(3L)
+                .build();
+        Employee employee2 = Employee.builder()
+                .firstName("jw")
+                .lastName("kim")
+                .email("kim@email.com")
+                .rowVersion(2L)
+                .build();
+        employee.setRowVersion(1L);
+        employeeRepository.save(employee);
+        employeeRepository.save(employee1);
+        employeeRepository.save(employee2);
+
+        //when - action or the behaviour that we are going test
+        List<Employee> changed = employeeRepository.findByRowVersionGreaterThanOrderByRowVersionAsc(1L, PageRequest.of(0, 10));
+
+        //then - verify the output
+        assertThat(changed).extracting(Employee::getRowVersion).containsExactly(2L, 3L);
+    }
+
+
     @DisplayName("JUnit test for delete employee operation")
     @Test
     void givenEmployeeObject_whenDelete_thenRemoveEmployee(){
@@ -126,6 +287,44 @@ class EmployeeRepositoryTest {
     }
 
 
+    @DisplayName("JUnit test for delete employee by id operation without loading")
+    @Test
+    void givenEmployeeObject_whenDeleteEmployeeById_thenReturnDeletedCount(){
+        //given - precondition ro setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour that we are going test
+        int deleted = employeeRepository.deleteEmployeeById(employee.getId());
+        int missing = employeeRepository.deleteEmployeeById(employee.getId());
+
+        //then - verify the output
+        assertThat(deleted).isEqualTo(1);
+        assertThat(missing).isEqualTo(0);
+        assertThat(employeeRepository.findById(employee.getId())).isEmpty();
+    }
+
+
+    @DisplayName("JUnit test for delete employees by ids operation")
+    @Test
+    void givenEmployeesList_whenDeleteEmployeesByIds_thenRemoveOnlyGivenIds(){
+        //given - precondition ro setup
+        Employee employee1 = Employee.builder()
+                .firstName("gildong")
+                .lastName("hong")
+                .email("hong@email.com")
+                .build();
+        employeeRepository.save(employee);
+        employeeRepository.save(employee1);
+
+        //when - action or the behaviour that we are going test
+        int deleted = employeeRepository.deleteEmployeesByIds(List.of(employee.getId(), employee1.getId() + 1));
+
+        //then - verify the output
+        assertThat(deleted).isEqualTo(1);
+        assertThat(employeeRepository.findAll()).extracting(Employee::getId).containsExactly(employee1.getId());
+    }
+
+
     @DisplayName("JUnit test for custom query using JPQL with index")
     @Test
     void givenFirstNameAndLastName_whenFindByJPQL_thenReturnEmployeeObejct(){
@@ -135,10 +334,10 @@ class EmployeeRepositoryTest {
         String lastName = "lee";
 
         //when - action or the behaviour that we are going test
-        Employee savedEmployee = employeeRepository.findByJPQL(firstName, lastName);
+        List<Employee> savedEmployees = employeeRepository.findByJPQL(firstName, lastName);
 
         //then - verify the output
-        assertThat(savedEmployee).isNotNull();
+        assertThat(savedEmployees).hasSize(1);
     }
 
     @DisplayName("JUnit test for custom query using JPQL with name parameters")
@@ -150,10 +349,10 @@ class EmployeeRepositoryTest {
         String lastName = "lee";
 
         //when - action or the behaviour that we are going test
-        Employee savedEmployee = employeeRepository.findByJPQLNamedParams(firstName, lastName);
+        List<Employee> savedEmployees = employeeRepository.findByJPQLNamedParams(firstName, lastName);
 
         //then - verify the output
-        assertThat(savedEmployee).isNotNull();
+        assertThat(savedEmployees).hasSize(1);
     }
 
     @DisplayName("JUnit test for custom native query with index parameters")
@@ -165,10 +364,10 @@ class EmployeeRepositoryTest {
         String lastName = employee.getLastName();
 
         //when - action or the behaviour that we are going test
-        Employee savedEmployee = employeeRepository.findByNativeQuery(firstName, lastName);
+        List<Employee> savedEmployees = employeeRepository.findByNativeQuery(firstName, lastName);
 
         //then - verify the output
-        assertThat(savedEmployee).isNotNull();
+        assertThat(savedEmployees).hasSize(1);
     }
 
     @DisplayName("JUnit test for custom native query with named parameters")
@@ -180,10 +379,83 @@ class EmployeeRepositoryTest {
         String lastName = employee.getLastName();
 
         //when - action or the behaviour that we are going test
-        Employee savedEmployee = employeeRepository.findByNativeQueryWithNamedParams(firstName, lastName);
+        List<Employee> savedEmployees = employeeRepository.findByNativeQueryWithNamedParams(firstName, lastName);
 
         //then - verify the output
-        assertThat(savedEmployee).isNotNull();
+        assertThat(savedEmployees).hasSize(1);
+    }
+
+    @DisplayName("JUnit test for custom query with duplicated names")
+    @Test
+    void givenEmployeesWithSameName_whenFindByJPQL_thenReturnAllEmployees(){
+        //given - precondition ro setup
+        Employee sameName = Employee.builder()
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email("jongwoo2@email.com")
+                .build();
+        employeeRepository.save(employee);
+        employeeRepository.save(sameName);
+
+        //when - action or the behaviour that we are going test
+        List<Employee> savedEmployees = employeeRepository.findByJPQL(employee.getFirstName(), employee.getLastName());
+
+        //then - verify the output
+        assertThat(savedEmployees).hasSize(2);
+    }
+
+    @DisplayName("JUnit test for name search slice")
+    @Test
+    void givenEmployeesWithSameName_whenFindByLastNameAndFirstName_thenReturnSlice(){
+        //given - precondition ro setup
+        Employee sameName = Employee.builder()
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email("jongwoo2@email.com")
+                .build();
+        employeeRepository.save(employee);
+        employeeRepository.save(sameName);
+
+        //when - action or the behaviour that we are going test
+        Slice<EmployeeDto> firstPage = employeeRepository.findByLastNameAndFirstNameOrderByIdAsc(
+                employee.getLastName(), employee.getFirstName(), PageRequest.of(0, 1));
+
+        //then - verify the output
+        assertThat(firstPage.getContent()).extracting(EmployeeDto::getId).containsExactly(employee.getId());
+        assertThat(firstPage.hasNext()).isTrue();
+    }
+
+    @DisplayName("JUnit test for group by email domain and last name initial")
+    @Test
+    void givenEmployees_whenCountByEmailDomainAndLastNameInitial_thenReturnGroupCounts(){
+        //given - precondition ro setup
+        employeeRepository.save(employee);
+        employeeRepository.save(Employee.builder().firstName("gildong").lastName("hong").email("hong@Email.com").build());
+        employeeRepository.save(Employee.builder().firstName("jw").lastName("Lim").email("jw@other.com").build());
+
+        //when - action or the behaviour that we are going test
+        List<GroupCount> byDomain = employeeRepository.countByEmailDomain();
+        List<GroupCount> byInitial = employeeRepository.countByLastNameInitial();
+
+        //then - verify the output
+        assertThat(byDomain).containsExactly(new GroupCount("email.com", 2), new GroupCount("other.com", 1));
+        assertThat(byInitial).containsExactlyInAnyOrder(new GroupCount("L", 2), new GroupCount("H", 1));
+        assertThat(byInitial.get(0)).isEqualTo(new GroupCount("L", 2));
+    }
+
+    @DisplayName("JUnit test for name query plan using composite index")
+    @Test
+    void givenNameQuery_whenExplain_thenUseCompositeIndex(){
+        //given - precondition ro setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour that we are going test
+        String plan = (String) testEntityManager.getEntityManager()
+                .createNativeQuery("explain select * from employees e where e.first_name = 'jongwoo' and e.last_name = 'lee'")
+                .getSingleResult();
+
+        //then - verify the output
+        assertThat(plan).containsIgnoringCase(Employee.NAME_INDEX);
     }
 
 }
@@ -0,0 +1,133 @@
+package me.jongwoo.spring.testing.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchLoaderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private List<List<Long>> batches;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        batches = new CopyOnWriteArrayList<>();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @DisplayName("JUnit test for load with concurrent keys")
+    @Test
+    void givenConcurrentKeysWithinWindow_whenLoad_thenLoadInOneBatch() throws Exception {
+        //given - precondition ro setup
+        BatchLoader<Long, String> batchLoader = new BatchLoader<>("findById", evenIdsOnly(),
+                Duration.ofMillis(200), 100, 1, meterRegistry);
+
+        //when - action or the behaviour that we are going test
+        List<Future<Optional<String>>> results = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            long key = id;
+            results.add(executor.submit(() -> batchLoader.load(key)));
+        }
+
+        //then - verify the output
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isEmpty();
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS)).contains("employee-2");
+        assertThat(results.get(3).get(5, TimeUnit.SECONDS)).contains("employee-4");
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+        batchLoader.close();
+    }
+
+    @DisplayName("JUnit test for load with full batch")
+    @Test
+    void givenMaxBatchSizeReached_whenLoad_thenLoadWithoutWaitingForWindow() throws Exception {
+        //given - precondition ro setup
+        BatchLoader<Long, String> batchLoader = new BatchLoader<>("findById", evenIdsOnly(),
+                Duration.ofMinutes(1), 2, 1, meterRegistry);
+        Future<Optional<String>> first = executor.submit(() -> batchLoader.load(1L));
+        awaitPending(batchLoader, 1L);
+
+        //when - action or the behaviour that we are going test
+        Optional<String> second = batchLoader.load(2L);
+
+        //then - verify the output
+        assertThat(second).contains("employee-2");
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEmpty();
+        assertThat(batches).containsExactly(List.of(1L, 2L));
+        assertThat(meterRegistry.get("employee.batchloader.batch.size").summary().max()).isEqualTo(2);
+        batchLoader.close();
+    }
+
+    @DisplayName("JUnit test for load with failing loader")
+    @Test
+    void givenFailingLoader_whenLoad_thenEveryCallerReceivesException() throws Exception {
+        //given - precondition ro setup
+        BatchLoader<Long, String> batchLoader = new BatchLoader<>("findById", ids -> {
+            throw new IllegalStateException("db down");
+        }, Duration.ofMillis(50), 100, 1, meterRegistry);
+
+        //when - action or the behaviour that we are going test
+        Future<Optional<String>> first = executor.submit(() -> batchLoader.load(1L));
+        Future<Optional<String>> second = executor.submit(() -> batchLoader.load(2L));
+
+        //then - verify the output
+        ExecutionException firstError = Assertions.assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        ExecutionException secondError = Assertions.assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertThat(firstError.getCause()).hasMessage("db down");
+        assertThat(secondError.getCause()).hasMessage("db down");
+        batchLoader.close();
+    }
+
+    // 짝수 id 만 존재하는 loader
+    private Function<List<Long>, Map<Long, String>> evenIdsOnly() {
+        return ids -> {
+            batches.add(List.copyOf(ids));
+            return ids.stream()
+                    .filter(id -> id % 2 == 0)
+                    .collect(Collectors.toMap(Function.identity(), id -> "employee-" + id));
+        };
+    }
+
+    // 다른 스레드의 조회가 대기 목록에 들어갈 때까지 대기
+    @SuppressWarnings("unchecked")
+    private static void awaitPending(BatchLoader<Long, String> batchLoader, Long key) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            synchronized (batchLoader) {
+                Map<Long, ?> pending = (Map<Long, ?>) ReflectionTestUtils.getField(batchLoader, "pending");
+                if (pending.containsKey(key)) {
+                    return;
+                }
+            }
+            Thread.sleep(10);
+        }
+        Assertions.fail("대기 중인 조회가 없습니다: " + key);
+    }
+}
@@ -0,0 +1,174 @@
+package me.jongwoo.spring.testing.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.jongwoo.spring.testing.config.ChangeFeedProperties;
+import me.jongwoo.spring.testing.dto.EmployeeChangeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// dispatcher 스레드는 @PostConstruct 에서 시작하므로 전송을 확인하는 테스트에서만 직접 시작함
+class EmployeeChangeFeedTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private EmployeeChangeFeed changeFeed;
+
+    @BeforeEach
+    void setUp() {
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setBufferSize(3);
+        properties.setSendThreads(1);
+        properties.setSendTimeout(Duration.ofMillis(100));
+        meterRegistry = new SimpleMeterRegistry();
+        changeFeed = new EmployeeChangeFeed(properties, meterRegistry);
+        LongStream.rangeClosed(1, 5).forEach(id -> changeFeed.onChange(EmployeeChangeEvent.deleted(id)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeFeed.stop();
+    }
+
+    @DisplayName("JUnit test for readAfter within buffer")
+    @Test
+    void givenLastEventIdInBuffer_whenReadAfter_thenReturnFollowingEvents(){
+        //given - precondition ro setup
+        //when - action or the behaviour that we are going test
+        List<EmployeeChangeFeed.Event> events = changeFeed.readAfter(2, 10);
+
+        //then - verify the output
+        assertThat(events.stream().map(event -> event.id).collect(Collectors.toList())).containsExactly(3L, 4L, 5L);
+        assertThat(events.get(0).change).isEqualTo(EmployeeChangeEvent.deleted(3));
+        assertThat(changeFeed.readAfter(5, 10)).isEmpty();
+        assertThat(changeFeed.readAfter(3, 1)).hasSize(1);
+    }
+
+    @DisplayName("JUnit test for readAfter with evicted or unknown event id")
+    @Test
+    void givenEvictedOrUnknownEventId_whenReadAfter_thenReturnNull(){
+        //given - precondition ro setup
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        assertThat(changeFeed.readAfter(1, 10)).isNull();
+        assertThat(changeFeed.readAfter(6, 10)).isNull();
+        assertThat(changeFeed.getLastSequence()).isEqualTo(5);
+    }
+
+    @DisplayName("JUnit test for subscribe with last event id of same feed")
+    @Test
+    void givenLastEventIdOfSameFeed_whenSubscribe_thenResumeAfterIt() throws InterruptedException {
+        //given - precondition ro setup
+        String lastEventId = changeFeed.getLastEventId().replaceFirst(":5$", ":3");
+        RecordingEmitter emitter = new RecordingEmitter(2);
+
+        //when - action or the behaviour that we are going test
+        changeFeed.subscribe(emitter, lastEventId);
+        changeFeed.start();
+
+        //then - verify the output
+        assertThat(emitter.await()).isTrue();
+        String epoch = lastEventId.substring(0, lastEventId.indexOf(':'));
+        assertThat(emitter.content()).contains("id:" + epoch + ":4", "id:" + epoch + ":5")
+                .doesNotContain("event:" + EmployeeChangeFeed.RESET_EVENT);
+    }
+
+    @DisplayName("JUnit test for subscribe with last event id from before restart")
+    @Test
+    void givenLastEventIdBeforeRestart_whenSubscribe_thenResetInsteadOfResuming() throws InterruptedException {
+        //given - precondition ro setup
+        String beforeRestart = changeFeed.getLastEventId().replaceFirst(":5$", ":3");
+        changeFeed.stop();
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setBufferSize(10);
+        changeFeed = new EmployeeChangeFeed(properties, meterRegistry); // 재시작한 노드. 순번이 다시 1 부터 시작해서 3 이 버퍼 안에 있음
+        LongStream.rangeClosed(1, 5).forEach(id -> changeFeed.onChange(EmployeeChangeEvent.deleted(id)));
+        RecordingEmitter emitter = new RecordingEmitter(1);
+
+        //when - action or the behaviour that we are going test
+        changeFeed.subscribe(emitter, beforeRestart);
+        changeFeed.start();
+
+        //then - verify the output
+        assertThat(emitter.await()).isTrue();
+        assertThat(emitter.content()).contains("event:" + EmployeeChangeFeed.RESET_EVENT, "id:" + changeFeed.getLastEventId())
+                .doesNotContain("event:DELETED");
+        assertThat(meterRegistry.counter("employee.changes.resets").count()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for slow subscriber over the send timeout")
+    @Test
+    void givenStalledSubscriber_whenSendTimeout_thenDropItAndKeepSendingToOthers() throws InterruptedException {
+        //given - precondition ro setup
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(1);
+        changeFeed.subscribe(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try {
+                    unblock.await(); // 소켓 버퍼가 가득 찬 클라이언트처럼 쓰기가 끝나지 않음
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, null);
+        changeFeed.subscribe(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                received.countDown();
+            }
+        }, null);
+        changeFeed.start();
+
+        //when - action or the behaviour that we are going test
+        changeFeed.onChange(EmployeeChangeEvent.deleted(6));
+
+        //then - verify the output
+        try {
+            assertThat(received.await(5, TimeUnit.SECONDS)).isTrue(); // 전송 스레드가 하나뿐이어도 막힌 구독자에 묶이지 않음
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.counter("employee.changes.dropped").count() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(meterRegistry.counter("employee.changes.dropped").count()).isEqualTo(1);
+            assertThat(meterRegistry.get("employee.changes.subscribers").gauge().value()).isEqualTo(1);
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    // 보낸 이벤트를 SSE 형식 문자열로 모음
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final StringBuffer content = new StringBuffer();
+        private final CountDownLatch sent;
+
+        RecordingEmitter(int events) {
+            this.sent = new CountDownLatch(events);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().forEach(data -> content.append(data.getData()));
+            sent.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return sent.await(5, TimeUnit.SECONDS);
+        }
+
+        String content() {
+            return content.toString();
+        }
+    }
+}
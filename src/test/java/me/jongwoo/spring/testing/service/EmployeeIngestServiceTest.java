@@ -0,0 +1,90 @@
+package me.jongwoo.spring.testing.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.jongwoo.spring.testing.config.IngestProperties;
+import me.jongwoo.spring.testing.dto.IngestStatus;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.exception.IngestQueueFullException;
+import me.jongwoo.spring.testing.repository.EmployeeRepository;
+import me.jongwoo.spring.testing.service.impl.EmployeeIngestServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+// writer 스레드는 @PostConstruct 에서 시작하므로 여기서는 큐에 쌓이기만 함
+@ExtendWith(MockitoExtension.class)
+class EmployeeIngestServiceTest {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private MeterRegistry meterRegistry;
+    private EmployeeIngestServiceImpl ingestService;
+    private Employee employee;
+
+    @BeforeEach
+    void setUp() {
+        IngestProperties properties = new IngestProperties();
+        properties.setQueueCapacity(1);
+        meterRegistry = new SimpleMeterRegistry();
+        ingestService = new EmployeeIngestServiceImpl(employeeService, employeeRepository, properties, meterRegistry);
+        employee = Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build();
+    }
+
+    @DisplayName("JUnit test for submit")
+    @Test
+    void givenEmployeeObject_whenSubmit_thenReturnQueuedStatus(){
+        //given - precondition ro setup
+        //when - action or the behaviour that we are going test
+        IngestStatus status = ingestService.submit(employee);
+
+        //then - verify the output
+        assertThat(status.getState()).isEqualTo(IngestStatus.State.QUEUED);
+        assertThat(ingestService.getStatus(status.getTrackingId())).contains(status);
+        assertThat(meterRegistry.get("employee.ingest.queue.size").gauge().value()).isEqualTo(1);
+        verifyNoInteractions(employeeService, employeeRepository);
+    }
+
+    @DisplayName("JUnit test for submit which throws exception when queue is full")
+    @Test
+    void givenFullQueue_whenSubmit_thenThrowsException(){
+        //given - precondition ro setup
+        ingestService.submit(employee);
+
+        //when - action or the behaviour that we are going test
+        Assertions.assertThrows(IngestQueueFullException.class, () -> {
+            ingestService.submit(Employee.builder()
+                    .firstName("gildong")
+                    .lastName("hong")
+                    .email("gildong@email.com")
+                    .build());
+        });
+
+        //then - verify the output
+        assertThat(meterRegistry.get("employee.ingest.queue.full").counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for getStatus with unknown tracking id")
+    @Test
+    void givenUnknownTrackingId_whenGetStatus_thenReturnEmpty(){
+        //given - precondition ro setup
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        assertThat(ingestService.getStatus("unknown")).isEmpty();
+    }
+}
@@ -1,28 +1,61 @@
 package me.jongwoo.spring.testing.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.jongwoo.spring.testing.config.BatchLoaderProperties;
+import me.jongwoo.spring.testing.dto.EmployeeChangeEvent;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeStats;
+import me.jongwoo.spring.testing.dto.GroupCount;
 import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.entity.EmployeeChange;
 import me.jongwoo.spring.testing.exception.AlreadyExistsException;
+import me.jongwoo.spring.testing.repository.EmployeeChangeRepository;
 import me.jongwoo.spring.testing.repository.EmployeeRepository;
 import me.jongwoo.spring.testing.service.impl.EmployeeServiceImpl;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +65,30 @@ class EmployeeServiceTest {
     @Mock
     private EmployeeRepository employeeRepository;
 
+    @Mock
+    private EmployeeChangeRepository employeeChangeRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache employeeCache;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private BatchLoaderProperties batchLoaderProperties = new BatchLoaderProperties();
+
+    @Captor
+    private ArgumentCaptor<List<EmployeeChange>> savedChanges;
+
     @InjectMocks
     private EmployeeServiceImpl employeeService;
     private Employee employee;
@@ -53,14 +110,19 @@ class EmployeeServiceTest {
     @Test
     void givenEmployeeObject_whenSaveEmployee_thenReturnEmployeeObject(){
         //given - precondition ro setup
-        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.empty());
         given(employeeRepository.save(employee)).willReturn(employee);
+        givenChangeVersion(7L);
 
         //when - action or the behaviour that we are going test
         Employee savedEmployee = employeeService.saveEmployee(employee);
 
         //then - verify the output
         assertThat(savedEmployee).isNotNull();
+        assertThat(savedEmployee.getRowVersion()).isEqualTo(7L);
+        assertThat(savedEmployee.getUpdatedAt()).isNotNull();
+        verify(employeeRepository, times(1)).flush();
+        verify(employeeRepository, never()).findByEmail(anyString());
+        verify(eventPublisher).publishEvent(EmployeeChangeEvent.created(EmployeeDto.from(employee)));
     }
 
 
@@ -68,7 +130,9 @@ class EmployeeServiceTest {
     @Test
     void givenExistingEmail_whenSaveEmployee_thenThrowsException(){
         //given - precondition ro setup
-        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.of(employee));
+        given(employeeRepository.save(employee)).willReturn(employee);
+        givenChangeVersion(7L);
+        willThrow(emailViolation()).given(employeeRepository).flush();
 
         //when - action or the behaviour that we are going test
         Assertions.assertThrows(AlreadyExistsException.class, () -> {
@@ -76,7 +140,96 @@ class EmployeeServiceTest {
         });
 
         //then - verify the output
-        verify(employeeRepository, never()).save(any(Employee.class));
+        verify(employeeRepository, never()).findByEmail(anyString());
+    }
+
+
+    @DisplayName("JUnit test for saveEmployee with other constraint violation")
+    @Test
+    void givenOtherConstraintViolation_whenSaveEmployee_thenRethrow(){
+        //given - precondition ro setup
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("not null",
+                new ConstraintViolationException("not null", new SQLException(), "first_name"));
+        given(employeeRepository.save(employee)).willReturn(employee);
+        givenChangeVersion(7L);
+        willThrow(violation).given(employeeRepository).flush();
+
+        //when - action or the behaviour that we are going test
+        DataIntegrityViolationException thrown = Assertions.assertThrows(DataIntegrityViolationException.class, () -> {
+            employeeService.saveEmployee(employee);
+        });
+
+        //then - verify the output
+        assertThat(thrown).isSameAs(violation);
+    }
+
+
+    @DisplayName("JUnit test for saveEmployees")
+    @Test
+    void givenEmployeeList_whenSaveEmployees_thenReturnSavedEmployeeList(){
+        //given - precondition ro setup
+        Employee employee1 = Employee.builder()
+                .firstName("gildong")
+                .lastName("hong")
+                .email("gildong@email.com")
+                .build();
+        List<Employee> employees = List.of(employee, employee1);
+        given(employeeRepository.findExistingEmails(List.of(employee.getEmail(), employee1.getEmail())))
+                .willReturn(Collections.emptyList());
+        given(employeeRepository.saveAll(employees)).willReturn(employees);
+        given(cacheManager.getCache("employee")).willReturn(employeeCache);
+        givenChangeVersions(7L);
+
+        //when - action or the behaviour that we are going test
+        List<Employee> savedEmployees = employeeService.saveEmployees(employees);
+
+        //then - verify the output
+        assertThat(savedEmployees).containsExactly(employee, employee1);
+        assertThat(savedEmployees).extracting(Employee::getRowVersion).containsExactly(7L, 8L);
+        verify(employeeChangeRepository, times(1)).saveAll(anyList());
+        verify(employeeChangeRepository, never()).save(any(EmployeeChange.class));
+        verify(employeeRepository, times(1)).flush();
+        // 저장한 id 만 지우고 캐시 전체는 유지
+        verify(employeeCache).evict(employee.getId());
+        verify(employeeCache).evict(employee1.getId());
+        verify(employeeCache, never()).clear();
+    }
+
+
+    @DisplayName("JUnit test for saveEmployees which throws exception")
+    @Test
+    void givenExistingEmail_whenSaveEmployees_thenThrowsException(){
+        //given - precondition ro setup
+        given(employeeRepository.findExistingEmails(List.of(employee.getEmail())))
+                .willReturn(List.of(employee.getEmail()));
+
+        //when - action or the behaviour that we are going test
+        Assertions.assertThrows(AlreadyExistsException.class, () -> {
+            employeeService.saveEmployees(List.of(employee));
+        });
+
+        //then - verify the output
+        verify(employeeRepository, never()).saveAll(any());
+    }
+
+
+    @DisplayName("JUnit test for saveEmployees with duplicated email in request")
+    @Test
+    void givenDuplicatedEmailInRequest_whenSaveEmployees_thenThrowsException(){
+        //given - precondition ro setup
+        Employee duplicated = Employee.builder()
+                .firstName("jw")
+                .lastName("kim")
+                .email(employee.getEmail())
+                .build();
+
+        //when - action or the behaviour that we are going test
+        Assertions.assertThrows(AlreadyExistsException.class, () -> {
+            employeeService.saveEmployees(List.of(employee, duplicated));
+        });
+
+        //then - verify the output
+        verifyNoInteractions(employeeRepository);
     }
 
 
@@ -91,10 +244,10 @@ class EmployeeServiceTest {
                 .email("gildong@email.com")
                 .build();
 
-        given(employeeRepository.findAll()).willReturn(List.of(employee, employee1));
+        given(employeeRepository.findAllProjectedBy()).willReturn(List.of(EmployeeDto.from(employee), EmployeeDto.from(employee1)));
 
         //when - action or the behaviour that we are going test
-        List<Employee> employeeList = employeeService.getAllEmployees();
+        List<EmployeeDto> employeeList = employeeService.getAllEmployees();
 
         //then - verify the output
         assertThat(employeeList).isNotNull();
@@ -105,10 +258,10 @@ class EmployeeServiceTest {
     @Test
     void givenEmptyEmployeeList_whenGetAllEmployees_thenReturnEmptyEmployeeList(){
         //given - precondition ro setup
-        given(employeeRepository.findAll()).willReturn(Collections.emptyList());
+        given(employeeRepository.findAllProjectedBy()).willReturn(Collections.emptyList());
 
         //when - action or the behaviour that we are going test
-        List<Employee> employeeList = employeeService.getAllEmployees();
+        List<EmployeeDto> employeeList = employeeService.getAllEmployees();
 
         //then - verify the output
         assertThat(employeeList).isEmpty();
@@ -116,6 +269,48 @@ class EmployeeServiceTest {
     }
 
 
+    @DisplayName("JUnit test for getEmployeesAfter")
+    @Test
+    void givenCursor_whenGetEmployeesAfter_thenReturnEmployeePage(){
+        //given - precondition ro setup
+        Employee employee1 = Employee.builder()
+                .id(2L)
+                .firstName("gildong")
+                .lastName("hong")
+                .email("gildong@email.com")
+                .build();
+
+        given(employeeRepository.findByIdGreaterThanOrderByIdAsc(1L, PageRequest.of(0, 10))).willReturn(List.of(EmployeeDto.from(employee1)));
+
+        //when - action or the behaviour that we are going test
+        List<EmployeeDto> employeeList = employeeService.getEmployeesAfter(1L, 10);
+
+        //then - verify the output
+        assertThat(employeeList).containsExactly(EmployeeDto.from(employee1));
+    }
+
+
+    @DisplayName("JUnit test for exportEmployees")
+    @Test
+    void givenEmployeeStream_whenExportEmployees_thenConsumeEachEmployee(){
+        //given - precondition ro setup
+        Employee employee1 = Employee.builder()
+                .id(2L)
+                .firstName("gildong")
+                .lastName("hong")
+                .email("gildong@email.com")
+                .build();
+        given(employeeRepository.streamAll()).willReturn(Stream.of(EmployeeDto.from(employee), EmployeeDto.from(employee1)));
+        List<EmployeeDto> exported = new ArrayList<>();
+
+        //when - action or the behaviour that we are going test
+        employeeService.exportEmployees(exported::add);
+
+        //then - verify the output
+        assertThat(exported).containsExactly(EmployeeDto.from(employee), EmployeeDto.from(employee1));
+    }
+
+
     @DisplayName("JUnit test for getEmployeeById")
     @Test
     void givenEmployeeId_whenGetEmployeeById_thenReturnEmployeeObject(){
@@ -123,18 +318,82 @@ class EmployeeServiceTest {
         given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
 
         //when - action or the behaviour that we are going test
-        Optional<Employee> savedEmployee = employeeService.getEmployeeById(1L);
+        Optional<EmployeeDto> savedEmployee = employeeService.getEmployeeById(1L);
 
         //then - verify the output
         assertThat(savedEmployee).isNotNull();
         assertThat(savedEmployee.get().getEmail()).isEqualTo("jongwoo@email.com");
     }
 
+    @DisplayName("JUnit test for getEmployeeByEmail")
+    @Test
+    void givenEmail_whenGetEmployeeByEmail_thenReturnEmployeeObject(){
+        //given - precondition ro setup
+        given(employeeRepository.findByEmail("jongwoo@email.com")).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour that we are going test
+        Optional<EmployeeDto> savedEmployee = employeeService.getEmployeeByEmail("jongwoo@email.com");
+
+        //then - verify the output
+        assertThat(savedEmployee).contains(EmployeeDto.from(employee));
+    }
+
+    @DisplayName("JUnit test for getEmployeesByIds")
+    @Test
+    void givenManyIds_whenGetEmployeesByIds_thenQueryInChunksWithoutDuplicates(){
+        //given - precondition ro setup
+        List<Long> ids = LongStream.rangeClosed(1, 501).boxed().collect(Collectors.toList());
+        ids.add(1L);
+        given(employeeRepository.findByIdIn(anyList())).willReturn(List.of(EmployeeDto.from(employee))).willReturn(List.of());
+
+        //when - action or the behaviour that we are going test
+        List<EmployeeDto> employees = employeeService.getEmployeesByIds(ids);
+
+        //then - verify the output
+        assertThat(employees).containsExactly(EmployeeDto.from(employee));
+        verify(employeeRepository).findByIdIn(ids.subList(0, 500));
+        verify(employeeRepository).findByIdIn(List.of(501L));
+    }
+
+    @DisplayName("JUnit test for getEmployeeStats")
+    @Test
+    void givenGroupCounts_whenGetEmployeeStats_thenReturnCountsInDescendingOrder(){
+        //given - precondition ro setup
+        given(employeeRepository.count()).willReturn(3L);
+        given(employeeRepository.countByEmailDomain()).willReturn(List.of(new GroupCount("other.com", 1), new GroupCount("email.com", 2)));
+        given(employeeRepository.countByLastNameInitial()).willReturn(List.of(new GroupCount("L", 3)));
+
+        //when - action or the behaviour that we are going test
+        EmployeeStats stats = employeeService.getEmployeeStats();
+
+        //then - verify the output
+        assertThat(stats.getTotal()).isEqualTo(3);
+        assertThat(stats.getByEmailDomain()).containsExactly(entry("email.com", 2L), entry("other.com", 1L));
+        assertThat(stats.getByLastNameInitial()).containsExactly(entry("L", 3L));
+        verify(employeeRepository, never()).findAll();
+    }
+
+    @DisplayName("JUnit test for searchByName")
+    @Test
+    void givenName_whenSearchByName_thenReturnSlice(){
+        //given - precondition ro setup
+        Slice<EmployeeDto> slice = new SliceImpl<>(List.of(EmployeeDto.from(employee)), PageRequest.of(0, 10), false);
+        given(employeeRepository.findByLastNameAndFirstNameOrderByIdAsc("lee", "jongwoo", PageRequest.of(0, 10)))
+                .willReturn(slice);
+
+        //when - action or the behaviour that we are going test
+        Slice<EmployeeDto> result = employeeService.searchByName("jongwoo", "lee", 0, 10);
+
+        //then - verify the output
+        assertThat(result.getContent()).containsExactly(EmployeeDto.from(employee));
+    }
+
     @DisplayName("JUnit test for updateEmployee")
     @Test
     void givenUpdatedEmployee_whenUpdateEmployee_thenReturnUpdatedEmployeeObejct(){
         //given - precondition ro setup
         given(employeeRepository.save(employee)).willReturn(employee);
+        givenChangeVersion(8L);
         employee.setEmail("jw@email.com");
         employee.setFirstName("jw");
 
@@ -144,6 +403,63 @@ class EmployeeServiceTest {
         //then - verify the output
         assertThat(updatedEmployee.getEmail()).isEqualTo("jw@email.com");
         assertThat(updatedEmployee.getFirstName()).isEqualTo("jw");
+        assertThat(updatedEmployee.getRowVersion()).isEqualTo(8L);
+    }
+
+
+    @DisplayName("JUnit test for updateEmployee with existing email")
+    @Test
+    void givenExistingEmail_whenUpdateEmployee_thenThrowsException(){
+        //given - precondition ro setup
+        given(employeeRepository.save(employee)).willReturn(employee);
+        givenChangeVersion(8L);
+        willThrow(emailViolation()).given(employeeRepository).flush();
+
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        Assertions.assertThrows(AlreadyExistsException.class, () -> {
+            employeeService.updateEmployee(employee);
+        });
+    }
+
+
+    @DisplayName("JUnit test for patchEmployee")
+    @Test
+    void givenChangedFields_whenPatchEmployee_thenReturnTrue(){
+        //given - precondition ro setup
+        Employee changes = Employee.builder().firstName("jw").build();
+        given(employeeChangeRepository.nextVersion()).willReturn(9L);
+        given(employeeRepository.updatePartially(eq(1L), eq("jw"), isNull(), isNull(), eq(9L), any(Instant.class)))
+                .willReturn(1);
+
+        //when - action or the behaviour that we are going test
+        boolean patched = employeeService.patchEmployee(1L, changes);
+
+        //then - verify the output
+        assertThat(patched).isTrue();
+        verify(employeeChangeRepository).insertChange(eq(9L), eq(1L), eq(EmployeeChange.Type.UPDATED), any(Instant.class));
+        verify(employeeRepository, never()).findById(anyLong());
+        verify(eventPublisher).publishEvent(EmployeeChangeEvent.updated(1L));
+    }
+
+
+    @DisplayName("JUnit test for patchEmployee with invalid employeeId")
+    @Test
+    void givenInvalidEmployeeId_whenPatchEmployee_thenReturnFalse(){
+        //given - precondition ro setup
+        Employee changes = Employee.builder().firstName("jw").build();
+        given(employeeChangeRepository.nextVersion()).willReturn(9L);
+        given(employeeRepository.updatePartially(eq(2L), eq("jw"), isNull(), isNull(), eq(9L), any(Instant.class)))
+                .willReturn(0);
+
+        //when - action or the behaviour that we are going test
+        boolean patched = employeeService.patchEmployee(2L, changes);
+
+        //then - verify the output
+        assertThat(patched).isFalse();
+        verify(employeeChangeRepository, never()).insertChange(anyLong(), anyLong(), any(), any());
+        verify(employeeChangeRepository, never()).save(any(EmployeeChange.class));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
 
@@ -151,13 +467,99 @@ class EmployeeServiceTest {
     @Test
     void givenEmployeeId_whenDeleteEmployeeById_thenNothing(){
         //given - precondition ro setup
-        willDoNothing().given(employeeRepository).deleteById(1L);
+        given(employeeRepository.deleteEmployeeById(1L)).willReturn(1);
+        givenChangeVersion(10L);
+
+        //when - action or the behaviour that we are going test
+        boolean deleted = employeeService.deleteById(1L);
+
+        //then - verify the output
+        assertThat(deleted).isTrue();
+        verify(employeeRepository, times(1)).deleteEmployeeById(1L);
+        verify(employeeRepository, never()).findById(anyLong());
+        verify(eventPublisher).publishEvent(EmployeeChangeEvent.deleted(1L));
+    }
+
+
+    @DisplayName("JUnit test for deleteEmployeeById with invalid employeeId")
+    @Test
+    void givenInvalidEmployeeId_whenDeleteEmployeeById_thenReturnFalse(){
+        //given - precondition ro setup
+        given(employeeRepository.deleteEmployeeById(2L)).willReturn(0);
 
         //when - action or the behaviour that we are going test
-        employeeService.deleteById(1L);
+        boolean deleted = employeeService.deleteById(2L);
 
         //then - verify the output
-        verify(employeeRepository, times(1)).deleteById(1L);
+        assertThat(deleted).isFalse();
+        verifyNoInteractions(eventPublisher, employeeChangeRepository);
+    }
+
+
+    @DisplayName("JUnit test for deleteByIds")
+    @Test
+    void givenEmployeeIds_whenDeleteByIds_thenReturnDeletedCount(){
+        //given - precondition ro setup
+        given(employeeRepository.findExistingIds(List.of(1L, 2L, 3L))).willReturn(List.of(1L, 3L));
+        given(employeeRepository.deleteEmployeesByIds(List.of(1L, 3L))).willReturn(2);
+        givenChangeVersions(11L);
+
+        //when - action or the behaviour that we are going test
+        int deleted = employeeService.deleteByIds(List.of(1L, 2L, 3L));
+
+        //then - verify the output
+        assertThat(deleted).isEqualTo(2);
+        verify(employeeChangeRepository, times(1)).saveAll(savedChanges.capture());
+        assertThat(savedChanges.getValue()).extracting(EmployeeChange::getEmployeeId).containsExactly(1L, 3L);
+        assertThat(savedChanges.getValue()).extracting(EmployeeChange::getType).containsOnly(EmployeeChange.Type.DELETED);
+        verify(eventPublisher).publishEvent(EmployeeChangeEvent.deleted(1L));
+        verify(eventPublisher).publishEvent(EmployeeChangeEvent.deleted(3L));
+        verify(eventPublisher, never()).publishEvent(EmployeeChangeEvent.deleted(2L));
+    }
+
+    @DisplayName("JUnit test for deleteByIds with more ids than chunk size")
+    @Test
+    void givenIdsOverChunkSize_whenDeleteByIds_thenDeletePerChunk(){
+        //given - precondition ro setup
+        List<Long> ids = LongStream.rangeClosed(1, 501).boxed().collect(Collectors.toList());
+        given(employeeRepository.findExistingIds(ids.subList(0, 500))).willReturn(List.of(1L));
+        given(employeeRepository.findExistingIds(List.of(501L))).willReturn(List.of(501L));
+        given(employeeRepository.deleteEmployeesByIds(anyList())).willReturn(1);
+        givenChangeVersions(11L);
+
+        //when - action or the behaviour that we are going test
+        int deleted = employeeService.deleteByIds(ids);
+
+        //then - verify the output
+        assertThat(deleted).isEqualTo(2);
+        verify(employeeRepository).deleteEmployeesByIds(List.of(1L));
+        verify(employeeRepository).deleteEmployeesByIds(List.of(501L));
+        verify(employeeChangeRepository, times(2)).saveAll(anyList());
+    }
+
+    // 저장된 변경 기록에 시퀀스 값 대신 version 을 채워서 반환
+    private void givenChangeVersion(long version) {
+        given(employeeChangeRepository.save(any(EmployeeChange.class))).willAnswer(invocation -> {
+            EmployeeChange change = invocation.getArgument(0);
+            ReflectionTestUtils.setField(change, "id", version);
+            return change;
+        });
+    }
+
+    // saveAll 로 저장된 변경 기록에 first 부터 차례로 version 을 채워서 반환
+    private void givenChangeVersions(long first) {
+        given(employeeChangeRepository.saveAll(anyList())).willAnswer(invocation -> {
+            List<EmployeeChange> changes = invocation.getArgument(0);
+            for (int i = 0; i < changes.size(); i++) {
+                ReflectionTestUtils.setField(changes.get(i), "id", first + i);
+            }
+            return changes;
+        });
+    }
+
+    private static DataIntegrityViolationException emailViolation() {
+        return new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException(), "PUBLIC.UK_EMPLOYEES_EMAIL_INDEX_A"));
     }
 
 }
\ No newline at end of file
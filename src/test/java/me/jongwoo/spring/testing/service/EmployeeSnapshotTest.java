@@ -0,0 +1,83 @@
+package me.jongwoo.spring.testing.service;
+
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmployeeSnapshotTest {
+
+    private EmployeeSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = new EmployeeSnapshot();
+    }
+
+    @DisplayName("JUnit test for findById and findByEmail")
+    @Test
+    void givenEmployeesPutOutOfOrder_whenFind_thenReturnEmployees(){
+        //given - precondition ro setup
+        snapshot.put(new EmployeeDto(3L, "jongwoo", "lee", "jongwoo@email.com"));
+        snapshot.put(new EmployeeDto(1L, "gildong", "hong", "hong@email.com"));
+        snapshot.put(new EmployeeDto(2L, "jongwoo", "kim", "kim@email.com"));
+
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        assertThat(snapshot.findById(3L)).contains(new EmployeeDto(3L, "jongwoo", "lee", "jongwoo@email.com"));
+        assertThat(snapshot.findById(4L)).isEmpty();
+        assertThat(snapshot.findByEmail("kim@email.com")).contains(new EmployeeDto(2L, "jongwoo", "kim", "kim@email.com"));
+        assertThat(snapshot.findByEmail("none@email.com")).isEmpty();
+        assertThat(snapshot.findAfter(1L, 10)).extracting(EmployeeDto::getId).containsExactly(2L, 3L);
+    }
+
+    @DisplayName("JUnit test for put with changed email")
+    @Test
+    void givenChangedEmail_whenPut_thenFindOnlyByNewEmail(){
+        //given - precondition ro setup
+        snapshot.put(new EmployeeDto(1L, "jongwoo", "lee", "jongwoo@email.com"));
+
+        //when - action or the behaviour that we are going test
+        snapshot.put(new EmployeeDto(1L, "jw", "lee", "jw@email.com"));
+
+        //then - verify the output
+        assertThat(snapshot.size()).isEqualTo(1);
+        assertThat(snapshot.findByEmail("jongwoo@email.com")).isEmpty();
+        assertThat(snapshot.findByEmail("jw@email.com")).contains(new EmployeeDto(1L, "jw", "lee", "jw@email.com"));
+    }
+
+    @DisplayName("JUnit test for remove with many rows")
+    @Test
+    void givenManyEmployees_whenRemoveHalf_thenIndexesStayConsistent(){
+        //given - precondition ro setup
+        int count = 10_000;
+        for (long id = 1; id <= count; id++) {
+            snapshot.put(new EmployeeDto(id, "first" + (id % 10), "last" + (id % 7), "employee" + id + "@email.com"));
+        }
+        snapshot.trimToSize();
+
+        //when - action or the behaviour that we are going test
+        for (long id = 1; id <= count; id += 2) {
+            snapshot.remove(id);
+        }
+
+        //then - verify the output
+        assertThat(snapshot.size()).isEqualTo(count / 2);
+        for (long id = 1; id <= count; id++) {
+            boolean kept = id % 2 == 0;
+            assertThat(snapshot.findById(id).isPresent()).isEqualTo(kept);
+            assertThat(snapshot.findByEmail("employee" + id + "@email.com").map(EmployeeDto::getId))
+                    .isEqualTo(kept ? Optional.of(id) : Optional.empty());
+        }
+        List<EmployeeDto> firstPage = snapshot.findAfter(0, 3);
+        assertThat(firstPage).containsExactly(
+                new EmployeeDto(2L, "first2", "last2", "employee2@email.com"),
+                new EmployeeDto(4L, "first4", "last4", "employee4@email.com"),
+                new EmployeeDto(6L, "first6", "last6", "employee6@email.com"));
+    }
+}
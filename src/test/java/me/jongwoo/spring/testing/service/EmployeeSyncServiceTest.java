@@ -0,0 +1,123 @@
+package me.jongwoo.spring.testing.service;
+
+import me.jongwoo.spring.testing.config.SyncProperties;
+import me.jongwoo.spring.testing.dto.EmployeeDto;
+import me.jongwoo.spring.testing.dto.EmployeeSyncPage;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.entity.EmployeeChange;
+import me.jongwoo.spring.testing.repository.EmployeeChangeRepository;
+import me.jongwoo.spring.testing.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeSyncServiceTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private EmployeeChangeRepository employeeChangeRepository;
+
+    private EmployeeSyncService employeeSyncService;
+
+    @BeforeEach
+    void setUp() {
+        SyncProperties properties = new SyncProperties();
+        properties.setCommitLag(Duration.ofSeconds(5));
+        employeeSyncService = new EmployeeSyncService(employeeRepository, employeeChangeRepository, properties);
+    }
+
+    @DisplayName("JUnit test for getChangesSince merging changes and tombstones in version order")
+    @Test
+    void givenChangesAndDeletions_whenGetChangesSince_thenMergeInVersionOrder(){
+        //given - precondition ro setup
+        Employee employee = employee(1L, 12L);
+        Employee employee1 = employee(2L, 14L);
+        given(employeeRepository.findByRowVersionGreaterThanOrderByRowVersionAsc(10L, PageRequest.of(0, 3)))
+                .willReturn(List.of(employee, employee1));
+        given(employeeChangeRepository.findByTypeAndIdGreaterThanOrderByIdAsc(EmployeeChange.Type.DELETED, 10L, PageRequest.of(0, 3)))
+                .willReturn(List.of(deletion(3L, 11L), deletion(4L, 13L)));
+
+        //when - action or the behaviour that we are going test
+        EmployeeSyncPage page = employeeSyncService.getChangesSince(10L, 2);
+
+        //then - verify the output
+        assertThat(page.getDeletedIds()).containsExactly(3L);
+        assertThat(page.getEmployees()).containsExactly(EmployeeDto.from(employee));
+        assertThat(page.getToken()).isEqualTo("12");
+        assertThat(page.isHasMore()).isTrue();
+    }
+
+    @DisplayName("JUnit test for getChangesSince stopping at change within commit lag")
+    @Test
+    void givenRecentChange_whenGetChangesSince_thenStopBeforeIt(){
+        //given - precondition ro setup
+        Employee employee = employee(1L, 12L);
+        Employee recent = employee(2L, 14L);
+        recent.setUpdatedAt(Instant.now()); // 이보다 작은 version 이 아직 커밋 중일 수 있음
+        Employee afterRecent = employee(3L, 15L);
+        given(employeeRepository.findByRowVersionGreaterThanOrderByRowVersionAsc(10L, PageRequest.of(0, 11)))
+                .willReturn(List.of(employee, recent, afterRecent));
+        given(employeeChangeRepository.findByTypeAndIdGreaterThanOrderByIdAsc(EmployeeChange.Type.DELETED, 10L, PageRequest.of(0, 11)))
+                .willReturn(Collections.emptyList());
+
+        //when - action or the behaviour that we are going test
+        EmployeeSyncPage page = employeeSyncService.getChangesSince(10L, 10);
+
+        //then - verify the output
+        assertThat(page.getEmployees()).containsExactly(EmployeeDto.from(employee));
+        assertThat(page.getToken()).isEqualTo("12");
+        assertThat(page.isHasMore()).isFalse();
+    }
+
+    @DisplayName("JUnit test for getChangesSince without changes")
+    @Test
+    void givenNoChanges_whenGetChangesSince_thenReturnSameToken(){
+        //given - precondition ro setup
+        given(employeeRepository.findByRowVersionGreaterThanOrderByRowVersionAsc(10L, PageRequest.of(0, 3)))
+                .willReturn(Collections.emptyList());
+        given(employeeChangeRepository.findByTypeAndIdGreaterThanOrderByIdAsc(EmployeeChange.Type.DELETED, 10L, PageRequest.of(0, 3)))
+                .willReturn(Collections.emptyList());
+
+        //when - action or the behaviour that we are going test
+        EmployeeSyncPage page = employeeSyncService.getChangesSince(10L, 2);
+
+        //then - verify the output
+        assertThat(page.getEmployees()).isEmpty();
+        assertThat(page.getDeletedIds()).isEmpty();
+        assertThat(page.getToken()).isEqualTo("10");
+        assertThat(page.isHasMore()).isFalse();
+    }
+
+    private static Employee employee(long id, long rowVersion) {
+        return Employee.builder()
+                .id(id)
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email(id + "@email.com")
+                .rowVersion(rowVersion)
+                .updatedAt(Instant.now().minusSeconds(60))
+                .build();
+    }
+
+    private static EmployeeChange deletion(long employeeId, long version) {
+        EmployeeChange change = new EmployeeChange(employeeId, EmployeeChange.Type.DELETED, Instant.now().minusSeconds(60));
+        ReflectionTestUtils.setField(change, "id", version);
+        return change;
+    }
+}
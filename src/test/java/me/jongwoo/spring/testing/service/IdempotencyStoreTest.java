@@ -0,0 +1,235 @@
+package me.jongwoo.spring.testing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.jongwoo.spring.testing.config.IdempotencyProperties;
+import me.jongwoo.spring.testing.entity.Employee;
+import me.jongwoo.spring.testing.entity.IdempotencyRecord;
+import me.jongwoo.spring.testing.exception.AlreadyExistsException;
+import me.jongwoo.spring.testing.exception.IdempotencyKeyMismatchException;
+import me.jongwoo.spring.testing.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class IdempotencyStoreTest {
+
+    private IdempotencyStore idempotencyStore;
+    private IdempotencyRecordRepository recordRepository;
+    private PlatformTransactionManager transactionManager;
+    private Employee employee;
+
+    @BeforeEach
+    void setUp() {
+        recordRepository = mock(IdempotencyRecordRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        idempotencyStore = new IdempotencyStore(new IdempotencyProperties(), recordRepository,
+                new ObjectMapper(), new SimpleMeterRegistry(), transactionManager);
+        employee = Employee.builder()
+                .firstName("jongwoo")
+                .lastName("lee")
+                .email("jongwoo@email.com")
+                .build();
+    }
+
+    @DisplayName("JUnit test for execute with repeated key")
+    @Test
+    void givenRepeatedKey_whenExecute_thenReturnStoredResponseWithoutRunningAgain(){
+        //given - precondition ro setup
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyStore.execute("POST /api/employees", "key-1", employee,
+                () -> new ResponseEntity<>(created(calls.incrementAndGet()), HttpStatus.CREATED));
+
+        //when - action or the behaviour that we are going test
+        ResponseEntity<?> replayed = idempotencyStore.execute("POST /api/employees", "key-1", employee,
+                () -> new ResponseEntity<>(created(calls.incrementAndGet()), HttpStatus.CREATED));
+
+        //then - verify the output
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(replayed.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat((String) replayed.getBody()).contains("\"id\":1");
+        verifyNoInteractions(recordRepository); // persistent=false
+    }
+
+    @DisplayName("JUnit test for execute with same key and different request")
+    @Test
+    void givenSameKeyWithDifferentRequest_whenExecute_thenThrowsException(){
+        //given - precondition ro setup
+        idempotencyStore.execute("POST /api/employees", "key-1", employee,
+                () -> new ResponseEntity<>(employee, HttpStatus.CREATED));
+        Employee other = Employee.builder()
+                .firstName("jw")
+                .lastName("kim")
+                .email("jw@email.com")
+                .build();
+
+        //when - action or the behaviour that we are going test
+        //then - verify the output
+        Assertions.assertThrows(IdempotencyKeyMismatchException.class, () -> {
+            idempotencyStore.execute("POST /api/employees", "key-1", other,
+                    () -> new ResponseEntity<>(other, HttpStatus.CREATED));
+        });
+    }
+
+    @DisplayName("JUnit test for execute with failed first request")
+    @Test
+    void givenFailedFirstRequest_whenExecute_thenRunAgain(){
+        //given - precondition ro setup
+        Assertions.assertThrows(AlreadyExistsException.class, () -> {
+            idempotencyStore.execute("POST /api/employees", "key-1", employee, () -> {
+                throw new AlreadyExistsException("이미 존재합니다.");
+            });
+        });
+
+        //when - action or the behaviour that we are going test
+        ResponseEntity<?> response = idempotencyStore.execute("POST /api/employees", "key-1", employee,
+                () -> new ResponseEntity<>(employee, HttpStatus.CREATED));
+
+        //then - verify the output
+        assertThat(response.getBody()).isSameAs(employee);
+    }
+
+    @DisplayName("JUnit test for execute with concurrent duplicates")
+    @Test
+    void givenInFlightRequest_whenExecute_thenWaitForFirstResult() throws Exception {
+        //given - precondition ro setup
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyStore.execute("POST /api/employees", "key-1", employee, () -> {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return new ResponseEntity<>(created(1), HttpStatus.CREATED);
+                }));
+        started.await(5, TimeUnit.SECONDS);
+
+        //when - action or the behaviour that we are going test
+        CompletableFuture<ResponseEntity<?>> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyStore.execute("POST /api/employees", "key-1", employee, () -> {
+                    calls.incrementAndGet();
+                    return new ResponseEntity<>(created(2), HttpStatus.CREATED);
+                }));
+        release.countDown();
+
+        //then - verify the output
+        assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat((String) duplicate.get(5, TimeUnit.SECONDS).getBody()).contains("\"id\":1");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for execute with response stored in database")
+    @Test
+    void givenPersistedResponse_whenExecute_thenReturnItWithoutRunning(){
+        //given - precondition ro setup
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setPersistent(true);
+        ObjectMapper objectMapper = new ObjectMapper();
+        IdempotencyStore persistentStore = new IdempotencyStore(properties, recordRepository, objectMapper,
+                new SimpleMeterRegistry(), transactionManager);
+        AtomicInteger calls = new AtomicInteger();
+        persistentStore.execute("POST /api/employees", "key-1", employee,
+                () -> new ResponseEntity<>(created(calls.incrementAndGet()), HttpStatus.CREATED));
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(recordRepository).claim(eq("POST /api/employees key-1"), fingerprint.capture(), any(Instant.class));
+        verify(recordRepository).complete(eq("POST /api/employees key-1"), eq(201), eq(null), body.capture());
+        // 다른 노드에서 이미 차지한 키
+        given(recordRepository.claim(anyString(), anyString(), any(Instant.class)))
+                .willThrow(new DataIntegrityViolationException("duplicate key"));
+        given(recordRepository.findById("POST /api/employees key-1")).willReturn(Optional.of(new IdempotencyRecord(
+                "POST /api/employees key-1", fingerprint.getValue(), 201, null, body.getValue(), Instant.now())));
+        IdempotencyStore restartedStore = new IdempotencyStore(properties, recordRepository, objectMapper,
+                new SimpleMeterRegistry(), transactionManager);
+
+        //when - action or the behaviour that we are going test
+        ResponseEntity<?> replayed = restartedStore.execute("POST /api/employees", "key-1", employee,
+                () -> new ResponseEntity<>(created(calls.incrementAndGet()), HttpStatus.CREATED));
+
+        //then - verify the output
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat((String) replayed.getBody()).contains("\"id\":1");
+        verify(recordRepository).complete(anyString(), anyInt(), any(), anyString()); // 처음 한 번만
+    }
+
+    @DisplayName("JUnit test for execute with key in progress on another node")
+    @Test
+    void givenKeyInProgressInDatabase_whenExecute_thenWaitUntilCompleted(){
+        //given - precondition ro setup
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setPersistent(true);
+        ObjectMapper objectMapper = new ObjectMapper();
+        IdempotencyStore persistentStore = new IdempotencyStore(properties, recordRepository, objectMapper,
+                new SimpleMeterRegistry(), transactionManager);
+        AtomicInteger calls = new AtomicInteger();
+        persistentStore.execute("POST /api/employees", "key-1", employee,
+                () -> new ResponseEntity<>(created(calls.incrementAndGet()), HttpStatus.CREATED));
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(recordRepository).claim(eq("POST /api/employees key-1"), fingerprint.capture(), any(Instant.class));
+        verify(recordRepository).complete(eq("POST /api/employees key-1"), eq(201), eq(null), body.capture());
+        // 다른 노드가 차지하고 아직 처리 중인 키
+        given(recordRepository.claim(anyString(), anyString(), any(Instant.class)))
+                .willThrow(new DataIntegrityViolationException("duplicate key"));
+        given(recordRepository.findById("POST /api/employees key-1")).willReturn(
+                Optional.of(new IdempotencyRecord("POST /api/employees key-1", fingerprint.getValue(),
+                        IdempotencyRecord.IN_PROGRESS, null, null, Instant.now())),
+                Optional.of(new IdempotencyRecord("POST /api/employees key-1", fingerprint.getValue(),
+                        201, null, body.getValue(), Instant.now())));
+        IdempotencyStore otherNode = new IdempotencyStore(properties, recordRepository, objectMapper,
+                new SimpleMeterRegistry(), transactionManager);
+
+        //when - action or the behaviour that we are going test
+        ResponseEntity<?> replayed = otherNode.execute("POST /api/employees", "key-1", employee,
+                () -> new ResponseEntity<>(created(calls.incrementAndGet()), HttpStatus.CREATED));
+
+        //then - verify the output
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        verify(recordRepository, times(2)).findById("POST /api/employees key-1");
+    }
+
+    private Employee created(long id) {
+        return Employee.builder()
+                .id(id)
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
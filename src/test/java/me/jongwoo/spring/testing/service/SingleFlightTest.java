@@ -0,0 +1,122 @@
+package me.jongwoo.spring.testing.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight<Long, String> singleFlight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("findById", meterRegistry);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @DisplayName("JUnit test for execute with concurrent identical keys")
+    @Test
+    void givenConcurrentCallsWithSameKey_whenExecute_thenLoadOnce() throws Exception {
+        //given - precondition ro setup
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute(1L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "jongwoo";
+        }));
+        loading.await(5, TimeUnit.SECONDS);
+
+        //when - action or the behaviour that we are going test
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                loads.incrementAndGet();
+                return "other";
+            })));
+        }
+        awaitCollapsed(3);
+        release.countDown();
+
+        //then - verify the output
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("jongwoo");
+        for (Future<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("jongwoo");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(count("executed")).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for execute with failing loader")
+    @Test
+    void givenFailingLoader_whenExecute_thenPropagateToWaitersAndRunAgain() throws Exception {
+        //given - precondition ro setup
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute(1L, () -> {
+            loading.countDown();
+            await(release);
+            throw new IllegalStateException("db down");
+        }));
+        loading.await(5, TimeUnit.SECONDS);
+        Future<String> follower = executor.submit(() -> singleFlight.execute(1L, () -> "other"));
+        awaitCollapsed(1);
+
+        //when - action or the behaviour that we are going test
+        release.countDown();
+
+        //then - verify the output
+        ExecutionException leaderError = Assertions.assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerError = Assertions.assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertThat(leaderError.getCause()).hasMessage("db down");
+        assertThat(followerError.getCause()).isSameAs(leaderError.getCause());
+        assertThat(singleFlight.execute(1L, () -> "jongwoo")).isEqualTo("jongwoo");
+        assertThat(meterRegistry.get("employee.singleflight.in-flight").gauge().value()).isZero();
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("employee.singleflight.calls", "operation", "findById", "result", result).count();
+    }
+
+    // 뒤따르는 호출이 모두 합쳐질 때까지 대기
+    private void awaitCollapsed(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("collapsed") < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(count("collapsed")).isEqualTo(expected);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}